@@ -0,0 +1,145 @@
+package com.stocknotebook.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.stocknotebook.dto.response.CacheStatsDTO;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports statistics, hottest keys and entry ages of the local Caffeine caches.
+ * Entries filled from the {@link SharedCacheStore} count the age they had
+ * there.
+ */
+@Component
+public class CacheInspector {
+
+    private final CacheManager cacheManager;
+    private final SharedCacheStore sharedCacheStore;
+    private final Map<String, Duration> ttls;
+
+    public CacheInspector(
+        CacheManager cacheManager,
+        SharedCacheStore sharedCacheStore,
+        @Value("${app.cache.price-cache-ttl:300}") long priceCacheTtl,
+        @Value("${app.cache.chart-cache-ttl:1800}") long chartCacheTtl
+    ) {
+        this.cacheManager = cacheManager;
+        this.sharedCacheStore = sharedCacheStore;
+        this.ttls = Map.of(
+            CacheNames.STOCK_PRICES,
+            Duration.ofSeconds(priceCacheTtl),
+            CacheNames.STOCK_CHARTS,
+            Duration.ofSeconds(chartCacheTtl)
+        );
+    }
+
+    /**
+     * Age of a cached entry, compared against the TTL of caches that serve
+     * stale values. Empty when the key is not cached.
+     */
+    public Optional<EntryAge> ageOf(String cacheName, Object key) {
+        if (!(cacheManager.getCache(cacheName) instanceof CaffeineCache cache)) {
+            return Optional.empty();
+        }
+
+        return cache
+            .getNativeCache()
+            .policy()
+            .expireAfterWrite()
+            .flatMap(expiration -> expiration.ageOf(key))
+            .map(age ->
+                age.plus(
+                    sharedCacheStore
+                        .servedAge(cacheName, key.toString())
+                        .orElse(Duration.ZERO)
+                )
+            )
+            .map(age -> new EntryAge(age, ttls.get(cacheName)));
+    }
+
+    /**
+     * Describe every cache on this node
+     *
+     * @param topKeys number of hottest keys to list per cache
+     */
+    public List<CacheStatsDTO> describeAll(int topKeys) {
+        return cacheManager
+            .getCacheNames()
+            .stream()
+            .sorted()
+            .map(name -> describe(name, topKeys))
+            .flatMap(Optional::stream)
+            .toList();
+    }
+
+    public Optional<CacheStatsDTO> describe(String cacheName, int topKeys) {
+        if (!(cacheManager.getCache(cacheName) instanceof CaffeineCache cache)) {
+            return Optional.empty();
+        }
+
+        Cache<Object, Object> nativeCache = cache.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        Optional<Policy.Eviction<Object, Object>> eviction = nativeCache
+            .policy()
+            .eviction();
+
+        // Hottest keys are the most frequently used ones by the admission policy
+        List<String> hottestKeys = eviction
+            .map(policy ->
+                policy
+                    .hottest(topKeys)
+                    .keySet()
+                    .stream()
+                    .map(Object::toString)
+                    .toList()
+            )
+            .orElse(List.of());
+
+        return Optional.of(
+            new CacheStatsDTO(
+                cacheName,
+                nativeCache.estimatedSize(),
+                eviction
+                    .map(Policy.Eviction::weightedSize)
+                    .filter(OptionalLong::isPresent)
+                    .map(OptionalLong::getAsLong)
+                    .orElse(null),
+                eviction.map(Policy.Eviction::getMaximum).orElse(null),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.loadSuccessCount(),
+                stats.loadFailureCount(),
+                stats.averageLoadPenalty() / 1_000_000.0,
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                hottestKeys
+            )
+        );
+    }
+
+    /**
+     * Age of a cache entry and the TTL after which it counts as stale
+     */
+    public record EntryAge(Duration age, Duration ttl) {
+        public boolean isStale() {
+            return ttl != null && age.compareTo(ttl) > 0;
+        }
+
+        /**
+         * Seconds of freshness left; negative once the entry is stale
+         */
+        public long remainingSeconds() {
+            return ttl != null ? ttl.minus(age).toSeconds() : 0;
+        }
+    }
+}
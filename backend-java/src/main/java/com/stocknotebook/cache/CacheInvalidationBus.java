@@ -0,0 +1,228 @@
+package com.stocknotebook.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stocknotebook.event.CacheEvictedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cluster-wide cache invalidation over Postgres {@code LISTEN/NOTIFY}.
+ *
+ * An eviction clears the local cache and the {@link SharedCacheStore}, then
+ * notifies the other nodes, which clear their local caches. Each node listens
+ * on a dedicated connection outside the pool. After a lost connection all
+ * local caches are cleared, since notifications may have been missed.
+ *
+ * Every local eviction, from this node or another, is published as a
+ * {@link CacheEvictedEvent} so state derived from a cache can follow it.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        CacheInvalidationBus.class
+    );
+
+    static final String CHANNEL = "cache_invalidation";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager cacheManager;
+    private final SharedCacheStore sharedCacheStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cache.l2.listen-timeout:1000}")
+    private int listenTimeoutMs;
+
+    @Value("${app.cache.l2.reconnect-delay:5000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public CacheInvalidationBus(
+        CacheManager cacheManager,
+        SharedCacheStore sharedCacheStore,
+        JdbcTemplate jdbcTemplate,
+        DataSourceProperties dataSourceProperties,
+        ObjectMapper objectMapper,
+        ApplicationEventPublisher eventPublisher
+    ) {
+        this.cacheManager = cacheManager;
+        this.sharedCacheStore = sharedCacheStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!sharedCacheStore.isEnabled()) {
+            return;
+        }
+
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread.join(listenTimeoutMs * 2L);
+        }
+    }
+
+    /**
+     * Evict one key on every node
+     */
+    public void evict(String cacheName, String key) {
+        evictLocal(cacheName, key);
+        sharedCacheStore.evict(cacheName, key);
+        publish(new Invalidation(nodeId, cacheName, key));
+    }
+
+    /**
+     * Clear a whole cache on every node
+     */
+    public void clear(String cacheName) {
+        evictLocal(cacheName, null);
+        sharedCacheStore.clear(cacheName);
+        publish(new Invalidation(nodeId, cacheName, null));
+    }
+
+    private void publish(Invalidation invalidation) {
+        if (!sharedCacheStore.isEnabled()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.queryForList(
+                "SELECT pg_notify(?, ?)",
+                CHANNEL,
+                objectMapper.writeValueAsString(invalidation)
+            );
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn(
+                "Failed to broadcast invalidation of {}",
+                invalidation.cache(),
+                e
+            );
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (
+                Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword()
+                );
+                Statement statement = connection.createStatement()
+            ) {
+                statement.execute("LISTEN " + CHANNEL);
+                PGConnection pgConnection = connection.unwrap(
+                    PGConnection.class
+                );
+                if (reconnecting) {
+                    cacheManager
+                        .getCacheNames()
+                        .forEach(name -> evictLocal(name, null));
+                }
+                log.info("Listening for cache invalidations as node {}", nodeId);
+
+                while (running) {
+                    PGNotification[] notifications =
+                        pgConnection.getNotifications(listenTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn(
+                    "Cache invalidation listener disconnected, retrying in {} ms",
+                    reconnectDelayMs,
+                    e
+                );
+                reconnecting = true;
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        try {
+            Invalidation invalidation = objectMapper.readValue(
+                payload,
+                Invalidation.class
+            );
+            if (nodeId.equals(invalidation.node())) {
+                return;
+            }
+            evictLocal(invalidation.cache(), invalidation.key());
+            log.debug(
+                "Applied invalidation of {}:{} from node {}",
+                invalidation.cache(),
+                invalidation.key() != null ? invalidation.key() : "*",
+                invalidation.node()
+            );
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload, e);
+        }
+    }
+
+    private void evictLocal(String cacheName, String key) {
+        sharedCacheStore.invalidated(cacheName, key);
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (key == null) {
+            cache.clear();
+        } else {
+            cache.evict(key);
+        }
+        eventPublisher.publishEvent(new CacheEvictedEvent(cacheName, key));
+    }
+
+    /**
+     * Notification payload. A null key clears the whole cache.
+     */
+    record Invalidation(String node, String cache, String key) {}
+}
@@ -0,0 +1,17 @@
+package com.stocknotebook.cache;
+
+/**
+ * Cache name constants
+ */
+public final class CacheNames {
+
+    public static final String STOCK_PRICES = "stockPrices";
+    public static final String STOCK_CHARTS = "stockCharts";
+    public static final String CHART_INDICATORS = "chartIndicators";
+    public static final String SYMBOL_SEARCH = "symbolSearch";
+    public static final String UNKNOWN_SYMBOLS = "unknownSymbols";
+    public static final String SYMBOL_LISTS = "symbolLists";
+    public static final String ADJUSTMENT_FACTORS = "adjustmentFactors";
+
+    private CacheNames() {}
+}
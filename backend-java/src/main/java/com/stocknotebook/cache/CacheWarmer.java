@@ -0,0 +1,190 @@
+package com.stocknotebook.cache;
+
+import com.stocknotebook.repository.PurchaseRepository;
+import com.stocknotebook.service.StockService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Preloads caches in the background after startup.
+ *
+ * Warms the symbol lists, the latest prices of every purchased symbol and the
+ * configured chart periods of the most held symbols, one step at a time so a
+ * fresh node does not burst Yahoo Finance. As a health indicator in the
+ * readiness group it keeps the node out of rotation until
+ * {@code required-percentage} of the steps have completed. Failed steps do not
+ * count, so a node whose warm-up mostly failed stays out of rotation.
+ */
+@Component
+public class CacheWarmer implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        CacheWarmer.class
+    );
+
+    private final StockService stockService;
+    private final StockPriceCache stockPriceCache;
+    private final PurchaseRepository purchaseRepository;
+
+    @Value("${app.cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.warmup.required-percentage:90}")
+    private double requiredPercentage;
+
+    @Value("${app.cache.warmup.price-batch-size:50}")
+    private int priceBatchSize;
+
+    @Value("${app.cache.warmup.chart-symbols:20}")
+    private int chartSymbols;
+
+    @Value("${app.cache.warmup.chart-periods:1M,1Y}")
+    private List<String> chartPeriods;
+
+    @Value("${app.cache.warmup.popular-symbols-limit:20}")
+    private int popularSymbolsLimit;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile int total;
+    private volatile boolean finished;
+
+    public CacheWarmer(
+        StockService stockService,
+        StockPriceCache stockPriceCache,
+        PurchaseRepository purchaseRepository
+    ) {
+        this.stockService = stockService;
+        this.stockPriceCache = stockPriceCache;
+        this.purchaseRepository = purchaseRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup() {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+
+        Thread thread = new Thread(this::warmUp, "cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Share of warm-up steps run, completed or failed, from 0 to 100
+     */
+    public double getProgress() {
+        int steps = total;
+        return steps == 0
+            ? (finished ? 100.0 : 0.0)
+            : 100.0 * (completed.get() + failed.get()) / steps;
+    }
+
+    /**
+     * Share of warm-up steps completed, from 0 to 100
+     */
+    public double getCompletedPercentage() {
+        int steps = total;
+        return steps == 0 ? 0.0 : 100.0 * completed.get() / steps;
+    }
+
+    @Override
+    public Health health() {
+        double progress = getProgress();
+        double completedPercentage = getCompletedPercentage();
+        Health.Builder health = !enabled ||
+            completedPercentage >= requiredPercentage
+            ? Health.up()
+            : Health.outOfService();
+        return health
+            .withDetail("finished", finished)
+            .withDetail("progress", Math.round(progress * 10) / 10.0)
+            .withDetail(
+                "completedPercentage",
+                Math.round(completedPercentage * 10) / 10.0
+            )
+            .withDetail("requiredPercentage", requiredPercentage)
+            .withDetail("completed", completed.get())
+            .withDetail("failed", failed.get())
+            .withDetail("total", total)
+            .build();
+    }
+
+    private void warmUp() {
+        long started = System.currentTimeMillis();
+        try {
+            List<String> symbols = purchaseRepository.findAllUniqueSymbols();
+            List<String> mostHeld = purchaseRepository.findMostHeldSymbols(
+                PageRequest.of(0, chartSymbols)
+            );
+
+            List<Runnable> steps = new ArrayList<>();
+            steps.add(() -> stockService.getPopularSymbols(popularSymbolsLimit));
+            steps.add(stockService::getAllSectors);
+            steps.add(stockService::getAllIndustries);
+            for (int i = 0; i < symbols.size(); i += priceBatchSize) {
+                List<String> batch = symbols.subList(
+                    i,
+                    Math.min(i + priceBatchSize, symbols.size())
+                );
+                steps.add(() -> stockPriceCache.getAll(batch));
+            }
+            for (String symbol : mostHeld) {
+                for (String period : chartPeriods) {
+                    steps.add(() -> stockService.getChartData(symbol, period));
+                }
+            }
+
+            total = steps.size();
+            log.info(
+                "Cache warm-up started: {} steps for {} symbols",
+                total,
+                symbols.size()
+            );
+
+            for (Runnable step : steps) {
+                try {
+                    step.run();
+                    completed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    log.warn("Cache warm-up step failed: {}", e.getMessage());
+                }
+                if ((completed.get() + failed.get()) % 10 == 0) {
+                    log.info(
+                        "Cache warm-up progress: {}%",
+                        Math.round(getProgress())
+                    );
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Cache warm-up aborted", e);
+        } finally {
+            finished = true;
+            log.info(
+                "Cache warm-up finished in {} ms: {} steps completed, {} failed",
+                System.currentTimeMillis() - started,
+                completed.get(),
+                failed.get()
+            );
+            if (getCompletedPercentage() < requiredPercentage) {
+                log.warn(
+                    "Cache warm-up completed {}% of its steps, below the required {}%; node stays out of rotation",
+                    Math.round(getCompletedPercentage()),
+                    requiredPercentage
+                );
+            }
+        }
+    }
+}
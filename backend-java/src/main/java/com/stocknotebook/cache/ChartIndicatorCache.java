@@ -0,0 +1,85 @@
+package com.stocknotebook.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.stocknotebook.event.AdjustmentFactorsChangedEvent;
+import com.stocknotebook.model.IndicatorSeries;
+import com.stocknotebook.model.IndicatorSpec;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.service.StockService;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Programmatic access to the {@link CacheNames#CHART_INDICATORS} cache.
+ *
+ * Indicators are cached per chart key and indicator set, next to the chart
+ * series they were computed from, and shared by every user requesting the same
+ * combination. When the cached chart series has moved on (a point appended or
+ * replaced by {@link ChartSeriesUpdater}), the cached indicators are caught up
+ * with it incrementally under the entry's lock instead of being recomputed.
+ * A series whose window slid or whose earlier points changed, such as one
+ * adjusted for a split, is recomputed. Recording a split or dividend on any
+ * node drops the symbol's entries right away.
+ */
+@Component
+public class ChartIndicatorCache {
+
+    private final Cache<Object, Object> cache;
+
+    public ChartIndicatorCache(CacheManager cacheManager) {
+        CaffeineCache caffeineCache = (CaffeineCache) cacheManager.getCache(
+            CacheNames.CHART_INDICATORS
+        );
+        this.cache = caffeineCache.getNativeCache();
+    }
+
+    /**
+     * Indicators of a chart series, computed or caught up as needed
+     */
+    public IndicatorSeries get(
+        String symbol,
+        String period,
+        IndicatorSpec spec,
+        PriceSeries series
+    ) {
+        if (spec.isEmpty()) {
+            return IndicatorSeries.plain(series);
+        }
+
+        String key =
+            StockService.chartCacheKey(symbol, period) + "|" + spec.key();
+        if (
+            cache.getIfPresent(key) instanceof IndicatorSeries cached &&
+            cached.series() == series
+        ) {
+            return cached;
+        }
+        return (IndicatorSeries) cache
+            .asMap()
+            .compute(key, (k, cached) ->
+                cached instanceof IndicatorSeries indicators
+                    ? indicators.catchUp(series)
+                    : IndicatorSeries.compute(series, spec)
+            );
+    }
+
+    /**
+     * Drop the indicators of a symbol whose adjusted prices changed
+     */
+    @EventListener
+    public void onAdjustmentFactorsChanged(
+        AdjustmentFactorsChangedEvent event
+    ) {
+        if (event.symbol() == null) {
+            cache.invalidateAll();
+            return;
+        }
+        String prefix = StockService.chartCacheKey(event.symbol(), "");
+        cache
+            .asMap()
+            .keySet()
+            .removeIf(key -> key.toString().startsWith(prefix));
+    }
+}
@@ -0,0 +1,259 @@
+package com.stocknotebook.cache;
+
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.event.StockDataWrittenEvent;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.service.StockService;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Extends cached chart series with newly written stock data instead of
+ * reloading them.
+ *
+ * For every cached period of the symbol, a row dated on the last point's day
+ * (or, for weekly and monthly series, in its week or month) replaces that
+ * point, and a later row is appended; the window start then slides forward.
+ * Each cached key costs O(1) on heap and one decode and encode off heap.
+ * Intraday periods are left to their TTL. Updated series are written back to
+ * the {@link SharedCacheStore} in one batch, so other nodes do not load the
+ * older series from it on a miss.
+ */
+@Component
+public class ChartSeriesUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        ChartSeriesUpdater.class
+    );
+
+    private static final List<String> DAILY_PERIODS = List.of(
+        "1M",
+        "3M",
+        "6M",
+        "1Y"
+    );
+    private static final List<String> WEEKLY_PERIODS = List.of("2Y", "5Y");
+    private static final List<String> MONTHLY_PERIODS = List.of("10Y", "MAX");
+
+    private final CacheManager cacheManager;
+    private final SharedCacheStore sharedCacheStore;
+    private final Duration chartCacheTtl;
+
+    public ChartSeriesUpdater(
+        CacheManager cacheManager,
+        SharedCacheStore sharedCacheStore,
+        @Value("${app.cache.chart-cache-ttl:1800}") long chartCacheTtl
+    ) {
+        this.cacheManager = cacheManager;
+        this.sharedCacheStore = sharedCacheStore;
+        this.chartCacheTtl = Duration.ofSeconds(chartCacheTtl);
+    }
+
+    @EventListener
+    public void onStockDataWritten(StockDataWrittenEvent event) {
+        if (
+            !(cacheManager.getCache(CacheNames.STOCK_CHARTS) instanceof
+                CaffeineCache cache)
+        ) {
+            return;
+        }
+
+        ConcurrentMap<Object, Object> charts = cache.getNativeCache().asMap();
+        if (charts.isEmpty()) {
+            return;
+        }
+
+        long generation = sharedCacheStore.generation(CacheNames.STOCK_CHARTS);
+        Map<String, PriceSeries> updated = new HashMap<>();
+        for (StockData row : event.stockData()) {
+            try {
+                update(charts, row, updated);
+            } catch (RuntimeException e) {
+                log.warn(
+                    "Failed to update cached charts of {}: {}",
+                    row.getSymbol(),
+                    e.getMessage()
+                );
+            }
+        }
+        sharedCacheStore.putAll(
+            CacheNames.STOCK_CHARTS,
+            updated,
+            chartCacheTtl,
+            generation
+        );
+    }
+
+    private void update(
+        ConcurrentMap<Object, Object> charts,
+        StockData row,
+        Map<String, PriceSeries> updated
+    ) {
+        if (row.getPrice() == null || row.getDataDate() == null) {
+            return;
+        }
+
+        Point point = new Point(
+            row.getDataDate(),
+            PriceSeries.scale(row.getPrice()),
+            row.getVolume() != null ? row.getVolume() : PriceSeries.NO_VOLUME
+        );
+        for (String period : DAILY_PERIODS) {
+            update(charts, row.getSymbol(), period, point, Bucket.DAY, updated);
+        }
+        for (String period : WEEKLY_PERIODS) {
+            update(
+                charts,
+                row.getSymbol(),
+                period,
+                point,
+                Bucket.WEEK,
+                updated
+            );
+        }
+        for (String period : MONTHLY_PERIODS) {
+            update(
+                charts,
+                row.getSymbol(),
+                period,
+                point,
+                Bucket.MONTH,
+                updated
+            );
+        }
+    }
+
+    /**
+     * Update the cached series of one period, adding it to {@code updated}
+     * when it changed
+     */
+    private void update(
+        ConcurrentMap<Object, Object> charts,
+        String symbol,
+        String period,
+        Point point,
+        Bucket bucket,
+        Map<String, PriceSeries> updated
+    ) {
+        charts.computeIfPresent(
+            StockService.chartCacheKey(symbol, period),
+            (key, value) -> {
+                if (value instanceof PriceSeries series) {
+                    PriceSeries applied = apply(series, period, point, bucket);
+                    if (applied != series) {
+                        updated.put(key.toString(), applied);
+                    }
+                    return applied;
+                }
+                if (value instanceof OffHeapSeries series) {
+                    PriceSeries decoded = series.decode();
+                    PriceSeries applied = apply(decoded, period, point, bucket);
+                    if (applied == decoded) {
+                        return value;
+                    }
+                    updated.put(key.toString(), applied);
+                    return OffHeapSeries.encode(applied);
+                }
+                return value;
+            }
+        );
+    }
+
+    private PriceSeries apply(
+        PriceSeries series,
+        String period,
+        Point point,
+        Bucket bucket
+    ) {
+        if (series.isEmpty()) {
+            return series;
+        }
+
+        int last = series.size() - 1;
+        LocalDate lastDate = series.dateAt(last);
+        if (point.date().isBefore(lastDate)) {
+            return series; // a backfilled row, already covered by a reload
+        }
+
+        PriceSeries updated;
+        if (point.date().equals(lastDate)) {
+            updated = series.replaceLast(
+                point.epochDay(),
+                point.scaledPrice(),
+                point.volume()
+            );
+        } else if (isBucketed(series) && bucket.same(lastDate, point.date())) {
+            // The last candle is still open: move its close, keep its date and
+            // the volume aggregated over the whole week or month
+            updated = series.replaceLast(
+                series.epochDayAt(last),
+                point.scaledPrice(),
+                series.rawVolumeAt(last)
+            );
+        } else {
+            updated = series.append(
+                point.epochDay(),
+                point.scaledPrice(),
+                point.volume()
+            );
+        }
+
+        // Yahoo's "max" range has no fixed start, so only bounded windows slide
+        return "MAX".equals(period)
+            ? updated
+            : updated.from(
+                StockService.calculateStartDate(period, point.date())
+            );
+    }
+
+    /**
+     * Whether the series holds weekly or monthly candles rather than the daily
+     * rows a weekly or monthly period is served from when the database has them
+     */
+    private static boolean isBucketed(PriceSeries series) {
+        int size = series.size();
+        return (
+            size >= 2 &&
+            series.epochDayAt(size - 1) - series.epochDayAt(size - 2) >= 7
+        );
+    }
+
+    private enum Bucket {
+        DAY,
+        WEEK,
+        MONTH;
+
+        boolean same(LocalDate first, LocalDate second) {
+            return switch (this) {
+                case DAY -> first.equals(second);
+                case WEEK -> startOfWeek(first).equals(startOfWeek(second));
+                case MONTH -> first.withDayOfMonth(1).equals(
+                    second.withDayOfMonth(1)
+                );
+            };
+        }
+
+        private static LocalDate startOfWeek(LocalDate date) {
+            return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+    }
+
+    private record Point(LocalDate date, long scaledPrice, long volume) {
+        int epochDay() {
+            return (int) date.toEpochDay();
+        }
+    }
+}
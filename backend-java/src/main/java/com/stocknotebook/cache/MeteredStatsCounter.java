@@ -0,0 +1,74 @@
+package com.stocknotebook.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caffeine stats counter that also records every load in a Micrometer timer
+ * with percentiles ({@code cache.load.latency}).
+ *
+ * Hit, miss and eviction counts are bound to Micrometer by Spring Boot's cache
+ * metrics from {@link #snapshot()}; they only report the mean load time.
+ */
+public class MeteredStatsCounter implements StatsCounter {
+
+    private final StatsCounter delegate = new ConcurrentStatsCounter();
+    private final Timer loadSuccess;
+    private final Timer loadFailure;
+
+    public MeteredStatsCounter(MeterRegistry meterRegistry, String cacheName) {
+        this.loadSuccess = loadTimer(meterRegistry, cacheName, "success");
+        this.loadFailure = loadTimer(meterRegistry, cacheName, "failure");
+    }
+
+    private static Timer loadTimer(
+        MeterRegistry meterRegistry,
+        String cacheName,
+        String result
+    ) {
+        return Timer.builder("cache.load.latency")
+            .description("Time spent loading cache entries")
+            .tag("cache", cacheName)
+            .tag("result", result)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void recordHits(int count) {
+        delegate.recordHits(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        delegate.recordMisses(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        delegate.recordLoadSuccess(loadTime);
+        loadSuccess.record(loadTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        delegate.recordLoadFailure(loadTime);
+        loadFailure.record(loadTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        delegate.recordEviction(weight, cause);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return delegate.snapshot();
+    }
+}
@@ -0,0 +1,67 @@
+package com.stocknotebook.cache;
+
+import com.stocknotebook.model.PriceSeries;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link PriceSeries} encoded into a direct buffer outside the Java heap.
+ *
+ * The layout is columnar: all epoch days, then all scaled prices, then all
+ * volumes. Decoding is three bulk copies into primitive arrays, so no object
+ * is created per point. The direct memory is released when this handle is
+ * garbage collected after eviction.
+ */
+public final class OffHeapSeries {
+
+    private static final int BYTES_PER_POINT =
+        Integer.BYTES + Long.BYTES + Long.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private OffHeapSeries(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    public static OffHeapSeries encode(PriceSeries series) {
+        int size = series.size();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size * BYTES_PER_POINT);
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(series.epochDayAt(i));
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(series.scaledPriceAt(i));
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(series.rawVolumeAt(i));
+        }
+        return new OffHeapSeries(buffer.asReadOnlyBuffer(), size);
+    }
+
+    public PriceSeries decode() {
+        int[] epochDays = new int[size];
+        long[] prices = new long[size];
+        long[] volumes = new long[size];
+
+        ByteBuffer view = buffer.duplicate();
+        view.asIntBuffer().get(epochDays);
+        view.position(size * Integer.BYTES);
+        view.asLongBuffer().get(prices);
+        view.position(size * (Integer.BYTES + Long.BYTES));
+        view.asLongBuffer().get(volumes);
+
+        return PriceSeries.wrap(epochDays, prices, volumes);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Direct memory held by this series
+     */
+    public int sizeInBytes() {
+        return buffer.capacity();
+    }
+}
@@ -0,0 +1,83 @@
+package com.stocknotebook.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.stocknotebook.model.PriceSeries;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * Chart cache whose values live off heap.
+ *
+ * Caffeine still holds the small on-heap index (key to {@link OffHeapSeries})
+ * and applies expiry, refresh and eviction, weighted by the bytes each series
+ * occupies. Series are encoded on the way in and decoded on the way out, so
+ * callers keep working with {@link PriceSeries}.
+ */
+public class OffHeapSeriesCache extends CaffeineCache {
+
+    public OffHeapSeriesCache(
+        String name,
+        Cache<Object, Object> cache,
+        boolean allowNullValues
+    ) {
+        super(name, cache, allowNullValues);
+    }
+
+    /**
+     * Wrap a loader of {@link PriceSeries} values so it stores encoded series
+     */
+    public static CacheLoader<Object, Object> encoding(
+        CacheLoader<Object, Object> loader
+    ) {
+        return new CacheLoader<>() {
+            @Override
+            public Object load(Object key) throws Exception {
+                return encode(loader.load(key));
+            }
+
+            @Override
+            public Map<Object, Object> loadAll(Set<?> keys) throws Exception {
+                Map<Object, Object> encoded = new HashMap<>();
+                loader
+                    .loadAll(keys)
+                    .forEach((key, value) -> encoded.put(key, encode(value)));
+                return encoded;
+            }
+
+            @Override
+            public Object reload(Object key, Object oldValue) throws Exception {
+                return encode(loader.reload(key, oldValue));
+            }
+        };
+    }
+
+    /**
+     * Weight of a stored value in bytes of direct memory
+     */
+    public static int weigh(Object key, Object value) {
+        return value instanceof OffHeapSeries series ? series.sizeInBytes() : 0;
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        return encode(super.toStoreValue(userValue));
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        return super.fromStoreValue(
+            storeValue instanceof OffHeapSeries series
+                ? series.decode()
+                : storeValue
+        );
+    }
+
+    private static Object encode(Object value) {
+        return value instanceof PriceSeries series
+            ? OffHeapSeries.encode(series)
+            : value;
+    }
+}
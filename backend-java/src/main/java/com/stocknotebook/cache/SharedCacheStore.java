@@ -0,0 +1,345 @@
+package com.stocknotebook.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared second-level cache kept in the {@code cache_entries} table.
+ *
+ * Every node reads it on a local cache miss before going to Yahoo Finance, so
+ * a freshly started node is filled from its peers instead of the upstream API.
+ * Values are stored as JSON. The store is best effort: database errors are
+ * logged and treated as misses.
+ *
+ * Reads skip entries written longer ago than the caller accepts and remember
+ * how old each served entry was, so a local cache filled from here reports
+ * the age of the value rather than of its local copy. Each cache has an
+ * invalidation generation; a write of a value loaded under an older
+ * generation is dropped, since the value may predate the invalidation.
+ *
+ * Keys longer than the {@code cache_key} column, such as long search queries,
+ * are stored as a prefix and a SHA-256 hash of the whole key.
+ */
+@Component
+public class SharedCacheStore {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        SharedCacheStore.class
+    );
+
+    private static final String SELECT_SQL = """
+        SELECT
+            cache_key,
+            payload,
+            (EXTRACT(EPOCH FROM CURRENT_TIMESTAMP - created_at) * 1000)::BIGINT
+                AS age_millis
+        FROM cache_entries
+        WHERE cache_name = :cacheName AND cache_key IN (:keys)
+        AND expires_at > CURRENT_TIMESTAMP
+        AND created_at > CURRENT_TIMESTAMP - make_interval(secs => :maxAge)
+        """;
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO cache_entries (cache_name, cache_key, payload, expires_at)
+        VALUES (:cacheName, :key, :payload, :expiresAt)
+        ON CONFLICT (cache_name, cache_key) DO UPDATE SET
+            payload = EXCLUDED.payload,
+            expires_at = EXCLUDED.expires_at,
+            created_at = CURRENT_TIMESTAMP
+        """;
+
+    private static final String DELETE_SQL =
+        "DELETE FROM cache_entries WHERE cache_name = :cacheName AND cache_key = :key";
+
+    private static final String CLEAR_SQL =
+        "DELETE FROM cache_entries WHERE cache_name = :cacheName";
+
+    private static final String PURGE_SQL =
+        "DELETE FROM cache_entries WHERE expires_at <= CURRENT_TIMESTAMP";
+
+    // Length of cache_entries.cache_key
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int HASH_LENGTH = 64;
+
+    // Longer than any local cache keeps an entry
+    private static final Duration SERVED_AGE_RETENTION = Duration.ofDays(1);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<EntryKey, Duration> servedAges = Caffeine.newBuilder()
+        .expireAfterWrite(SERVED_AGE_RETENTION)
+        .build();
+    private final Map<String, AtomicLong> generations =
+        new ConcurrentHashMap<>();
+
+    @Value("${app.cache.l2.enabled:true}")
+    private boolean enabled;
+
+    public SharedCacheStore(
+        NamedParameterJdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get a live entry written within {@code maxAge}, or null if it is
+     * missing, older, expired or unreadable
+     */
+    public <V> V get(
+        String cacheName,
+        String key,
+        JavaType valueType,
+        Duration maxAge
+    ) {
+        return this.<V>getAll(cacheName, List.of(key), valueType, maxAge).get(
+            key
+        );
+    }
+
+    /**
+     * Get all live entries for the given keys written within {@code maxAge}
+     * in one query
+     */
+    public <V> Map<String, V> getAll(
+        String cacheName,
+        Collection<String> keys,
+        JavaType valueType,
+        Duration maxAge
+    ) {
+        Map<String, V> values = new HashMap<>();
+        if (!enabled || keys.isEmpty()) {
+            return values;
+        }
+
+        Map<String, String> byStoredKey = new HashMap<>();
+        for (String key : keys) {
+            byStoredKey.put(storedKey(key), key);
+        }
+
+        try {
+            jdbcTemplate.query(
+                SELECT_SQL,
+                new MapSqlParameterSource()
+                    .addValue("cacheName", cacheName)
+                    .addValue("keys", byStoredKey.keySet())
+                    .addValue("maxAge", maxAge.toMillis() / 1000.0),
+                rs -> {
+                    String key = byStoredKey.get(rs.getString("cache_key"));
+                    try {
+                        values.put(
+                            key,
+                            objectMapper.readValue(
+                                rs.getString("payload"),
+                                valueType
+                            )
+                        );
+                        servedAges.put(
+                            new EntryKey(cacheName, key),
+                            Duration.ofMillis(rs.getLong("age_millis"))
+                        );
+                    } catch (JsonProcessingException e) {
+                        log.warn(
+                            "Ignoring unreadable shared cache entry {}:{}",
+                            cacheName,
+                            key,
+                            e
+                        );
+                    }
+                }
+            );
+        } catch (DataAccessException e) {
+            log.warn("Shared cache read failed for {}", cacheName, e);
+        }
+        return values;
+    }
+
+    /**
+     * Age a shared entry had when it was last served to this node, empty once
+     * this node wrote or invalidated the key since
+     */
+    public Optional<Duration> servedAge(String cacheName, String key) {
+        return Optional.ofNullable(
+            servedAges.getIfPresent(new EntryKey(cacheName, key))
+        );
+    }
+
+    /**
+     * Current invalidation generation of a cache, to be passed to
+     * {@link #putAll} with values loaded after reading it
+     */
+    public long generation(String cacheName) {
+        return generations
+            .computeIfAbsent(cacheName, name -> new AtomicLong())
+            .get();
+    }
+
+    /**
+     * Note that a key, or with a null key the whole cache, was invalidated on
+     * any node, so values loaded before are not written back
+     */
+    public void invalidated(String cacheName, String key) {
+        generations
+            .computeIfAbsent(cacheName, name -> new AtomicLong())
+            .incrementAndGet();
+        if (key != null) {
+            servedAges.invalidate(new EntryKey(cacheName, key));
+        } else {
+            servedAges
+                .asMap()
+                .keySet()
+                .removeIf(entry -> entry.cacheName().equals(cacheName));
+        }
+    }
+
+    public void put(
+        String cacheName,
+        String key,
+        Object value,
+        Duration ttl,
+        long generation
+    ) {
+        putAll(cacheName, Map.of(key, value), ttl, generation);
+    }
+
+    /**
+     * Store entries with the given time to live in one batch, unless the
+     * cache was invalidated since the given generation
+     */
+    public void putAll(
+        String cacheName,
+        Map<String, ?> values,
+        Duration ttl,
+        long generation
+    ) {
+        for (String key : values.keySet()) {
+            servedAges.invalidate(new EntryKey(cacheName, key));
+        }
+        if (!enabled || values.isEmpty()) {
+            return;
+        }
+        if (generation(cacheName) != generation) {
+            log.debug(
+                "Not sharing {} entries of {} loaded before an invalidation",
+                values.size(),
+                cacheName
+            );
+            return;
+        }
+
+        Timestamp expiresAt = Timestamp.from(Instant.now().plus(ttl));
+        List<SqlParameterSource> batch = new ArrayList<>(values.size());
+        try {
+            for (Map.Entry<String, ?> entry : values.entrySet()) {
+                batch.add(
+                    new MapSqlParameterSource()
+                        .addValue("cacheName", cacheName)
+                        .addValue("key", storedKey(entry.getKey()))
+                        .addValue(
+                            "payload",
+                            objectMapper.writeValueAsString(entry.getValue())
+                        )
+                        .addValue("expiresAt", expiresAt)
+                );
+            }
+            jdbcTemplate.batchUpdate(
+                UPSERT_SQL,
+                batch.toArray(new SqlParameterSource[0])
+            );
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("Shared cache write failed for {}", cacheName, e);
+        }
+    }
+
+    public void evict(String cacheName, String key) {
+        update(
+            DELETE_SQL,
+            new MapSqlParameterSource()
+                .addValue("cacheName", cacheName)
+                .addValue("key", storedKey(key))
+        );
+    }
+
+    public void clear(String cacheName) {
+        update(
+            CLEAR_SQL,
+            new MapSqlParameterSource().addValue("cacheName", cacheName)
+        );
+    }
+
+    /**
+     * Delete expired entries
+     *
+     * @return number of deleted entries
+     */
+    public int purgeExpired() {
+        return update(PURGE_SQL, new MapSqlParameterSource());
+    }
+
+    /**
+     * Key as stored, hashed when longer than the column allows
+     */
+    static String storedKey(String key) {
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(
+                key.getBytes(StandardCharsets.UTF_8)
+            );
+            return (
+                key.substring(0, MAX_KEY_LENGTH - HASH_LENGTH - 1) +
+                "#" +
+                HexFormat.of().formatHex(hash)
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record EntryKey(String cacheName, String key) {}
+
+    private int update(String sql, SqlParameterSource parameters) {
+        if (!enabled) {
+            return 0;
+        }
+
+        try {
+            return jdbcTemplate.update(sql, parameters);
+        } catch (DataAccessException e) {
+            log.warn("Shared cache update failed", e);
+            return 0;
+        }
+    }
+}
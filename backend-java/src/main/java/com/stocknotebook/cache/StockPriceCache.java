@@ -0,0 +1,145 @@
+package com.stocknotebook.cache;
+
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.stocknotebook.dto.response.StockPriceDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Programmatic access to the {@link CacheNames#STOCK_PRICES} cache.
+ *
+ * Unlike {@code @Cacheable}, this works for calls made from inside the owning
+ * service and supports bulk lookups: hits are returned straight from the cache
+ * and all misses are handed to the cache loader in a single {@code loadAll} call.
+ * Keys are upper-case symbols.
+ */
+@Component
+public class StockPriceCache {
+
+    private final LoadingCache<Object, Object> cache;
+    private final Counter bulkHits;
+    private final Counter bulkMisses;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    @SuppressWarnings("unchecked")
+    public StockPriceCache(
+        CacheManager cacheManager,
+        MeterRegistry meterRegistry,
+        CacheInvalidationBus cacheInvalidationBus
+    ) {
+        CaffeineCache caffeineCache = (CaffeineCache) cacheManager.getCache(
+            CacheNames.STOCK_PRICES
+        );
+        this.cache = (LoadingCache<Object, Object>) caffeineCache.getNativeCache();
+        this.bulkHits = Counter.builder("stock.prices.bulk.lookups")
+            .description("Symbols requested through bulk price lookups")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.bulkMisses = Counter.builder("stock.prices.bulk.lookups")
+            .description("Symbols requested through bulk price lookups")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    /**
+     * Get the price for a symbol, loading it on a miss
+     */
+    public StockPriceDTO get(String symbol) {
+        return (StockPriceDTO) cache.get(normalize(symbol));
+    }
+
+    /**
+     * Get prices for several symbols. Cached prices are returned immediately;
+     * the remaining symbols are loaded together. Symbols that cannot be priced
+     * are absent from the result.
+     *
+     * @return prices keyed by upper-case symbol, in request order
+     */
+    public Map<String, StockPriceDTO> getAll(Collection<String> symbols) {
+        return lookup(symbols).prices();
+    }
+
+    /**
+     * Get the cached prices among several symbols without loading the rest
+     *
+     * @return prices keyed by upper-case symbol
+     */
+    public Map<String, StockPriceDTO> getAllPresent(Collection<String> symbols) {
+        Map<String, StockPriceDTO> prices = new LinkedHashMap<>();
+        cache
+            .getAllPresent(
+                symbols.stream().map(StockPriceCache::normalize).toList()
+            )
+            .forEach((key, price) ->
+                prices.put((String) key, (StockPriceDTO) price)
+            );
+        return prices;
+    }
+
+    /**
+     * Like {@link #getAll}, also telling which prices were already cached
+     */
+    public Lookup lookup(Collection<String> symbols) {
+        Set<String> keys = symbols
+            .stream()
+            .map(StockPriceCache::normalize)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<Object, Object> present = cache.getAllPresent(keys);
+        bulkHits.increment(present.size());
+        bulkMisses.increment(keys.size() - present.size());
+
+        Map<Object, Object> loaded = present.size() < keys.size()
+            ? cache.getAll(
+                keys
+                    .stream()
+                    .filter(key -> !present.containsKey(key))
+                    .collect(Collectors.toList())
+            )
+            : Map.of();
+
+        Map<String, StockPriceDTO> prices = new LinkedHashMap<>();
+        for (String key : keys) {
+            Object price = present.containsKey(key)
+                ? present.get(key)
+                : loaded.get(key);
+            if (price != null) {
+                prices.put(key, (StockPriceDTO) price);
+            }
+        }
+        return new Lookup(prices, Set.copyOf(present.keySet()));
+    }
+
+    /**
+     * Drop the cached price for a symbol on all nodes
+     */
+    public void evict(String symbol) {
+        cacheInvalidationBus.evict(CacheNames.STOCK_PRICES, normalize(symbol));
+    }
+
+    private static String normalize(String symbol) {
+        return symbol.trim().toUpperCase();
+    }
+
+    /**
+     * Result of a bulk lookup
+     *
+     * @param prices prices keyed by upper-case symbol, in request order
+     * @param cached keys of the prices served from the cache without loading
+     */
+    public record Lookup(Map<String, StockPriceDTO> prices, Set<Object> cached) {
+        public boolean isCached(String symbol) {
+            return cached.contains(symbol);
+        }
+    }
+}
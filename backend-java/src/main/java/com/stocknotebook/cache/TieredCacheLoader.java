@@ -0,0 +1,145 @@
+package com.stocknotebook.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cache loader that puts the {@link SharedCacheStore} between a local Caffeine
+ * cache and its source loader.
+ *
+ * Local misses are answered from the shared store when another node already
+ * loaded the key; otherwise the source is called and the result is shared.
+ * Refreshes always go to the source, since they exist to replace old values.
+ * Shared entries older than {@code maxSharedAge}, the point at which the
+ * local cache would refresh them, are skipped too. A value whose cache was
+ * invalidated while it loaded is not shared. Keys are stored by their string
+ * form.
+ */
+public class TieredCacheLoader implements CacheLoader<Object, Object> {
+
+    private final String cacheName;
+    private final JavaType valueType;
+    private final Duration ttl;
+    private final Duration maxSharedAge;
+    private final SharedCacheStore sharedCacheStore;
+    private final CacheLoader<Object, Object> source;
+
+    public TieredCacheLoader(
+        String cacheName,
+        JavaType valueType,
+        Duration ttl,
+        Duration maxSharedAge,
+        SharedCacheStore sharedCacheStore,
+        CacheLoader<Object, Object> source
+    ) {
+        this.cacheName = cacheName;
+        this.valueType = valueType;
+        this.ttl = ttl;
+        this.maxSharedAge = maxSharedAge;
+        this.sharedCacheStore = sharedCacheStore;
+        this.source = source;
+    }
+
+    @Override
+    public Object load(Object key) throws Exception {
+        Object shared = sharedCacheStore.get(
+            cacheName,
+            key.toString(),
+            valueType,
+            maxSharedAge
+        );
+        if (shared != null) {
+            return shared;
+        }
+        return loadFromSource(key);
+    }
+
+    @Override
+    public Map<Object, Object> loadAll(Set<?> keys) throws Exception {
+        Map<String, Object> shared = sharedCacheStore.getAll(
+            cacheName,
+            keys.stream().map(Object::toString).collect(Collectors.toList()),
+            valueType,
+            maxSharedAge
+        );
+
+        Map<Object, Object> values = new HashMap<>();
+        Set<Object> missing = new LinkedHashSet<>();
+        for (Object key : keys) {
+            Object value = shared.get(key.toString());
+            if (value != null) {
+                values.put(key, value);
+            } else {
+                missing.add(key);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long generation = sharedCacheStore.generation(cacheName);
+            Map<Object, Object> loaded = loadAllFromSource(missing);
+            sharedCacheStore.putAll(
+                cacheName,
+                loaded
+                    .entrySet()
+                    .stream()
+                    .filter(entry -> entry.getValue() != null)
+                    .collect(
+                        Collectors.toMap(
+                            entry -> entry.getKey().toString(),
+                            Map.Entry::getValue
+                        )
+                    ),
+                ttl,
+                generation
+            );
+            values.putAll(loaded);
+        }
+        return values;
+    }
+
+    @Override
+    public Object reload(Object key, Object oldValue) throws Exception {
+        return loadFromSource(key);
+    }
+
+    private Object loadFromSource(Object key) throws Exception {
+        long generation = sharedCacheStore.generation(cacheName);
+        Object value = source.load(key);
+        if (value != null) {
+            sharedCacheStore.put(
+                cacheName,
+                key.toString(),
+                value,
+                ttl,
+                generation
+            );
+        }
+        return value;
+    }
+
+    /**
+     * Use the source's bulk load when it has one, following Caffeine's
+     * convention of signalling its absence with UnsupportedOperationException
+     */
+    private Map<Object, Object> loadAllFromSource(Set<Object> keys)
+        throws Exception {
+        try {
+            return new HashMap<>(source.loadAll(keys));
+        } catch (UnsupportedOperationException e) {
+            Map<Object, Object> loaded = new HashMap<>();
+            for (Object key : keys) {
+                Object value = source.load(key);
+                if (value != null) {
+                    loaded.put(key, value);
+                }
+            }
+            return loaded;
+        }
+    }
+}
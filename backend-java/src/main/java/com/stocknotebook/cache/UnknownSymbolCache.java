@@ -0,0 +1,33 @@
+package com.stocknotebook.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived negative cache of symbols that Yahoo Finance does not know and
+ * that are neither in the symbols catalog nor in stored stock data.
+ * Lookups for these symbols fail immediately instead of retrying upstream.
+ * Keys are upper-case symbols.
+ */
+@Component
+public class UnknownSymbolCache {
+
+    private final Cache cache;
+
+    public UnknownSymbolCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(CacheNames.UNKNOWN_SYMBOLS);
+    }
+
+    public boolean isUnknown(String symbol) {
+        return cache.get(normalize(symbol)) != null;
+    }
+
+    public void markUnknown(String symbol) {
+        cache.put(normalize(symbol), Boolean.TRUE);
+    }
+
+    private static String normalize(String symbol) {
+        return symbol.trim().toUpperCase();
+    }
+}
@@ -3,17 +3,25 @@ package com.stocknotebook.client;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stocknotebook.dto.response.SymbolSuggestionDTO;
+import com.stocknotebook.exception.custom.StockNotFoundException;
+import com.stocknotebook.model.PriceSeries;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -24,6 +32,9 @@ public class YahooFinanceClient {
         YahooFinanceClient.class
     );
 
+    // Most symbols the spark endpoint answers in one request
+    private static final int SPARK_BATCH_SIZE = 20;
+
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     private final String baseUrl;
@@ -54,6 +65,7 @@ public class YahooFinanceClient {
      *
      * @param symbol the stock symbol
      * @return the current price
+     * @throws StockNotFoundException if Yahoo Finance does not know the symbol
      * @throws RuntimeException if unable to fetch price
      */
     public BigDecimal fetchCurrentPrice(String symbol) {
@@ -102,9 +114,16 @@ public class YahooFinanceClient {
                     }
                 }
 
-                throw new RuntimeException(
+                throw new StockNotFoundException(
                     "No price data found for symbol: " + symbol
                 );
+            } catch (StockNotFoundException e) {
+                throw e;
+            } catch (HttpClientErrorException.NotFound e) {
+                throw new StockNotFoundException(
+                    "Unknown symbol: " + symbol,
+                    e
+                );
             } catch (Exception e) {
                 log.warn(
                     "Attempt {} failed to fetch price for {}: {}",
@@ -141,21 +160,257 @@ public class YahooFinanceClient {
         );
     }
 
+    /**
+     * Fetch current prices for several stock symbols, in batched spark
+     * requests on the v8 endpoints, which need no cookie or crumb
+     *
+     * @param symbols the stock symbols
+     * @return prices keyed by upper-case symbol; symbols without a quote, or
+     *     in a batch that kept failing, are absent
+     * @throws RuntimeException if every batch failed
+     */
+    public Map<String, BigDecimal> fetchCurrentPrices(Collection<String> symbols) {
+        log.info("Fetching current prices for {} symbols", symbols.size());
+
+        if (symbols.isEmpty()) {
+            return Map.of();
+        }
+
+        List<String> upperCased = symbols
+            .stream()
+            .map(String::toUpperCase)
+            .distinct()
+            .toList();
+        Map<String, BigDecimal> prices = new HashMap<>();
+        RuntimeException lastFailure = null;
+        int failedBatches = 0;
+
+        for (
+            int from = 0;
+            from < upperCased.size();
+            from += SPARK_BATCH_SIZE
+        ) {
+            List<String> batch = upperCased.subList(
+                from,
+                Math.min(from + SPARK_BATCH_SIZE, upperCased.size())
+            );
+            try {
+                prices.putAll(fetchSparkPrices(batch));
+            } catch (RuntimeException e) {
+                log.warn(
+                    "Giving up on prices for {}: {}",
+                    batch,
+                    e.getMessage()
+                );
+                lastFailure = e;
+                failedBatches++;
+            }
+        }
+
+        int batches =
+            (upperCased.size() + SPARK_BATCH_SIZE - 1) / SPARK_BATCH_SIZE;
+        if (failedBatches == batches) {
+            throw lastFailure;
+        }
+
+        log.info(
+            "Successfully fetched prices for {} of {} symbols",
+            prices.size(),
+            symbols.size()
+        );
+        return prices;
+    }
+
+    /**
+     * Fetch current prices for at most {@value #SPARK_BATCH_SIZE} upper-case
+     * symbols in one spark request
+     */
+    private Map<String, BigDecimal> fetchSparkPrices(List<String> symbols) {
+        String joinedSymbols = String.join(",", symbols);
+
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
+            .path("/v8/finance/spark")
+            .queryParam("symbols", joinedSymbols)
+            .queryParam("range", "1d")
+            .queryParam("interval", "1d")
+            .build()
+            .toUriString();
+
+        for (int attempt = 1; attempt <= retryAttempts; attempt++) {
+            try {
+                ResponseEntity<String> response = restTemplate.getForEntity(
+                    url,
+                    String.class
+                );
+
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    throw new RuntimeException(
+                        "Yahoo Finance API returned error: " +
+                        response.getStatusCode()
+                    );
+                }
+
+                JsonNode rootNode = objectMapper.readTree(response.getBody());
+                JsonNode resultNode = rootNode.path("spark").path("result");
+
+                Map<String, BigDecimal> prices = new HashMap<>();
+
+                if (resultNode.isArray()) {
+                    for (JsonNode sparkNode : resultNode) {
+                        JsonNode priceNode = sparkNode
+                            .path("response")
+                            .path(0)
+                            .path("meta")
+                            .path("regularMarketPrice");
+
+                        if (priceNode.isNumber()) {
+                            prices.put(
+                                sparkNode.path("symbol").asText().toUpperCase(),
+                                BigDecimal.valueOf(priceNode.asDouble())
+                            );
+                        }
+                    }
+                }
+
+                return prices;
+            } catch (Exception e) {
+                log.warn(
+                    "Attempt {} failed to fetch prices for {} symbols: {}",
+                    attempt,
+                    symbols.size(),
+                    e.getMessage()
+                );
+
+                if (attempt == retryAttempts) {
+                    throw new RuntimeException(
+                        "Failed to fetch current prices for " +
+                        joinedSymbols +
+                        " after " +
+                        retryAttempts +
+                        " attempts",
+                        e
+                    );
+                }
+
+                try {
+                    Thread.sleep(retryDelay * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(
+                        "Interrupted while retrying",
+                        ie
+                    );
+                }
+            }
+        }
+
+        throw new RuntimeException(
+            "Failed to fetch current prices for " + joinedSymbols
+        );
+    }
+
     /**
      * Fetch chart data for a stock symbol
      *
      * @param symbol the stock symbol
      * @param period the time period (1D, 1W, 1M, 3M, 6M, 1Y, 2Y, 5Y, 10Y, MAX)
-     * @return list of price points
+     * @return price series in date order, as traded across splits
+     * @throws StockNotFoundException if Yahoo Finance does not know the symbol
      * @throws RuntimeException if unable to fetch chart data
      */
-    public List<PricePoint> fetchChartData(String symbol, String period) {
+    public PriceSeries fetchChartData(String symbol, String period) {
         log.info(
             "Fetching chart data for symbol: {} with period: {}",
             symbol,
             period
         );
 
+        JsonNode result = fetchChartResult(symbol, period);
+        JsonNode timestampNode = result.path("timestamp");
+        JsonNode firstQuote = result.path("indicators").path("quote").path(0);
+        JsonNode closeNode = firstQuote.path("close");
+        JsonNode volumeNode = firstQuote.path("volume");
+        NavigableMap<LocalDate, Double> splits = splitRatios(
+            result.path("events").path("splits")
+        );
+
+        PriceSeries.Builder pricePoints = PriceSeries.builder(
+            timestampNode.size()
+        );
+
+        for (int i = 0; i < timestampNode.size(); i++) {
+            JsonNode closePrice = closeNode.path(i);
+            JsonNode volumeData = volumeNode.path(i);
+
+            if (closePrice.isNumber()) {
+                LocalDate date = toDate(timestampNode.get(i));
+
+                // Closes come split-adjusted; store as traded
+                double ratio = ratioAfter(splits, date);
+                BigDecimal price = BigDecimal.valueOf(
+                    closePrice.asDouble() * ratio
+                );
+                Long volume = volumeData.isNumber()
+                    ? Math.round(volumeData.asLong() / ratio)
+                    : null;
+
+                pricePoints.add(date, price, volume);
+            }
+        }
+
+        PriceSeries series = pricePoints.build();
+        log.info(
+            "Successfully fetched {} price points for {}",
+            series.size(),
+            symbol
+        );
+        return series;
+    }
+
+    /**
+     * Fetch the closes of a symbol at full precision, for quotes such as FX
+     * rates that need more decimal places than a {@link PriceSeries} keeps
+     *
+     * @param symbol the symbol, e.g. an FX pair such as USDEUR=X
+     * @param period the time period, as for {@link #fetchChartData}
+     * @return closes by date, in date order
+     * @throws StockNotFoundException if Yahoo Finance does not know the symbol
+     * @throws RuntimeException if unable to fetch chart data
+     */
+    public NavigableMap<LocalDate, Double> fetchCloses(
+        String symbol,
+        String period
+    ) {
+        log.info(
+            "Fetching closes for symbol: {} with period: {}",
+            symbol,
+            period
+        );
+
+        JsonNode result = fetchChartResult(symbol, period);
+        JsonNode timestampNode = result.path("timestamp");
+        JsonNode closeNode = result
+            .path("indicators")
+            .path("quote")
+            .path(0)
+            .path("close");
+
+        NavigableMap<LocalDate, Double> closes = new TreeMap<>();
+        for (int i = 0; i < timestampNode.size(); i++) {
+            JsonNode close = closeNode.path(i);
+            if (close.isNumber()) {
+                closes.put(toDate(timestampNode.get(i)), close.asDouble());
+            }
+        }
+        return closes;
+    }
+
+    /**
+     * First result of a chart request, with its split events
+     *
+     * @throws StockNotFoundException if Yahoo Finance has no quotes for it
+     */
+    private JsonNode fetchChartResult(String symbol, String period) {
         String[] rangeAndInterval = mapPeriodToRangeAndInterval(period);
         String range = rangeAndInterval[0];
         String interval = rangeAndInterval[1];
@@ -164,6 +419,7 @@ public class YahooFinanceClient {
             .path("/v8/finance/chart/{symbol}")
             .queryParam("interval", interval)
             .queryParam("range", range)
+            .queryParam("events", "split")
             .buildAndExpand(symbol.toUpperCase())
             .toUriString();
 
@@ -182,59 +438,26 @@ public class YahooFinanceClient {
                 }
 
                 JsonNode rootNode = objectMapper.readTree(response.getBody());
-                JsonNode chartNode = rootNode.path("chart");
-                JsonNode resultNode = chartNode.path("result");
-
-                if (resultNode.isArray() && resultNode.size() > 0) {
-                    JsonNode firstResult = resultNode.get(0);
-                    JsonNode timestampNode = firstResult.path("timestamp");
-                    JsonNode indicatorsNode = firstResult.path("indicators");
-                    JsonNode quoteNode = indicatorsNode.path("quote");
-
-                    if (quoteNode.isArray() && quoteNode.size() > 0) {
-                        JsonNode firstQuote = quoteNode.get(0);
-                        JsonNode closeNode = firstQuote.path("close");
-                        JsonNode volumeNode = firstQuote.path("volume");
-
-                        List<PricePoint> pricePoints = new ArrayList<>();
-
-                        for (int i = 0; i < timestampNode.size(); i++) {
-                            long timestamp = timestampNode.get(i).asLong();
-                            JsonNode closePrice = closeNode.get(i);
-                            JsonNode volumeData = volumeNode.get(i);
-
-                            if (!closePrice.isNull()) {
-                                LocalDate date = Instant.ofEpochSecond(
-                                    timestamp
-                                )
-                                    .atZone(ZoneId.systemDefault())
-                                    .toLocalDate();
-
-                                BigDecimal price = BigDecimal.valueOf(
-                                    closePrice.asDouble()
-                                );
-                                Long volume = volumeData.isNull()
-                                    ? null
-                                    : volumeData.asLong();
-
-                                pricePoints.add(
-                                    new PricePoint(date, price, volume)
-                                );
-                            }
-                        }
-
-                        log.info(
-                            "Successfully fetched {} price points for {}",
-                            pricePoints.size(),
-                            symbol
-                        );
-                        return pricePoints;
-                    }
+                JsonNode resultNode = rootNode.path("chart").path("result");
+
+                if (
+                    resultNode.isArray() &&
+                    resultNode.size() > 0 &&
+                    resultNode.get(0).path("indicators").path("quote").size() > 0
+                ) {
+                    return resultNode.get(0);
                 }
 
-                throw new RuntimeException(
+                throw new StockNotFoundException(
                     "No chart data found for symbol: " + symbol
                 );
+            } catch (StockNotFoundException e) {
+                throw e;
+            } catch (HttpClientErrorException.NotFound e) {
+                throw new StockNotFoundException(
+                    "Unknown symbol: " + symbol,
+                    e
+                );
             } catch (Exception e) {
                 log.warn(
                     "Attempt {} failed to fetch chart data for {}: {}",
@@ -415,44 +638,47 @@ public class YahooFinanceClient {
     }
 
     /**
-     * Data class for price points
+     * Ratios of the splits in a chart response by ex-date, shares after per
+     * share before
      */
-    public static class PricePoint {
-
-        private final LocalDate date;
-        private final BigDecimal price;
-        private final Long volume;
-
-        public PricePoint(LocalDate date, BigDecimal price, Long volume) {
-            this.date = date;
-            this.price = price;
-            this.volume = volume;
-        }
-
-        public LocalDate getDate() {
-            return date;
-        }
-
-        public BigDecimal getPrice() {
-            return price;
+    private static NavigableMap<LocalDate, Double> splitRatios(
+        JsonNode splitsNode
+    ) {
+        NavigableMap<LocalDate, Double> splits = new TreeMap<>();
+        for (JsonNode split : splitsNode) {
+            double numerator = split.path("numerator").asDouble();
+            double denominator = split.path("denominator").asDouble();
+            if (numerator > 0 && denominator > 0) {
+                splits.merge(
+                    Instant.ofEpochSecond(split.path("date").asLong())
+                        .atZone(ZoneId.systemDefault())
+                        .toLocalDate(),
+                    numerator / denominator,
+                    (a, b) -> a * b
+                );
+            }
         }
+        return splits;
+    }
 
-        public Long getVolume() {
-            return volume;
+    /**
+     * Combined ratio of the splits after a day, which Yahoo Finance has
+     * divided its close by
+     */
+    private static double ratioAfter(
+        NavigableMap<LocalDate, Double> splits,
+        LocalDate date
+    ) {
+        double ratio = 1;
+        for (double split : splits.tailMap(date, false).values()) {
+            ratio *= split;
         }
+        return ratio;
+    }
 
-        @Override
-        public String toString() {
-            return (
-                "PricePoint{" +
-                "date=" +
-                date +
-                ", price=" +
-                price +
-                ", volume=" +
-                volume +
-                '}'
-            );
-        }
+    private static LocalDate toDate(JsonNode timestamp) {
+        return Instant.ofEpochSecond(timestamp.asLong())
+            .atZone(ZoneId.systemDefault())
+            .toLocalDate();
     }
 }
@@ -0,0 +1,353 @@
+package com.stocknotebook.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stocknotebook.cache.CacheNames;
+import com.stocknotebook.cache.MeteredStatsCounter;
+import com.stocknotebook.cache.OffHeapSeriesCache;
+import com.stocknotebook.cache.SharedCacheStore;
+import com.stocknotebook.cache.TieredCacheLoader;
+import com.stocknotebook.dto.response.StockPriceDTO;
+import com.stocknotebook.dto.response.SymbolSuggestionDTO;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.service.StockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Builds one Caffeine cache per cache name with its own TTL and size bound.
+ *
+ * Price and chart caches are refresh-ahead: once an entry is older than
+ * {@code refresh-ahead} of its TTL, the next read returns the cached value and
+ * triggers an asynchronous reload, so hot keys are renewed before they expire.
+ * They also serve stale values: an entry past its TTL is still returned
+ * immediately while a single background reload per key replaces it. Only
+ * entries older than the {@code max-stale} limit are dropped, so callers wait
+ * on Yahoo Finance only for keys that have not been read for that long.
+ *
+ * With {@code app.cache.off-heap.enabled} chart series are kept in direct
+ * memory ({@link OffHeapSeriesCache}) and the chart cache is bounded by
+ * {@code off-heap.max-bytes} instead of an entry count.
+ *
+ * Every cache is a local (L1) cache in front of the {@link SharedCacheStore}
+ * (L2), so a miss on one node is served from what other nodes already loaded.
+ *
+ * All caches record statistics; Spring Boot binds them to Micrometer as
+ * {@code cache.*} meters and {@link MeteredStatsCounter} adds load latency
+ * percentiles.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${app.cache.default-ttl:3600}")
+    private long defaultTtl;
+
+    @Value("${app.cache.default-max-size:10000}")
+    private long defaultMaxSize;
+
+    @Value("${app.cache.price-cache-ttl:300}")
+    private long priceCacheTtl;
+
+    @Value("${app.cache.price-cache-max-stale:1800}")
+    private long priceCacheMaxStale;
+
+    @Value("${app.cache.price-cache-max-size:5000}")
+    private long priceCacheMaxSize;
+
+    @Value("${app.cache.chart-cache-ttl:1800}")
+    private long chartCacheTtl;
+
+    @Value("${app.cache.chart-cache-max-stale:14400}")
+    private long chartCacheMaxStale;
+
+    @Value("${app.cache.chart-cache-max-size:2000}")
+    private long chartCacheMaxSize;
+
+    @Value("${app.cache.symbol-cache-ttl:86400}")
+    private long symbolCacheTtl;
+
+    @Value("${app.cache.symbol-cache-max-size:1000}")
+    private long symbolCacheMaxSize;
+
+    @Value("${app.cache.unknown-symbol-ttl:600}")
+    private long unknownSymbolTtl;
+
+    @Value("${app.cache.unknown-symbol-max-size:10000}")
+    private long unknownSymbolMaxSize;
+
+    @Value("${app.corporate-actions.refresh-interval:3600}")
+    private long adjustmentFactorsTtl;
+
+    @Value("${app.corporate-actions.max-symbols:10000}")
+    private long adjustmentFactorsMaxSize;
+
+    @Value("${app.cache.off-heap.enabled:false}")
+    private boolean offHeapEnabled;
+
+    @Value("${app.cache.off-heap.max-bytes:268435456}")
+    private long offHeapMaxBytes;
+
+    @Value("${app.cache.refresh-ahead:0.8}")
+    private double refreshAhead;
+
+    @Value("${app.cache.refresh-threads:4}")
+    private int refreshThreads;
+
+    private ThreadPoolTaskExecutor cacheRefreshExecutor;
+
+    @Bean
+    public CacheManager cacheManager(
+        @Lazy StockService stockService,
+        SharedCacheStore sharedCacheStore,
+        MeterRegistry meterRegistry
+    ) {
+        TypeFactory types = TypeFactory.defaultInstance();
+        cacheRefreshExecutor = createRefreshExecutor();
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(
+                String name,
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> cache
+            ) {
+                return offHeapEnabled && CacheNames.STOCK_CHARTS.equals(name)
+                    ? new OffHeapSeriesCache(name, cache, isAllowNullValues())
+                    : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.setCaffeine(
+            Caffeine.newBuilder()
+                .maximumSize(defaultMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(defaultTtl))
+                .recordStats()
+        );
+
+        cacheManager.registerCustomCache(
+            CacheNames.STOCK_PRICES,
+            refreshAheadCache(
+                CacheNames.STOCK_PRICES,
+                priceCacheTtl,
+                priceCacheMaxStale,
+                meterRegistry
+            )
+                .maximumSize(priceCacheMaxSize)
+                .build(
+                new TieredCacheLoader(
+                    CacheNames.STOCK_PRICES,
+                    types.constructType(StockPriceDTO.class),
+                    Duration.ofSeconds(priceCacheTtl),
+                    refreshPoint(priceCacheTtl),
+                    sharedCacheStore,
+                    priceLoader(stockService)
+                )
+            )
+        );
+
+        Caffeine<Object, Object> chartCache = refreshAheadCache(
+            CacheNames.STOCK_CHARTS,
+            chartCacheTtl,
+            chartCacheMaxStale,
+            meterRegistry
+        );
+        CacheLoader<Object, Object> chartLoader = new TieredCacheLoader(
+            CacheNames.STOCK_CHARTS,
+            types.constructType(PriceSeries.class),
+            Duration.ofSeconds(chartCacheTtl),
+            refreshPoint(chartCacheTtl),
+            sharedCacheStore,
+            chartLoader(stockService)
+        );
+        cacheManager.registerCustomCache(
+            CacheNames.STOCK_CHARTS,
+            offHeapEnabled
+                ? chartCache
+                    .maximumWeight(offHeapMaxBytes)
+                    .weigher(OffHeapSeriesCache::weigh)
+                    .build(OffHeapSeriesCache.encoding(chartLoader))
+                : chartCache.maximumSize(chartCacheMaxSize).build(chartLoader)
+        );
+
+        // Local only: entries are caught up with the chart series they sit next to
+        cacheManager.registerCustomCache(
+            CacheNames.CHART_INDICATORS,
+            Caffeine.newBuilder()
+                .maximumSize(chartCacheMaxSize)
+                .expireAfterAccess(Duration.ofSeconds(chartCacheTtl))
+                .recordStats(() ->
+                    new MeteredStatsCounter(
+                        meterRegistry,
+                        CacheNames.CHART_INDICATORS
+                    )
+                )
+                .build()
+        );
+
+        cacheManager.registerCustomCache(
+            CacheNames.SYMBOL_SEARCH,
+            Caffeine.newBuilder()
+                .maximumSize(symbolCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(symbolCacheTtl))
+                .recordStats(() ->
+                    new MeteredStatsCounter(
+                        meterRegistry,
+                        CacheNames.SYMBOL_SEARCH
+                    )
+                )
+                .build(
+                    new TieredCacheLoader(
+                        CacheNames.SYMBOL_SEARCH,
+                        listOf(types, SymbolSuggestionDTO.class),
+                        Duration.ofSeconds(symbolCacheTtl),
+                        refreshPoint(symbolCacheTtl),
+                        sharedCacheStore,
+                        symbolSearchLoader(stockService)
+                    )
+                )
+        );
+
+        cacheManager.registerCustomCache(
+            CacheNames.SYMBOL_LISTS,
+            Caffeine.newBuilder()
+                .maximumSize(symbolCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(symbolCacheTtl))
+                .recordStats()
+                .build()
+        );
+
+        cacheManager.registerCustomCache(
+            CacheNames.UNKNOWN_SYMBOLS,
+            Caffeine.newBuilder()
+                .maximumSize(unknownSymbolMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(unknownSymbolTtl))
+                .recordStats()
+                .build()
+        );
+
+        // Local only: factors are built from the database on each node and
+        // evicted on all of them when an action is recorded
+        cacheManager.registerCustomCache(
+            CacheNames.ADJUSTMENT_FACTORS,
+            Caffeine.newBuilder()
+                .maximumSize(adjustmentFactorsMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(adjustmentFactorsTtl))
+                .recordStats()
+                .build()
+        );
+
+        return cacheManager;
+    }
+
+    @PreDestroy
+    void shutdownRefreshExecutor() {
+        if (cacheRefreshExecutor != null) {
+            cacheRefreshExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Bounded pool for asynchronous cache reloads. Reloads call Yahoo Finance,
+     * so they must not run on the common fork-join pool. It is not exposed as a
+     * bean so Spring Boot keeps its default application task executor.
+     */
+    private ThreadPoolTaskExecutor createRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(refreshThreads);
+        executor.setMaxPoolSize(refreshThreads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.initialize();
+        return executor;
+    }
+
+    private Caffeine<Object, Object> refreshAheadCache(
+        String cacheName,
+        long ttlSeconds,
+        long maxStaleSeconds,
+        MeterRegistry meterRegistry
+    ) {
+        return Caffeine.newBuilder()
+            .expireAfterWrite(
+                Duration.ofSeconds(Math.max(ttlSeconds, maxStaleSeconds))
+            )
+            .refreshAfterWrite(refreshPoint(ttlSeconds))
+            .executor(cacheRefreshExecutor)
+            .recordStats(() -> new MeteredStatsCounter(meterRegistry, cacheName));
+    }
+
+    /**
+     * Age at which an entry is refreshed ahead of its TTL
+     */
+    private Duration refreshPoint(long ttlSeconds) {
+        return Duration.ofMillis((long) (ttlSeconds * 1000 * refreshAhead));
+    }
+
+    /**
+     * Price cache keys are upper-case symbols. Bulk lookups through
+     * {@link com.stocknotebook.cache.StockPriceCache} load all misses at once.
+     */
+    private CacheLoader<Object, Object> priceLoader(StockService stockService) {
+        return new CacheLoader<>() {
+            @Override
+            public Object load(Object key) {
+                return stockService.loadCurrentPrice((String) key);
+            }
+
+            @Override
+            public Map<Object, Object> loadAll(Set<?> keys) {
+                return new HashMap<>(
+                    stockService.loadCurrentPrices(
+                        keys.stream().map(String.class::cast).toList()
+                    )
+                );
+            }
+        };
+    }
+
+    /**
+     * Chart cache keys have the form {@code SYMBOL_PERIOD}
+     */
+    private CacheLoader<Object, Object> chartLoader(StockService stockService) {
+        return key -> {
+            String chartKey = (String) key;
+            int separator = chartKey.lastIndexOf('_');
+            return stockService.loadChartData(
+                chartKey.substring(0, separator),
+                chartKey.substring(separator + 1)
+            );
+        };
+    }
+
+    /**
+     * Symbol search cache keys have the form {@code QUERY_LIMIT}
+     */
+    private CacheLoader<Object, Object> symbolSearchLoader(
+        StockService stockService
+    ) {
+        return key -> {
+            String searchKey = (String) key;
+            int separator = searchKey.lastIndexOf('_');
+            return stockService.loadSymbolSuggestions(
+                searchKey.substring(0, separator),
+                Integer.parseInt(searchKey.substring(separator + 1))
+            );
+        };
+    }
+
+    private static JavaType listOf(TypeFactory types, Class<?> elementType) {
+        return types.constructCollectionType(List.class, elementType);
+    }
+}
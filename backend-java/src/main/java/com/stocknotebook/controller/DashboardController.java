@@ -0,0 +1,71 @@
+package com.stocknotebook.controller;
+
+import com.stocknotebook.dto.response.DashboardResponseDTO;
+import com.stocknotebook.service.AuthService;
+import com.stocknotebook.service.DashboardService;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        DashboardController.class
+    );
+
+    private final DashboardService dashboardService;
+    private final AuthService authService;
+
+    public DashboardController(
+        DashboardService dashboardService,
+        AuthService authService
+    ) {
+        this.dashboardService = dashboardService;
+        this.authService = authService;
+    }
+
+    /**
+     * Get holdings, totals, recent purchases and price freshness in one call
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<DashboardResponseDTO> getDashboard(
+        @RequestParam(defaultValue = "5") int recent
+    ) {
+        log.info("Get dashboard request received");
+
+        try {
+            UUID userId = getCurrentUserId();
+            DashboardResponseDTO dashboard = dashboardService.getDashboard(
+                userId,
+                recent
+            );
+            return ResponseEntity.ok(dashboard);
+        } catch (RuntimeException e) {
+            log.warn("Failed to get dashboard: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error getting dashboard", e);
+            return ResponseEntity.status(
+                HttpStatus.INTERNAL_SERVER_ERROR
+            ).build();
+        }
+    }
+
+    /**
+     * Get current user ID from security context
+     */
+    private UUID getCurrentUserId() {
+        return authService
+            .getCurrentUserId()
+            .orElseThrow(() ->
+                new RuntimeException("No authenticated user found")
+            );
+    }
+}
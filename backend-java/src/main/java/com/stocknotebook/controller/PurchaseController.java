@@ -1,6 +1,9 @@
 package com.stocknotebook.controller;
 
 import com.stocknotebook.dto.request.CreatePurchaseRequestDTO;
+import com.stocknotebook.dto.response.PortfolioAsOfDTO;
+import com.stocknotebook.dto.response.PortfolioHistoryDTO;
+import com.stocknotebook.dto.response.PortfolioRiskDTO;
 import com.stocknotebook.dto.response.PortfolioSummaryDTO;
 import com.stocknotebook.dto.response.PurchaseResponseDTO;
 import com.stocknotebook.service.AuthService;
@@ -216,6 +219,91 @@ public class PurchaseController {
         }
     }
 
+    /**
+     * Get portfolio value history for a chart period
+     */
+    @GetMapping("/portfolio/history")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<PortfolioHistoryDTO> getPortfolioHistory(
+        @RequestParam(defaultValue = "1Y") String period
+    ) {
+        log.info(
+            "Get portfolio history request received with period: {}",
+            period
+        );
+
+        try {
+            UUID userId = getCurrentUserId();
+            PortfolioHistoryDTO history = purchaseService.getPortfolioHistory(
+                userId,
+                period
+            );
+            return ResponseEntity.ok(history);
+        } catch (RuntimeException e) {
+            log.warn("Failed to get portfolio history: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error getting portfolio history", e);
+            return ResponseEntity.status(
+                HttpStatus.INTERNAL_SERVER_ERROR
+            ).build();
+        }
+    }
+
+    /**
+     * Get portfolio risk metrics and the correlation matrix of its positions
+     */
+    @GetMapping("/portfolio/risk")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<PortfolioRiskDTO> getPortfolioRisk() {
+        log.info("Get portfolio risk request received");
+
+        try {
+            UUID userId = getCurrentUserId();
+            PortfolioRiskDTO risk = purchaseService.getPortfolioRisk(userId);
+            return ResponseEntity.ok(risk);
+        } catch (RuntimeException e) {
+            log.warn("Failed to get portfolio risk: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error getting portfolio risk", e);
+            return ResponseEntity.status(
+                HttpStatus.INTERNAL_SERVER_ERROR
+            ).build();
+        }
+    }
+
+    /**
+     * Get the portfolio value at the close of a past day
+     */
+    @GetMapping("/portfolio/as-of")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<PortfolioAsOfDTO> getPortfolioAsOf(
+        @RequestParam LocalDate date
+    ) {
+        log.info("Get portfolio as of {} request received", date);
+
+        try {
+            UUID userId = getCurrentUserId();
+            PortfolioAsOfDTO portfolio = purchaseService.getPortfolioAsOf(
+                userId,
+                date
+            );
+            return ResponseEntity.ok(portfolio);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid portfolio as-of request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (RuntimeException e) {
+            log.warn("Failed to get portfolio as of {}: {}", date, e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error getting portfolio as of {}", date, e);
+            return ResponseEntity.status(
+                HttpStatus.INTERNAL_SERVER_ERROR
+            ).build();
+        }
+    }
+
     /**
      * Get purchases within a date range
      */
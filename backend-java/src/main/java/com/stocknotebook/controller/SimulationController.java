@@ -0,0 +1,56 @@
+package com.stocknotebook.controller;
+
+import com.stocknotebook.dto.request.DcaSimulationRequestDTO;
+import com.stocknotebook.dto.response.DcaSimulationDTO;
+import com.stocknotebook.service.SimulationService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/simulations")
+public class SimulationController {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        SimulationController.class
+    );
+
+    private final SimulationService simulationService;
+
+    public SimulationController(SimulationService simulationService) {
+        this.simulationService = simulationService;
+    }
+
+    /**
+     * Replay recurring-purchase scenarios over stored prices
+     */
+    @PostMapping("/dca")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<DcaSimulationDTO> simulateDca(
+        @Valid @RequestBody DcaSimulationRequestDTO request
+    ) {
+        log.info(
+            "DCA simulation request received with {} scenarios",
+            request.scenarios().size()
+        );
+
+        try {
+            DcaSimulationDTO simulation = simulationService.simulateDca(
+                request
+            );
+            return ResponseEntity.ok(simulation);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid DCA simulation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Error running DCA simulation", e);
+            return ResponseEntity.status(
+                HttpStatus.INTERNAL_SERVER_ERROR
+            ).build();
+        }
+    }
+}
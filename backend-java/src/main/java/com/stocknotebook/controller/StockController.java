@@ -1,19 +1,39 @@
 package com.stocknotebook.controller;
 
+import com.stocknotebook.cache.CacheInspector;
+import com.stocknotebook.cache.ChartIndicatorCache;
+import com.stocknotebook.dto.request.CorporateActionRequestDTO;
+import com.stocknotebook.dto.response.CacheStatsDTO;
+import com.stocknotebook.dto.response.CorporateActionDTO;
 import com.stocknotebook.dto.response.StockPriceDTO;
 import com.stocknotebook.dto.response.SymbolSuggestionDTO;
+import com.stocknotebook.model.AdjustmentFactors;
+import com.stocknotebook.model.IndicatorSeries;
+import com.stocknotebook.model.IndicatorSpec;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.repository.StockDataVersion;
+import com.stocknotebook.service.CorporateActionService;
 import com.stocknotebook.service.StockService;
+import jakarta.validation.Valid;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/stocks")
@@ -24,9 +44,20 @@ public class StockController {
     );
 
     private final StockService stockService;
-
-    public StockController(StockService stockService) {
+    private final CacheInspector cacheInspector;
+    private final ChartIndicatorCache chartIndicatorCache;
+    private final CorporateActionService corporateActionService;
+
+    public StockController(
+        StockService stockService,
+        CacheInspector cacheInspector,
+        ChartIndicatorCache chartIndicatorCache,
+        CorporateActionService corporateActionService
+    ) {
         this.stockService = stockService;
+        this.cacheInspector = cacheInspector;
+        this.chartIndicatorCache = chartIndicatorCache;
+        this.corporateActionService = corporateActionService;
     }
 
     /**
@@ -41,7 +72,11 @@ public class StockController {
 
         try {
             StockPriceDTO price = stockService.getCurrentPrice(symbol);
-            return ResponseEntity.ok(price);
+            return ResponseEntity.ok()
+                .headers(
+                    cacheAgeHeaders(stockService.getCachedPriceAge(symbol))
+                )
+                .body(price);
         } catch (RuntimeException e) {
             log.warn("Failed to get current price for symbol: {}", symbol);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -80,15 +115,22 @@ public class StockController {
     }
 
     /**
-     * Get chart data for a stock symbol
+     * Get split-adjusted chart data for a stock symbol, optionally with
+     * technical indicators (e.g.
+     * {@code ?sma=20,50&ema=12&rsi=14&bollinger=20&vwap=true}) added to each
+     * point
      */
     @GetMapping("/{symbol}/chart")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<
-        List<com.stocknotebook.client.YahooFinanceClient.PricePoint>
-    > getChartData(
+    public ResponseEntity<IndicatorSeries> getChartData(
         @PathVariable String symbol,
-        @RequestParam(defaultValue = "1M") String period
+        @RequestParam(defaultValue = "1M") String period,
+        @RequestParam(required = false) List<Integer> sma,
+        @RequestParam(required = false) List<Integer> ema,
+        @RequestParam(required = false) Integer rsi,
+        @RequestParam(required = false) Integer bollinger,
+        @RequestParam(defaultValue = "false") boolean vwap,
+        WebRequest webRequest
     ) {
         log.info(
             "Get chart data request received for symbol: {} with period: {}",
@@ -97,10 +139,44 @@ public class StockController {
         );
 
         try {
-            List<
-                com.stocknotebook.client.YahooFinanceClient.PricePoint
-            > chartData = stockService.getChartData(symbol, period);
-            return ResponseEntity.ok(chartData);
+            IndicatorSpec indicators = new IndicatorSpec(
+                sma,
+                ema,
+                rsi,
+                bollinger,
+                vwap
+            );
+            AdjustmentFactors factors = corporateActionService.getFactors(
+                symbol
+            );
+            PriceSeries chartData = corporateActionService.adjustChart(
+                symbol,
+                period,
+                stockService.getChartData(symbol, period)
+            );
+            Optional<CacheInspector.EntryAge> age =
+                stockService.getCachedChartAge(symbol, period);
+
+            // Answer polls with 304 before the series is serialized
+            long lastModified = age
+                .map(a -> System.currentTimeMillis() - a.age().toMillis())
+                .orElse(-1L);
+            if (
+                webRequest.checkNotModified(
+                    seriesETag(chartData, indicators, factors),
+                    lastModified
+                )
+            ) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                .headers(cacheAgeHeaders(age))
+                .body(
+                    chartIndicatorCache.get(symbol, period, indicators, chartData)
+                );
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid chart indicators: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         } catch (RuntimeException e) {
             log.warn("Failed to get chart data for symbol: {}", symbol);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -112,6 +188,59 @@ public class StockController {
         }
     }
 
+    /**
+     * Get the splits and dividends recorded for a stock symbol
+     */
+    @GetMapping("/{symbol}/corporate-actions")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<CorporateActionDTO>> getCorporateActions(
+        @PathVariable String symbol
+    ) {
+        log.info("Get corporate actions request received for symbol: {}", symbol);
+
+        try {
+            List<CorporateActionDTO> actions =
+                corporateActionService.getActions(symbol);
+            return ResponseEntity.ok(actions);
+        } catch (Exception e) {
+            log.error("Error getting corporate actions for symbol: {}", symbol, e);
+            return ResponseEntity.status(
+                HttpStatus.INTERNAL_SERVER_ERROR
+            ).build();
+        }
+    }
+
+    /**
+     * Record a split or dividend of a stock symbol (admin only)
+     */
+    @PostMapping("/{symbol}/corporate-actions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CorporateActionDTO> recordCorporateAction(
+        @PathVariable String symbol,
+        @Valid @RequestBody CorporateActionRequestDTO request
+    ) {
+        log.info(
+            "Record corporate action request received for symbol: {}",
+            symbol
+        );
+
+        try {
+            CorporateActionDTO action = corporateActionService.recordAction(
+                symbol,
+                request
+            );
+            return ResponseEntity.status(HttpStatus.CREATED).body(action);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid corporate action: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Error recording corporate action for symbol: {}", symbol, e);
+            return ResponseEntity.status(
+                HttpStatus.INTERNAL_SERVER_ERROR
+            ).build();
+        }
+    }
+
     /**
      * Search for stock symbols
      */
@@ -152,7 +281,8 @@ public class StockController {
     public ResponseEntity<List<StockPriceDTO>> getHistoricalData(
         @PathVariable String symbol,
         @RequestParam LocalDate startDate,
-        @RequestParam LocalDate endDate
+        @RequestParam LocalDate endDate,
+        WebRequest webRequest
     ) {
         log.info(
             "Get historical data request received for symbol: {} from {} to {}",
@@ -162,6 +292,21 @@ public class StockController {
         );
 
         try {
+            // Validate against the range version before loading any rows
+            StockDataVersion version = stockService.getHistoricalDataVersion(
+                symbol,
+                startDate,
+                endDate
+            );
+            if (
+                webRequest.checkNotModified(
+                    versionETag(version),
+                    toEpochMilli(version.getLastUpdated())
+                )
+            ) {
+                return null;
+            }
+
             List<StockPriceDTO> historicalData = stockService.getHistoricalData(
                 symbol,
                 startDate,
@@ -399,6 +544,29 @@ public class StockController {
         }
     }
 
+    /**
+     * Get statistics and the hottest keys of every cache on this node
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStatistics(
+        @RequestParam(defaultValue = "10") int top
+    ) {
+        log.info("Get cache statistics request received with top: {}", top);
+
+        try {
+            List<CacheStatsDTO> statistics = cacheInspector.describeAll(
+                Math.max(top, 0)
+            );
+            return ResponseEntity.ok(statistics);
+        } catch (Exception e) {
+            log.error("Error getting cache statistics", e);
+            return ResponseEntity.status(
+                HttpStatus.INTERNAL_SERVER_ERROR
+            ).build();
+        }
+    }
+
     /**
      * Get popular symbols
      */
@@ -534,4 +702,99 @@ public class StockController {
             ).build();
         }
     }
+
+    /**
+     * Strong ETag of a price series from its size, latest date and latest
+     * price, which is the only point that changes during a trading day, and a
+     * SHA-256 digest of the requested indicators and the adjustment factors
+     */
+    private static String seriesETag(
+        PriceSeries series,
+        IndicatorSpec indicators,
+        AdjustmentFactors factors
+    ) {
+        String suffix = "";
+        if (!indicators.isEmpty() || !factors.isEmpty()) {
+            // Recording an action changes earlier points, not the last one
+            suffix = "-" + digest(indicators, factors);
+        }
+        if (series.isEmpty()) {
+            return "\"0" + suffix + "\"";
+        }
+        int last = series.size() - 1;
+        return (
+            "\"" +
+            series.lastDate() +
+            "-" +
+            series.size() +
+            "-" +
+            Long.toHexString(series.scaledPriceAt(last)) +
+            suffix +
+            "\""
+        );
+    }
+
+    /**
+     * First 128 bits of the SHA-256 of the canonical indicator key and the
+     * factor steps, in hex
+     */
+    private static String digest(
+        IndicatorSpec indicators,
+        AdjustmentFactors factors
+    ) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(indicators.key().getBytes(StandardCharsets.UTF_8));
+            // Separates the key from the steps
+            digest.update((byte) 0);
+            factors.digestInto(digest);
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Strong ETag of stored stock data from its latest date, row count and
+     * last update time
+     */
+    private static String versionETag(StockDataVersion version) {
+        return (
+            "\"" +
+            version.getLatestDate() +
+            "-" +
+            version.getRowCount() +
+            "-" +
+            Long.toHexString(toEpochMilli(version.getLastUpdated())) +
+            "\""
+        );
+    }
+
+    /**
+     * Epoch milliseconds of a server-local timestamp, or -1 when absent
+     */
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime != null
+            ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : -1L;
+    }
+
+    /**
+     * Age headers for a cached response: {@code Age} in seconds and an
+     * RFC 9211 {@code Cache-Status} whose {@code ttl} turns negative once the
+     * value is stale and being revalidated in the background
+     */
+    private HttpHeaders cacheAgeHeaders(
+        Optional<CacheInspector.EntryAge> entryAge
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        entryAge.ifPresent(age -> {
+            headers.set(HttpHeaders.AGE, String.valueOf(age.age().toSeconds()));
+            headers.set(
+                "Cache-Status",
+                "stock-notebook; ttl=" + age.remainingSeconds()
+            );
+        });
+        return headers;
+    }
 }
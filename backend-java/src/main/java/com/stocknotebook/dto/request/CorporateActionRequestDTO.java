@@ -0,0 +1,27 @@
+package com.stocknotebook.dto.request;
+
+import com.stocknotebook.entity.CorporateAction;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A split (with {@code ratio}, new shares per old share) or a cash dividend
+ * (with {@code amount} per share) that has gone ex
+ */
+public record CorporateActionRequestDTO(
+    @NotNull(message = "Action type is required")
+    CorporateAction.Type type,
+
+    @NotNull(message = "Ex-date is required")
+    @PastOrPresent(message = "Ex-date cannot be in the future")
+    LocalDate exDate,
+
+    @DecimalMin(value = "0.0001", message = "Ratio must be at least 0.0001")
+    @DecimalMax(value = "10000", message = "Ratio cannot exceed 10000")
+    BigDecimal ratio,
+
+    @Positive(message = "Amount must be positive")
+    BigDecimal amount
+) {}
@@ -0,0 +1,68 @@
+package com.stocknotebook.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public record DcaSimulationRequestDTO(
+    @NotEmpty(message = "At least one scenario is required")
+    @Size(max = 100, message = "At most 100 scenarios can be simulated at once")
+    List<@Valid Scenario> scenarios
+) {
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY
+    }
+
+    /**
+     * A recurring purchase of a fixed amount, split evenly across the symbols
+     */
+    public record Scenario(
+        @Size(max = 50, message = "Name cannot exceed 50 characters")
+        String name,
+
+        @NotEmpty(message = "At least one symbol is required")
+        @Size(max = 10, message = "At most 10 symbols per scenario")
+        List<
+            @NotBlank(message = "Symbol is required")
+            @Pattern(regexp = "^[A-Z0-9]{1,10}$", message = "Symbol must contain only uppercase letters and numbers")
+            String
+        > symbols,
+
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "1.00", message = "Amount must be at least $1.00")
+        @DecimalMax(value = "1000000.00", message = "Amount cannot exceed $1,000,000.00")
+        BigDecimal amount,
+
+        @NotNull(message = "Frequency is required")
+        Frequency frequency,
+
+        @NotNull(message = "Start date is required")
+        @PastOrPresent(message = "Start date cannot be in the future")
+        LocalDate startDate,
+
+        @PastOrPresent(message = "End date cannot be in the future")
+        LocalDate endDate,
+
+        @DecimalMin(value = "0.00", message = "Commission must be zero or positive")
+        @DecimalMax(value = "9999.99", message = "Commission cannot exceed $9,999.99")
+        BigDecimal commission
+    ) {
+        // Compact constructor for normalization
+        public Scenario {
+            symbols = symbols != null
+                ? symbols
+                    .stream()
+                    .map(symbol -> symbol != null ? symbol.trim().toUpperCase() : null)
+                    .distinct()
+                    .toList()
+                : null;
+            endDate = endDate != null ? endDate : LocalDate.now();
+            commission = commission != null ? commission : BigDecimal.ZERO;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.stocknotebook.dto.response;
+
+import java.util.List;
+
+public record CacheStatsDTO(
+    String name,
+    Long size,
+    Long weightedSize,
+    Long maximum,
+    Long hitCount,
+    Long missCount,
+    Double hitRate,
+    Long loadSuccessCount,
+    Long loadFailureCount,
+    Double averageLoadPenaltyMillis,
+    Long evictionCount,
+    Long evictionWeight,
+    List<String> hottestKeys
+) {
+    // Compact constructor for validation and normalization
+    public CacheStatsDTO {
+        hottestKeys = hottestKeys != null ? hottestKeys : List.of();
+    }
+
+    // Business methods
+    public boolean isBounded() {
+        return maximum != null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.stocknotebook.dto.response;
+
+import com.stocknotebook.entity.CorporateAction;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A recorded split or dividend
+ *
+ * @param ratio new shares per old share, for splits
+ * @param amount cash per share, for dividends
+ */
+public record CorporateActionDTO(
+    String symbol,
+    CorporateAction.Type type,
+    LocalDate exDate,
+    BigDecimal ratio,
+    BigDecimal amount
+) {}
@@ -12,7 +12,13 @@ public record DashboardResponseDTO(
     List<StockHoldingDTO> stocks,
     Integer totalPositions,
     Integer totalPurchases,
-    LocalDateTime lastUpdated
+    LocalDateTime lastUpdated,
+    List<PurchaseResponseDTO> recentPurchases,
+    Long oldestPriceAgeSeconds,
+    // Currency of the totals
+    String currency,
+    // Symbols without a price or rate, left out of the totals
+    List<String> unpricedSymbols
 ) {
     // Compact constructor for validation and calculated fields
     public DashboardResponseDTO {
@@ -24,13 +30,15 @@ public record DashboardResponseDTO(
         totalPositions = totalPositions != null ? totalPositions : (stocks != null ? stocks.size() : 0);
         totalPurchases = totalPurchases != null ? totalPurchases : 0;
         lastUpdated = lastUpdated != null ? lastUpdated : LocalDateTime.now();
+        recentPurchases = recentPurchases != null ? recentPurchases : List.of();
+        unpricedSymbols = unpricedSymbols != null ? unpricedSymbols : List.of();
     }
 
     // Simplified constructor
     public DashboardResponseDTO(BigDecimal totalSpent, BigDecimal currentValue,
                                BigDecimal profitLoss, BigDecimal profitLossPercentage,
                                List<StockHoldingDTO> stocks) {
-        this(totalSpent, currentValue, profitLoss, profitLossPercentage, stocks, null, null, null);
+        this(totalSpent, currentValue, profitLoss, profitLossPercentage, stocks, null, null, null, null, null, null, null);
     }
 
     // Business methods
@@ -103,6 +111,7 @@ public record DashboardResponseDTO(
                 ", totalPurchases=" + totalPurchases +
                 ", stocksCount=" + (stocks != null ? stocks.size() : 0) +
                 ", lastUpdated=" + lastUpdated +
+                ", recentPurchasesCount=" + (recentPurchases != null ? recentPurchases.size() : 0) +
                 '}';
     }
 }
@@ -0,0 +1,49 @@
+package com.stocknotebook.dto.response;
+
+import com.stocknotebook.dto.request.DcaSimulationRequestDTO.Frequency;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of recurring-purchase scenarios replayed over stored prices
+ *
+ * @param scenarios one result per requested scenario, in request order
+ * @param unpricedSymbols requested symbols without stored prices, never bought
+ */
+public record DcaSimulationDTO(
+    List<ScenarioResult> scenarios,
+    List<String> unpricedSymbols
+) {
+    public DcaSimulationDTO {
+        scenarios = scenarios != null ? scenarios : List.of();
+        unpricedSymbols = unpricedSymbols != null ? unpricedSymbols : List.of();
+    }
+
+    /**
+     * @param name scenario name, or its position when unnamed
+     * @param invested amount spent, commissions included
+     * @param finalValue value of the shares bought at the last close
+     * @param returnPercentage profit or loss as a percentage of invested
+     * @param timeWeightedReturnPercentage return of the strategy regardless
+     *     of when money was added
+     * @param maxDrawdownPercentage largest time-weighted fall from a peak
+     * @param purchaseCount purchases made, one per symbol and period
+     * @param shares fractional shares held at the end, by symbol
+     * @param equityCurve value and invested amount on every trading day
+     */
+    public record ScenarioResult(
+        String name,
+        List<String> symbols,
+        Frequency frequency,
+        BigDecimal invested,
+        BigDecimal finalValue,
+        BigDecimal profitLoss,
+        BigDecimal returnPercentage,
+        BigDecimal timeWeightedReturnPercentage,
+        BigDecimal maxDrawdownPercentage,
+        int purchaseCount,
+        Map<String, BigDecimal> shares,
+        List<PortfolioHistoryDTO.Point> equityCurve
+    ) {}
+}
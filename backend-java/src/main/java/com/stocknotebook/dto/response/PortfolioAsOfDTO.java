@@ -0,0 +1,55 @@
+package com.stocknotebook.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Value of a portfolio at the close of a past day
+ *
+ * @param date requested day
+ * @param valuationDate day whose closing values are returned; the latest
+ *     snapshot day on or before the requested day
+ * @param currency currency of the totals
+ * @param totalValue market value of the priced positions in that currency
+ * @param totalCost cost of the purchases in that currency made up to the
+ *     valuation day
+ * @param totalGainLoss value minus cost of the priced positions in that
+ *     currency
+ * @param positions one entry per held symbol
+ */
+public record PortfolioAsOfDTO(
+    LocalDate date,
+    LocalDate valuationDate,
+    String currency,
+    BigDecimal totalValue,
+    BigDecimal totalCost,
+    BigDecimal totalGainLoss,
+    List<Position> positions
+) {
+    public PortfolioAsOfDTO {
+        positions = positions != null ? positions : List.of();
+    }
+
+    /**
+     * @param symbol position symbol
+     * @param quantity shares held
+     * @param marketValue value at the close, null without a stored price
+     * @param cost cost of the purchases made up to that day
+     * @param gainLoss value minus cost, null without a stored price
+     * @param currency currency of the amounts; other than the totals' when
+     *     the symbol has no FX rates, and then left out of the totals
+     */
+    public record Position(
+        String symbol,
+        long quantity,
+        BigDecimal marketValue,
+        BigDecimal cost,
+        BigDecimal gainLoss,
+        String currency
+    ) {}
+
+    public boolean isEmpty() {
+        return positions.isEmpty();
+    }
+}
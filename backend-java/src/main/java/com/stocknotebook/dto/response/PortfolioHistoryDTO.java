@@ -0,0 +1,37 @@
+package com.stocknotebook.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Value of a portfolio on every trading day of a period
+ *
+ * @param period requested period
+ * @param points one point per trading day, oldest first
+ * @param unpricedSymbols held symbols without stored prices in the period
+ *     or without FX rates, left out of the values
+ * @param currency currency of the values
+ */
+public record PortfolioHistoryDTO(
+    String period,
+    List<Point> points,
+    List<String> unpricedSymbols,
+    String currency
+) {
+    public PortfolioHistoryDTO {
+        points = points != null ? points : List.of();
+        unpricedSymbols = unpricedSymbols != null ? unpricedSymbols : List.of();
+    }
+
+    /**
+     * @param date trading day
+     * @param value market value of the shares held at that day's close
+     * @param invested total cost of the purchases made up to that day
+     */
+    public record Point(LocalDate date, BigDecimal value, BigDecimal invested) {}
+
+    public boolean isEmpty() {
+        return points.isEmpty();
+    }
+}
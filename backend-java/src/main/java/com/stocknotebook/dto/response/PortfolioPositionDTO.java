@@ -5,7 +5,7 @@ import java.time.LocalDate;
 
 public record PortfolioPositionDTO(
     String symbol,
-    Integer quantity,
+    Long quantity,
     BigDecimal averagePrice,
     BigDecimal currentPrice,
     BigDecimal currentValue,
@@ -15,13 +15,19 @@ public record PortfolioPositionDTO(
     BigDecimal profitLossPercentage,
     Integer purchaseCount,
     LocalDate firstPurchaseDate,
-    LocalDate lastPurchaseDate
+    LocalDate lastPurchaseDate,
+    PriceSource priceSource,
+    Long priceAgeSeconds,
+    // Amounts above are in this currency
+    String currency,
+    // Summary currency units per unit of currency, null when unavailable
+    BigDecimal fxRate
 ) {
     // Compact constructor for validation and calculated fields
     public PortfolioPositionDTO {
         // Ensure non-null values
         symbol = symbol != null ? symbol.toUpperCase() : null;
-        quantity = quantity != null ? quantity : 0;
+        quantity = quantity != null ? quantity : 0L;
         averagePrice = averagePrice != null ? averagePrice : BigDecimal.ZERO;
         currentPrice = currentPrice != null ? currentPrice : BigDecimal.ZERO;
         totalSpent = totalSpent != null ? totalSpent : BigDecimal.ZERO;
@@ -47,10 +53,10 @@ public record PortfolioPositionDTO(
     }
 
     // Simplified constructor
-    public PortfolioPositionDTO(String symbol, Integer quantity, BigDecimal averagePrice,
+    public PortfolioPositionDTO(String symbol, Long quantity, BigDecimal averagePrice,
                                BigDecimal currentPrice, BigDecimal currentValue, BigDecimal totalSpent) {
         this(symbol, quantity, averagePrice, currentPrice, currentValue, totalSpent,
-             null, null, null, null, null, null);
+             null, null, null, null, null, null, null, null, null, null);
     }
 
     // Business methods
@@ -105,6 +111,7 @@ public record PortfolioPositionDTO(
                 ", profitLoss=" + profitLoss +
                 ", profitLossPercentage=" + profitLossPercentage +
                 ", purchaseCount=" + purchaseCount +
+                ", priceSource=" + priceSource +
                 '}';
     }
 }
@@ -0,0 +1,64 @@
+package com.stocknotebook.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Risk metrics of a portfolio and its positions over a chart period
+ *
+ * @param asOf last day included
+ * @param period period the daily returns were taken from
+ * @param benchmark symbol betas are measured against
+ * @param portfolio metrics of the current holdings held over the whole period
+ * @param positions metrics of each priced position, largest weight first
+ * @param symbols row and column order of the correlation matrix
+ * @param correlations pairwise correlations of daily log returns, null where
+ *     two symbols have too few common days
+ * @param unpricedSymbols held symbols without prices, left out of all metrics
+ */
+public record PortfolioRiskDTO(
+    LocalDate asOf,
+    String period,
+    String benchmark,
+    RiskMetrics portfolio,
+    List<PositionRisk> positions,
+    List<String> symbols,
+    List<List<BigDecimal>> correlations,
+    List<String> unpricedSymbols
+) {
+    public PortfolioRiskDTO {
+        positions = positions != null ? positions : List.of();
+        symbols = symbols != null ? symbols : List.of();
+        correlations = correlations != null ? correlations : List.of();
+        unpricedSymbols = unpricedSymbols != null ? unpricedSymbols : List.of();
+    }
+
+    /**
+     * @param volatility annualized standard deviation of daily log returns
+     * @param maxDrawdown largest fall from a previous peak, as a fraction
+     * @param beta sensitivity to the benchmark, null without benchmark prices
+     * @param observations number of daily returns used
+     */
+    public record RiskMetrics(
+        BigDecimal volatility,
+        BigDecimal maxDrawdown,
+        BigDecimal beta,
+        int observations
+    ) {}
+
+    /**
+     * @param symbol position symbol
+     * @param weight share of the portfolio's current value
+     * @param risk metrics of the symbol on its own
+     */
+    public record PositionRisk(
+        String symbol,
+        BigDecimal weight,
+        RiskMetrics risk
+    ) {}
+
+    public boolean isEmpty() {
+        return positions.isEmpty();
+    }
+}
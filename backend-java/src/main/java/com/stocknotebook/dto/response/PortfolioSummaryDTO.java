@@ -12,7 +12,11 @@ public record PortfolioSummaryDTO(
     BigDecimal profitLossPercentage,
     Integer totalPositions,
     Integer totalPurchases,
-    LocalDateTime lastUpdated
+    LocalDateTime lastUpdated,
+    // Currency of the totals
+    String currency,
+    // Symbols without a price or rate, left out of the totals
+    List<String> unpricedSymbols
 ) {
     // Compact constructor for validation and calculated fields
     public PortfolioSummaryDTO {
@@ -24,11 +28,12 @@ public record PortfolioSummaryDTO(
         totalPositions = totalPositions != null ? totalPositions : (positions != null ? positions.size() : 0);
         totalPurchases = totalPurchases != null ? totalPurchases : 0;
         lastUpdated = lastUpdated != null ? lastUpdated : LocalDateTime.now();
+        unpricedSymbols = unpricedSymbols != null ? unpricedSymbols : List.of();
     }
 
     // Simplified constructor
     public PortfolioSummaryDTO(List<PortfolioPositionDTO> positions, BigDecimal totalValue) {
-        this(positions, totalValue, null, null, null, null, null, null);
+        this(positions, totalValue, null, null, null, null, null, null, null, null);
     }
 
     // Business methods
@@ -48,6 +53,10 @@ public record PortfolioSummaryDTO(
         return positions == null || positions.isEmpty();
     }
 
+    public boolean isPartial() {
+        return !unpricedSymbols.isEmpty();
+    }
+
     public PortfolioPositionDTO getBestPerformer() {
         if (positions == null || positions.isEmpty()) {
             return null;
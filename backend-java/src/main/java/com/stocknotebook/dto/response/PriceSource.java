@@ -0,0 +1,17 @@
+package com.stocknotebook.dto.response;
+
+/**
+ * Where a price came from
+ */
+public enum PriceSource {
+    /** Served from the price cache */
+    CACHE,
+    /** Today's quote, queued for writing or already stored */
+    DATABASE,
+    /** Fetched from Yahoo Finance */
+    UPSTREAM,
+    /** The latest stored quote, used when no current price is available */
+    LATEST_STORED,
+    /** No price could be found */
+    UNAVAILABLE,
+}
@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
  */
 public record StockHoldingDTO(
     String symbol,
-    Integer totalQuantity,
+    Long totalQuantity,
     BigDecimal averagePrice,
     BigDecimal currentPrice,
     BigDecimal totalValue,
@@ -18,14 +18,17 @@ public record StockHoldingDTO(
     BigDecimal profitLossPercentage,
     Integer purchaseCount,
     LocalDateTime firstPurchaseDate,
-    LocalDateTime lastPurchaseDate
+    LocalDateTime lastPurchaseDate,
+    PriceSource priceSource,
+    Long priceAgeSeconds,
+    String currency
 ) {
     /**
      * Constructor with calculated profit/loss fields
      */
     public StockHoldingDTO(
         String symbol,
-        Integer totalQuantity,
+        Long totalQuantity,
         BigDecimal averagePrice,
         BigDecimal currentPrice,
         BigDecimal totalValue,
@@ -52,7 +55,10 @@ public record StockHoldingDTO(
                 : BigDecimal.ZERO,
             purchaseCount,
             firstPurchaseDate,
-            lastPurchaseDate
+            lastPurchaseDate,
+            null,
+            null,
+            null
         );
     }
 
@@ -6,7 +6,8 @@ import java.time.LocalDateTime;
 public record StockPriceDTO(
     String symbol,
     BigDecimal price,
-    LocalDateTime timestamp
+    LocalDateTime timestamp,
+    PriceSource source
 ) {
     // Compact constructor for validation and normalization
     public StockPriceDTO {
@@ -14,6 +15,10 @@ public record StockPriceDTO(
         timestamp = timestamp != null ? timestamp : LocalDateTime.now();
     }
 
+    public StockPriceDTO(String symbol, BigDecimal price, LocalDateTime timestamp) {
+        this(symbol, price, timestamp, null);
+    }
+
     // Business methods
     public boolean isValid() {
         return symbol != null && !symbol.isEmpty() &&
@@ -34,6 +39,7 @@ public record StockPriceDTO(
                 "symbol='" + symbol + '\'' +
                 ", price=" + price +
                 ", timestamp=" + timestamp +
+                ", source=" + source +
                 '}';
     }
 }
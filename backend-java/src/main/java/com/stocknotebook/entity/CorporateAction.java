@@ -0,0 +1,117 @@
+package com.stocknotebook.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A split or cash dividend of a symbol taking effect on its ex-date
+ */
+@Entity
+@Table(name = "corporate_actions",
+       indexes = {
+           @Index(name = "idx_corporate_actions_symbol_ex_date", columnList = "symbol, ex_date")
+       },
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_corporate_actions_symbol_type_date",
+                             columnNames = {"symbol", "action_type", "ex_date"})
+       })
+public class CorporateAction extends BaseEntity {
+
+    public enum Type {
+        SPLIT,
+        DIVIDEND
+    }
+
+    @NotBlank(message = "Symbol is required")
+    @Column(name = "symbol", nullable = false, length = 10)
+    private String symbol;
+
+    @NotNull(message = "Action type is required")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action_type", nullable = false, length = 20)
+    private Type type;
+
+    @NotNull(message = "Ex-date is required")
+    @Column(name = "ex_date", nullable = false)
+    private LocalDate exDate;
+
+    // New shares per old share, for splits
+    @Column(name = "ratio", precision = 18, scale = 8)
+    private BigDecimal ratio;
+
+    // Cash per share, for dividends
+    @Column(name = "amount", precision = 14, scale = 4)
+    private BigDecimal amount;
+
+    // Constructors
+    public CorporateAction() {
+        super();
+    }
+
+    public CorporateAction(String symbol, Type type, LocalDate exDate,
+                           BigDecimal ratio, BigDecimal amount) {
+        super();
+        this.symbol = symbol;
+        this.type = type;
+        this.exDate = exDate;
+        this.ratio = ratio;
+        this.amount = amount;
+    }
+
+    // Getters and Setters
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public LocalDate getExDate() {
+        return exDate;
+    }
+
+    public void setExDate(LocalDate exDate) {
+        this.exDate = exDate;
+    }
+
+    public BigDecimal getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(BigDecimal ratio) {
+        this.ratio = ratio;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return "CorporateAction{" +
+                "id=" + getId() +
+                ", symbol='" + symbol + '\'' +
+                ", type=" + type +
+                ", exDate=" + exDate +
+                ", ratio=" + ratio +
+                ", amount=" + amount +
+                '}';
+    }
+}
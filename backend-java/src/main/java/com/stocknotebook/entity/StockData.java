@@ -28,7 +28,7 @@ public class StockData extends BaseEntity {
 
     @NotNull(message = "Price is required")
     @Positive(message = "Price must be positive")
-    @Column(name = "price", nullable = false, precision = 10, scale = 2)
+    @Column(name = "price", nullable = false, precision = 14, scale = 4)
     private BigDecimal price;
 
     @Column(name = "volume")
@@ -0,0 +1,10 @@
+package com.stocknotebook.event;
+
+/**
+ * Published on each node when the cached adjustment factors of a symbol were
+ * dropped, after a split or dividend was recorded on any node
+ *
+ * @param symbol upper-case symbol, null when the factors of all symbols were
+ *     dropped
+ */
+public record AdjustmentFactorsChangedEvent(String symbol) {}
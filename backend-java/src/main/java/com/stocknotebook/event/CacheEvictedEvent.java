@@ -0,0 +1,11 @@
+package com.stocknotebook.event;
+
+/**
+ * Published on each node when the
+ * {@link com.stocknotebook.cache.CacheInvalidationBus} evicted a key there,
+ * whether the eviction started on this node or another
+ *
+ * @param cacheName name of the cache
+ * @param key evicted key, null when the whole cache was cleared
+ */
+public record CacheEvictedEvent(String cacheName, String key) {}
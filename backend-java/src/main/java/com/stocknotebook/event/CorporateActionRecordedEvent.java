@@ -0,0 +1,11 @@
+package com.stocknotebook.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published when a split or dividend of a symbol is recorded
+ *
+ * @param symbol upper-case symbol of the action
+ * @param exDate first day the action applies to
+ */
+public record CorporateActionRecordedEvent(String symbol, LocalDate exDate) {}
@@ -0,0 +1,12 @@
+package com.stocknotebook.event;
+
+import com.stocknotebook.dto.response.PortfolioSummaryDTO;
+import java.util.UUID;
+
+/**
+ * Published when a maintained portfolio snapshot changes
+ *
+ * @param userId owner of the portfolio
+ * @param summary the new snapshot
+ */
+public record PortfolioUpdatedEvent(UUID userId, PortfolioSummaryDTO summary) {}
@@ -0,0 +1,15 @@
+package com.stocknotebook.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a purchase of a symbol is created, updated or deleted
+ *
+ * @param userId owner of the purchase
+ * @param symbol upper-case symbol of the affected position
+ */
+public record PurchaseChangedEvent(UUID userId, String symbol) {
+    public PurchaseChangedEvent {
+        symbol = symbol != null ? symbol.toUpperCase() : null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.stocknotebook.event;
+
+import com.stocknotebook.entity.StockData;
+import java.util.List;
+
+/**
+ * Published after stock data rows have been upserted into the database
+ *
+ * @param stockData the rows written
+ */
+public record StockDataWrittenEvent(List<StockData> stockData) {}
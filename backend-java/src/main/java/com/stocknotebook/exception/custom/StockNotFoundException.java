@@ -0,0 +1,16 @@
+package com.stocknotebook.exception.custom;
+
+/**
+ * Thrown when the market data provider does not know a stock symbol.
+ * Unlike other fetch failures it is not retried.
+ */
+public class StockNotFoundException extends RuntimeException {
+
+    public StockNotFoundException(String message) {
+        super(message);
+    }
+
+    public StockNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
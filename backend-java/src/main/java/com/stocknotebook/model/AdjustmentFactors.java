@@ -0,0 +1,253 @@
+package com.stocknotebook.model;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cumulative split and dividend adjustment factors of one symbol, held as
+ * step functions of the day.
+ *
+ * The split factor of a day is the product of the ratios of all splits with
+ * a later ex-date: a price traded that day divided by it, or a quantity bought
+ * that day multiplied by it, is expressed in today's shares. The dividend
+ * factor of a day is the product of {@code 1 - dividend / previous close} over
+ * all later dividends; prices multiplied by it treat dividends as reinvested.
+ *
+ * Stored prices and purchases are never rewritten. Each lookup is a binary
+ * search over the ex-dates, and {@link #adjust} walks a series and the
+ * ex-dates together.
+ */
+public final class AdjustmentFactors {
+
+    public static final AdjustmentFactors NONE = new AdjustmentFactors(
+        new int[0],
+        new double[] { 1 },
+        new double[] { 1 },
+        Integer.MIN_VALUE
+    );
+
+    // Ex-dates in ascending order, one per day with any action
+    private final int[] exDays;
+    // Factors of the days before each ex-date; the last slot (1) is after all
+    private final double[] splitFactors;
+    private final double[] dividendFactors;
+    private final int lastSplitDay;
+
+    private AdjustmentFactors(
+        int[] exDays,
+        double[] splitFactors,
+        double[] dividendFactors,
+        int lastSplitDay
+    ) {
+        this.exDays = exDays;
+        this.splitFactors = splitFactors;
+        this.dividendFactors = dividendFactors;
+        this.lastSplitDay = lastSplitDay;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isEmpty() {
+        return exDays.length == 0;
+    }
+
+    /**
+     * Whether a split took effect after a day
+     */
+    public boolean hasSplitAfter(LocalDate date) {
+        return lastSplitDay > date.toEpochDay();
+    }
+
+    public double splitFactor(int epochDay) {
+        return splitFactors[indexAfter(epochDay)];
+    }
+
+    public double splitFactor(LocalDate date) {
+        return splitFactor((int) date.toEpochDay());
+    }
+
+    public double dividendFactor(int epochDay) {
+        return dividendFactors[indexAfter(epochDay)];
+    }
+
+    /**
+     * Series with prices and volumes in today's shares, and with dividends
+     * reinvested when asked. The series itself when no action took effect
+     * after its first day.
+     */
+    public PriceSeries adjust(PriceSeries series, boolean dividends) {
+        if (series.isEmpty()) {
+            return series;
+        }
+        int index = indexAfter(series.epochDayAt(0));
+        if (index == exDays.length) {
+            return series;
+        }
+
+        int size = series.size();
+        int[] epochDays = new int[size];
+        long[] prices = new long[size];
+        long[] volumes = new long[size];
+        for (int i = 0; i < size; i++) {
+            int day = series.epochDayAt(i);
+            while (index < exDays.length && exDays[index] <= day) {
+                index++;
+            }
+            double split = splitFactors[index];
+            double priceFactor = dividends
+                ? dividendFactors[index] / split
+                : 1 / split;
+            long volume = series.rawVolumeAt(i);
+            epochDays[i] = day;
+            prices[i] = Math.round(series.scaledPriceAt(i) * priceFactor);
+            volumes[i] = volume == PriceSeries.NO_VOLUME
+                ? volume
+                : Math.round(volume * split);
+        }
+        return PriceSeries.wrap(epochDays, prices, volumes);
+    }
+
+    /**
+     * Index of the first ex-date after a day
+     */
+    private int indexAfter(int epochDay) {
+        int low = 0;
+        int high = exDays.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (exDays[mid] <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Feed the steps to a digest: each ex-date with its split and dividend
+     * factors, exactly as held, so equal factors always digest the same
+     */
+    public void digestInto(MessageDigest digest) {
+        ByteBuffer steps = ByteBuffer.allocate(
+            Integer.BYTES + exDays.length * (Integer.BYTES + 2 * Double.BYTES)
+        );
+        steps.putInt(exDays.length);
+        for (int i = 0; i < exDays.length; i++) {
+            steps
+                .putInt(exDays[i])
+                .putDouble(splitFactors[i])
+                .putDouble(dividendFactors[i]);
+        }
+        digest.update(steps.array());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AdjustmentFactors that)) return false;
+        return (
+            Arrays.equals(exDays, that.exDays) &&
+            Arrays.equals(splitFactors, that.splitFactors) &&
+            Arrays.equals(dividendFactors, that.dividendFactors)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return (
+            31 * (31 * Arrays.hashCode(exDays) + Arrays.hashCode(splitFactors)) +
+            Arrays.hashCode(dividendFactors)
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "AdjustmentFactors{actionDays=" + exDays.length + '}';
+    }
+
+    /**
+     * Collects actions in any order; actions on the same day are combined
+     */
+    public static final class Builder {
+
+        private final List<Action> actions = new ArrayList<>();
+
+        private Builder() {}
+
+        /**
+         * @param ratio new shares per old share
+         */
+        public Builder addSplit(LocalDate exDate, double ratio) {
+            if (!(ratio > 0)) {
+                throw new IllegalArgumentException("Split ratio must be positive");
+            }
+            actions.add(new Action((int) exDate.toEpochDay(), ratio, 1));
+            return this;
+        }
+
+        /**
+         * @param factor price multiplier of the dividend, between 0 and 1
+         */
+        public Builder addDividend(LocalDate exDate, double factor) {
+            if (!(factor > 0 && factor <= 1)) {
+                throw new IllegalArgumentException(
+                    "Dividend factor must be in (0, 1]"
+                );
+            }
+            actions.add(new Action((int) exDate.toEpochDay(), 1, factor));
+            return this;
+        }
+
+        public AdjustmentFactors build() {
+            if (actions.isEmpty()) {
+                return NONE;
+            }
+
+            actions.sort(Comparator.comparingInt(Action::day));
+            int[] days = new int[actions.size()];
+            double[] ratios = new double[actions.size()];
+            double[] dividends = new double[actions.size()];
+            int count = 0;
+            int lastSplitDay = Integer.MIN_VALUE;
+            for (Action action : actions) {
+                if (count == 0 || days[count - 1] != action.day()) {
+                    days[count] = action.day();
+                    ratios[count] = 1;
+                    dividends[count] = 1;
+                    count++;
+                }
+                ratios[count - 1] *= action.ratio();
+                dividends[count - 1] *= action.dividend();
+                if (action.ratio() != 1) {
+                    lastSplitDay = action.day();
+                }
+            }
+
+            // Suffix products: slot i covers the days before ex-date i
+            double[] splitFactors = new double[count + 1];
+            double[] dividendFactors = new double[count + 1];
+            splitFactors[count] = 1;
+            dividendFactors[count] = 1;
+            for (int i = count - 1; i >= 0; i--) {
+                splitFactors[i] = splitFactors[i + 1] * ratios[i];
+                dividendFactors[i] = dividendFactors[i + 1] * dividends[i];
+            }
+            return new AdjustmentFactors(
+                Arrays.copyOf(days, count),
+                splitFactors,
+                dividendFactors,
+                lastSplitDay
+            );
+        }
+
+        private record Action(int day, double ratio, double dividend) {}
+    }
+}
@@ -0,0 +1,665 @@
+package com.stocknotebook.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Technical indicators of a {@link PriceSeries}, one row of values per point.
+ *
+ * All requested indicators are computed together in a single pass; each keeps
+ * O(window) state that is updated in O(1) per point. That state is kept, so
+ * {@link #catchUp} brings the values up to date with a series that has since
+ * gained points or had its last point replaced at O(1) per changed point
+ * instead of recomputing, with the same values a full computation gives. As
+ * in {@link PriceSeries}, settled rows live in shared append-only arrays and
+ * the last row beside them, so earlier instances never change. Instances
+ * share the indicator state of the one they were caught up from, so only the
+ * latest may be caught up again, by one thread at a time.
+ *
+ * Serializes like the series, with every point also carrying its indicator
+ * values, null while an indicator is still warming up.
+ */
+@JsonSerialize(using = IndicatorSeries.Serializer.class)
+public final class IndicatorSeries {
+
+    private static final double PRICE_UNIT = Math.pow(
+        10,
+        PriceSeries.PRICE_SCALE
+    );
+    private static final double BOLLINGER_WIDTH = 2;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final PriceSeries series;
+    private final IndicatorSpec spec;
+    private final List<String> names;
+    // Settled rows by column; the row of the last point is the tail
+    private final double[][] columns;
+    private final int bodyLength;
+    private final double[] tail;
+    private final Calculator calculator;
+
+    private IndicatorSeries(
+        PriceSeries series,
+        IndicatorSpec spec,
+        double[][] columns,
+        int bodyLength,
+        double[] tail,
+        Calculator calculator
+    ) {
+        this.series = series;
+        this.spec = spec;
+        this.names = spec.columnNames();
+        this.columns = columns;
+        this.bodyLength = bodyLength;
+        this.tail = tail;
+        this.calculator = calculator;
+    }
+
+    /**
+     * The series without indicators
+     */
+    public static IndicatorSeries plain(PriceSeries series) {
+        return new IndicatorSeries(
+            series,
+            IndicatorSpec.NONE,
+            new double[0][],
+            Math.max(0, series.size() - 1),
+            new double[0],
+            null
+        );
+    }
+
+    /**
+     * Compute the indicators over a whole series in one pass
+     */
+    public static IndicatorSeries compute(
+        PriceSeries series,
+        IndicatorSpec spec
+    ) {
+        if (spec.isEmpty()) {
+            return plain(series);
+        }
+
+        Calculator calculator = new Calculator(spec);
+        int size = series.size();
+        // Room for appends before the arrays have to grow
+        int capacity = size + (size >> 2) + INITIAL_CAPACITY;
+        double[][] columns = new double[calculator.width()][capacity];
+        double[] row = null;
+        for (int i = 0; i < size; i++) {
+            if (row != null) {
+                settle(columns, i - 1, row);
+            }
+            calculator.push(series.scaledPriceAt(i), series.rawVolumeAt(i));
+            row = calculator.row();
+        }
+        return new IndicatorSeries(
+            series,
+            spec,
+            columns,
+            Math.max(0, size - 1),
+            row,
+            calculator
+        );
+    }
+
+    /**
+     * Indicators of a later version of the series.
+     *
+     * When {@code latest} continues this series, with the same points and
+     * possibly a different last point, only the changed points are pushed
+     * through the kept state; otherwise everything is recomputed. A series
+     * that dropped leading points is recomputed as well, since the values of
+     * the kept points were warmed up on the dropped ones.
+     */
+    public IndicatorSeries catchUp(PriceSeries latest) {
+        if (latest == series) {
+            return this;
+        }
+        if (calculator == null) {
+            return plain(latest);
+        }
+
+        int size = series.size();
+        if (!continues(latest)) {
+            return compute(latest, spec);
+        }
+
+        double[][] body = columns;
+        int settled = size - 1;
+        double[] last = tail;
+        if (
+            latest.scaledPriceAt(size - 1) != series.scaledPriceAt(size - 1) ||
+            latest.rawVolumeAt(size - 1) != series.rawVolumeAt(size - 1)
+        ) {
+            calculator.replaceLast(
+                latest.scaledPriceAt(size - 1),
+                latest.rawVolumeAt(size - 1)
+            );
+            last = calculator.row();
+        }
+        for (int i = size; i < latest.size(); i++) {
+            if (settled == body[0].length) {
+                body = grow(body, settled);
+            }
+            settle(body, settled, last);
+            settled++;
+            calculator.push(latest.scaledPriceAt(i), latest.rawVolumeAt(i));
+            last = calculator.row();
+        }
+        return new IndicatorSeries(
+            latest,
+            spec,
+            body,
+            settled,
+            last,
+            calculator
+        );
+    }
+
+    public PriceSeries series() {
+        return series;
+    }
+
+    public IndicatorSpec spec() {
+        return spec;
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    /**
+     * Names of the indicator values, in column order
+     */
+    public List<String> names() {
+        return names;
+    }
+
+    /**
+     * Value of an indicator at a point, NaN while it is warming up
+     */
+    public double valueAt(int column, int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return index == bodyLength ? tail[column] : columns[column][index];
+    }
+
+    /**
+     * Whether {@code latest} starts with every point of this series, with at
+     * most the last one changed. All points are compared, as a split recorded
+     * for an earlier day changes every price before it: still far cheaper than
+     * recomputing.
+     */
+    private boolean continues(PriceSeries latest) {
+        int size = series.size();
+        if (size == 0 || latest.size() < size) {
+            return false;
+        }
+        if (latest.epochDayAt(size - 1) != series.epochDayAt(size - 1)) {
+            return false;
+        }
+        for (int i = 0; i < size - 1; i++) {
+            if (
+                latest.epochDayAt(i) != series.epochDayAt(i) ||
+                latest.scaledPriceAt(i) != series.scaledPriceAt(i) ||
+                latest.rawVolumeAt(i) != series.rawVolumeAt(i)
+            ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void settle(double[][] columns, int index, double[] row) {
+        for (int column = 0; column < columns.length; column++) {
+            columns[column][index] = row[column];
+        }
+    }
+
+    private static double[][] grow(double[][] columns, int length) {
+        int capacity = length + (length >> 1) + INITIAL_CAPACITY;
+        double[][] grown = new double[columns.length][capacity];
+        for (int column = 0; column < columns.length; column++) {
+            System.arraycopy(columns[column], 0, grown[column], 0, length);
+        }
+        return grown;
+    }
+
+    /**
+     * Incremental state of every requested indicator
+     */
+    private static final class Calculator {
+
+        private final List<Indicator> indicators = new ArrayList<>();
+        private final int width;
+
+        Calculator(IndicatorSpec spec) {
+            spec.sma().forEach(window -> indicators.add(new Sma(window)));
+            spec.ema().forEach(window -> indicators.add(new Ema(window)));
+            if (spec.rsi() != null) {
+                indicators.add(new Rsi(spec.rsi()));
+            }
+            if (spec.bollinger() != null) {
+                indicators.add(new Bollinger(spec.bollinger()));
+            }
+            if (spec.vwap()) {
+                indicators.add(new Vwap());
+            }
+            this.width = indicators.stream().mapToInt(Indicator::width).sum();
+        }
+
+        int width() {
+            return width;
+        }
+
+        void push(long scaledPrice, long volume) {
+            for (Indicator indicator : indicators) {
+                indicator.push(scaledPrice, volume);
+            }
+        }
+
+        void replaceLast(long scaledPrice, long volume) {
+            for (Indicator indicator : indicators) {
+                indicator.undo();
+                indicator.push(scaledPrice, volume);
+            }
+        }
+
+        double[] row() {
+            double[] row = new double[width];
+            int column = 0;
+            for (Indicator indicator : indicators) {
+                indicator.write(row, column);
+                column += indicator.width();
+            }
+            return row;
+        }
+    }
+
+    /**
+     * An indicator updated one point at a time. {@link #undo} reverts the
+     * last push.
+     */
+    private interface Indicator {
+        int width();
+
+        void push(long scaledPrice, long volume);
+
+        void undo();
+
+        void write(double[] row, int column);
+    }
+
+    /**
+     * The last {@code n} prices with their exact sum and the sum of squared
+     * deviations from the first price, which keeps the variance stable
+     */
+    private static final class Window {
+
+        private final long[] ring;
+        private int next;
+        private int count;
+        private long sum;
+        private double squares;
+        private long anchor;
+        private boolean anchored;
+
+        private long savedSlot;
+        private int savedNext;
+        private int savedCount;
+        private long savedSum;
+        private double savedSquares;
+
+        Window(int size) {
+            this.ring = new long[size];
+        }
+
+        void push(long price) {
+            savedSlot = ring[next];
+            savedNext = next;
+            savedCount = count;
+            savedSum = sum;
+            savedSquares = squares;
+
+            if (!anchored) {
+                anchor = price;
+                anchored = true;
+            }
+            if (count == ring.length) {
+                sum -= ring[next];
+                squares -= square(ring[next] - anchor);
+            } else {
+                count++;
+            }
+            ring[next] = price;
+            sum += price;
+            squares += square(price - anchor);
+            next = (next + 1) % ring.length;
+        }
+
+        void undo() {
+            ring[savedNext] = savedSlot;
+            next = savedNext;
+            count = savedCount;
+            sum = savedSum;
+            squares = savedSquares;
+        }
+
+        boolean isFull() {
+            return count == ring.length;
+        }
+
+        double mean() {
+            return (double) sum / count / PRICE_UNIT;
+        }
+
+        /**
+         * Population standard deviation
+         */
+        double deviation() {
+            double meanDeviation = (double) sum / count - anchor;
+            double variance =
+                squares / count - meanDeviation * meanDeviation;
+            return Math.sqrt(Math.max(0, variance)) / PRICE_UNIT;
+        }
+
+        private static double square(long value) {
+            return (double) value * value;
+        }
+    }
+
+    private static final class Sma implements Indicator {
+
+        private final Window window;
+
+        Sma(int size) {
+            this.window = new Window(size);
+        }
+
+        @Override
+        public int width() {
+            return 1;
+        }
+
+        @Override
+        public void push(long scaledPrice, long volume) {
+            window.push(scaledPrice);
+        }
+
+        @Override
+        public void undo() {
+            window.undo();
+        }
+
+        @Override
+        public void write(double[] row, int column) {
+            row[column] = window.isFull() ? window.mean() : Double.NaN;
+        }
+    }
+
+    /**
+     * Exponential moving average seeded with the simple average of the
+     * first {@code window} prices
+     */
+    private static final class Ema implements Indicator {
+
+        private final int window;
+        private final double alpha;
+        private int count;
+        private double seed;
+        private double ema;
+
+        private int savedCount;
+        private double savedSeed;
+        private double savedEma;
+
+        Ema(int window) {
+            this.window = window;
+            this.alpha = 2.0 / (window + 1);
+        }
+
+        @Override
+        public int width() {
+            return 1;
+        }
+
+        @Override
+        public void push(long scaledPrice, long volume) {
+            savedCount = count;
+            savedSeed = seed;
+            savedEma = ema;
+
+            double price = scaledPrice / PRICE_UNIT;
+            count++;
+            if (count < window) {
+                seed += price;
+            } else if (count == window) {
+                ema = (seed + price) / window;
+            } else {
+                ema += alpha * (price - ema);
+            }
+        }
+
+        @Override
+        public void undo() {
+            count = savedCount;
+            seed = savedSeed;
+            ema = savedEma;
+        }
+
+        @Override
+        public void write(double[] row, int column) {
+            row[column] = count >= window ? ema : Double.NaN;
+        }
+    }
+
+    /**
+     * Relative strength index with Wilder's smoothing
+     */
+    private static final class Rsi implements Indicator {
+
+        private final int period;
+        private boolean started;
+        private long previous;
+        private int changes;
+        private double gain;
+        private double loss;
+
+        private boolean savedStarted;
+        private long savedPrevious;
+        private int savedChanges;
+        private double savedGain;
+        private double savedLoss;
+
+        Rsi(int period) {
+            this.period = period;
+        }
+
+        @Override
+        public int width() {
+            return 1;
+        }
+
+        @Override
+        public void push(long scaledPrice, long volume) {
+            savedStarted = started;
+            savedPrevious = previous;
+            savedChanges = changes;
+            savedGain = gain;
+            savedLoss = loss;
+
+            if (!started) {
+                started = true;
+                previous = scaledPrice;
+                return;
+            }
+            double change = (scaledPrice - previous) / PRICE_UNIT;
+            previous = scaledPrice;
+            changes++;
+            if (changes <= period) {
+                // Simple averages over the first period, summed until then
+                gain += Math.max(change, 0);
+                loss += Math.max(-change, 0);
+                if (changes == period) {
+                    gain /= period;
+                    loss /= period;
+                }
+            } else {
+                gain = (gain * (period - 1) + Math.max(change, 0)) / period;
+                loss = (loss * (period - 1) + Math.max(-change, 0)) / period;
+            }
+        }
+
+        @Override
+        public void undo() {
+            started = savedStarted;
+            previous = savedPrevious;
+            changes = savedChanges;
+            gain = savedGain;
+            loss = savedLoss;
+        }
+
+        @Override
+        public void write(double[] row, int column) {
+            if (changes < period) {
+                row[column] = Double.NaN;
+            } else if (loss == 0) {
+                row[column] = gain == 0 ? 50 : 100;
+            } else {
+                row[column] = 100 - 100 / (1 + gain / loss);
+            }
+        }
+    }
+
+    /**
+     * Moving average with bands two standard deviations above and below
+     */
+    private static final class Bollinger implements Indicator {
+
+        private final Window window;
+
+        Bollinger(int size) {
+            this.window = new Window(size);
+        }
+
+        @Override
+        public int width() {
+            return 3;
+        }
+
+        @Override
+        public void push(long scaledPrice, long volume) {
+            window.push(scaledPrice);
+        }
+
+        @Override
+        public void undo() {
+            window.undo();
+        }
+
+        @Override
+        public void write(double[] row, int column) {
+            if (!window.isFull()) {
+                row[column] = Double.NaN;
+                row[column + 1] = Double.NaN;
+                row[column + 2] = Double.NaN;
+                return;
+            }
+            double middle = window.mean();
+            double width = BOLLINGER_WIDTH * window.deviation();
+            row[column] = middle;
+            row[column + 1] = middle + width;
+            row[column + 2] = middle - width;
+        }
+    }
+
+    /**
+     * Volume weighted average price from the first point of the series;
+     * points without volume are skipped
+     */
+    private static final class Vwap implements Indicator {
+
+        private double priceVolume;
+        private long volume;
+
+        private double savedPriceVolume;
+        private long savedVolume;
+
+        @Override
+        public int width() {
+            return 1;
+        }
+
+        @Override
+        public void push(long scaledPrice, long pointVolume) {
+            savedPriceVolume = priceVolume;
+            savedVolume = volume;
+
+            if (pointVolume != PriceSeries.NO_VOLUME && pointVolume > 0) {
+                priceVolume += scaledPrice / PRICE_UNIT * pointVolume;
+                volume += pointVolume;
+            }
+        }
+
+        @Override
+        public void undo() {
+            priceVolume = savedPriceVolume;
+            volume = savedVolume;
+        }
+
+        @Override
+        public void write(double[] row, int column) {
+            row[column] = volume > 0 ? priceVolume / volume : Double.NaN;
+        }
+    }
+
+    static final class Serializer extends JsonSerializer<IndicatorSeries> {
+
+        @Override
+        public void serialize(
+            IndicatorSeries indicators,
+            JsonGenerator generator,
+            SerializerProvider provider
+        ) throws IOException {
+            PriceSeries series = indicators.series();
+            List<String> names = indicators.names();
+            generator.writeStartArray(indicators, series.size());
+            for (int i = 0; i < series.size(); i++) {
+                generator.writeStartObject();
+                generator.writeStringField("date", series.dateAt(i).toString());
+                generator.writeNumberField("price", series.priceAt(i));
+                long volume = series.rawVolumeAt(i);
+                if (volume == PriceSeries.NO_VOLUME) {
+                    generator.writeNullField("volume");
+                } else {
+                    generator.writeNumberField("volume", volume);
+                }
+                for (int column = 0; column < names.size(); column++) {
+                    double value = indicators.valueAt(column, i);
+                    if (Double.isFinite(value)) {
+                        generator.writeNumberField(
+                            names.get(column),
+                            BigDecimal.valueOf(value).setScale(
+                                PriceSeries.PRICE_SCALE,
+                                RoundingMode.HALF_UP
+                            )
+                        );
+                    } else {
+                        generator.writeNullField(names.get(column));
+                    }
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.stocknotebook.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Technical indicators requested for a chart series
+ *
+ * @param sma simple moving average windows
+ * @param ema exponential moving average windows
+ * @param rsi relative strength index period, or null
+ * @param bollinger Bollinger band window, or null; bands are two standard
+ *     deviations from the moving average
+ * @param vwap whether to include the volume weighted average price
+ */
+public record IndicatorSpec(
+    List<Integer> sma,
+    List<Integer> ema,
+    Integer rsi,
+    Integer bollinger,
+    boolean vwap
+) {
+    public static final int MAX_WINDOW = 500;
+    public static final int MAX_AVERAGES = 10;
+
+    public static final IndicatorSpec NONE = new IndicatorSpec(
+        null,
+        null,
+        null,
+        null,
+        false
+    );
+
+    public IndicatorSpec {
+        sma = windows(sma);
+        ema = windows(ema);
+        if (sma.size() + ema.size() > MAX_AVERAGES) {
+            throw new IllegalArgumentException(
+                "At most " + MAX_AVERAGES + " moving averages can be requested"
+            );
+        }
+        sma.forEach(window -> requireWindow("sma", window, 1));
+        ema.forEach(window -> requireWindow("ema", window, 1));
+        if (rsi != null) {
+            requireWindow("rsi", rsi, 1);
+        }
+        if (bollinger != null) {
+            requireWindow("bollinger", bollinger, 2);
+        }
+    }
+
+    public boolean isEmpty() {
+        return (
+            sma.isEmpty() &&
+            ema.isEmpty() &&
+            rsi == null &&
+            bollinger == null &&
+            !vwap
+        );
+    }
+
+    /**
+     * Names of the values added to each point, in output order
+     */
+    public List<String> columnNames() {
+        List<String> names = new ArrayList<>();
+        sma.forEach(window -> names.add("sma" + window));
+        ema.forEach(window -> names.add("ema" + window));
+        if (rsi != null) {
+            names.add("rsi" + rsi);
+        }
+        if (bollinger != null) {
+            names.add("bbMiddle" + bollinger);
+            names.add("bbUpper" + bollinger);
+            names.add("bbLower" + bollinger);
+        }
+        if (vwap) {
+            names.add("vwap");
+        }
+        return names;
+    }
+
+    /**
+     * Canonical form, equal for equal requests
+     */
+    public String key() {
+        return String.join(",", columnNames());
+    }
+
+    private static List<Integer> windows(List<Integer> windows) {
+        return windows != null
+            ? windows
+                .stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList()
+            : List.of();
+    }
+
+    private static void requireWindow(String name, int window, int min) {
+        if (window < min || window > MAX_WINDOW) {
+            throw new IllegalArgumentException(
+                name + " window must be between " + min + " and " + MAX_WINDOW
+            );
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.stocknotebook.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable decimal amount for portfolio math, held as a scaled {@code long}.
+ *
+ * Results are exactly those of the equivalent {@link BigDecimal} operations,
+ * including their scale: addition and subtraction keep the larger scale,
+ * multiplying by a whole number keeps the scale, and only the divisions and
+ * currency conversions round, {@link RoundingMode#HALF_UP} to
+ * {@value #DIVISION_SCALE} decimal places. Amounts with more than
+ * {@value #MAX_SCALE} decimal places, and results that overflow a
+ * {@code long}, fall back to a {@code BigDecimal} internally, so no operation
+ * loses precision.
+ */
+public final class Money implements Comparable<Money> {
+
+    // Prices and amounts have up to 4 decimal places, FX rates 8
+    public static final int MAX_SCALE = 8;
+    public static final int DIVISION_SCALE = 4;
+
+    public static final Money ZERO = new Money(0, 0, null);
+    public static final Money ONE = new Money(1, 0, null);
+
+    private static final long[] POWERS_OF_TEN = {
+        1L,
+        10L,
+        100L,
+        1_000L,
+        10_000L,
+        100_000L,
+        1_000_000L,
+        10_000_000L,
+        100_000_000L,
+        1_000_000_000L,
+        10_000_000_000L,
+        100_000_000_000L,
+        1_000_000_000_000L,
+        10_000_000_000_000L,
+        100_000_000_000_000L,
+        1_000_000_000_000_000L,
+        10_000_000_000_000_000L,
+        100_000_000_000_000_000L,
+        1_000_000_000_000_000_000L,
+    };
+
+    private final long unscaled;
+    private final int scale;
+    // Set instead of unscaled and scale when the amount does not fit
+    private final BigDecimal big;
+
+    private Money(long unscaled, int scale, BigDecimal big) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    public static Money of(BigDecimal value) {
+        int scale = value.scale();
+        if (scale >= 0 && scale <= MAX_SCALE) {
+            try {
+                // Avoids unscaledValue(), which builds a BigInteger each call
+                return new Money(
+                    value.scaleByPowerOfTen(scale).longValueExact(),
+                    scale,
+                    null
+                );
+            } catch (ArithmeticException tooLarge) {
+                // fall through to BigDecimal
+            }
+        }
+        return new Money(0, 0, value);
+    }
+
+    public static Money of(long value) {
+        return value == 0 ? ZERO : new Money(value, 0, null);
+    }
+
+    public Money plus(Money other) {
+        if (big == null && other.big == null) {
+            int resultScale = Math.max(scale, other.scale);
+            try {
+                return new Money(
+                    Math.addExact(
+                        rescale(unscaled, resultScale - scale),
+                        rescale(other.unscaled, resultScale - other.scale)
+                    ),
+                    resultScale,
+                    null
+                );
+            } catch (ArithmeticException overflow) {
+                // fall through to BigDecimal
+            }
+        }
+        return of(toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    public Money minus(Money other) {
+        if (big == null && other.big == null) {
+            int resultScale = Math.max(scale, other.scale);
+            try {
+                return new Money(
+                    Math.subtractExact(
+                        rescale(unscaled, resultScale - scale),
+                        rescale(other.unscaled, resultScale - other.scale)
+                    ),
+                    resultScale,
+                    null
+                );
+            } catch (ArithmeticException overflow) {
+                // fall through to BigDecimal
+            }
+        }
+        return of(toBigDecimal().subtract(other.toBigDecimal()));
+    }
+
+    public Money negate() {
+        if (big == null && unscaled != Long.MIN_VALUE) {
+            return new Money(-unscaled, scale, null);
+        }
+        return of(toBigDecimal().negate());
+    }
+
+    public Money times(long factor) {
+        if (big == null) {
+            try {
+                return new Money(
+                    Math.multiplyExact(unscaled, factor),
+                    scale,
+                    null
+                );
+            } catch (ArithmeticException overflow) {
+                // fall through to BigDecimal
+            }
+        }
+        return of(toBigDecimal().multiply(BigDecimal.valueOf(factor)));
+    }
+
+    /**
+     * This amount converted at a rate, as
+     * {@code multiply(rate).setScale(4, HALF_UP)}
+     */
+    public Money convertedAt(Money rate) {
+        if (big == null && rate.big == null) {
+            try {
+                long product = Math.multiplyExact(unscaled, rate.unscaled);
+                int productScale = scale + rate.scale;
+                return new Money(
+                    productScale >= DIVISION_SCALE
+                        ? divideHalfUp(
+                            product,
+                            POWERS_OF_TEN[productScale - DIVISION_SCALE]
+                        )
+                        : rescale(product, DIVISION_SCALE - productScale),
+                    DIVISION_SCALE,
+                    null
+                );
+            } catch (ArithmeticException overflow) {
+                // fall through to BigDecimal
+            }
+        }
+        return of(
+            toBigDecimal()
+                .multiply(rate.toBigDecimal())
+                .setScale(DIVISION_SCALE, RoundingMode.HALF_UP)
+        );
+    }
+
+    /**
+     * This amount divided by a whole number, as
+     * {@code divide(valueOf(divisor), 4, HALF_UP)}
+     */
+    public Money dividedBy(long divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (big == null) {
+            try {
+                return new Money(
+                    quotient(unscaled, divisor, DIVISION_SCALE - scale),
+                    DIVISION_SCALE,
+                    null
+                );
+            } catch (ArithmeticException overflow) {
+                // fall through to BigDecimal
+            }
+        }
+        return of(
+            toBigDecimal().divide(
+                BigDecimal.valueOf(divisor),
+                DIVISION_SCALE,
+                RoundingMode.HALF_UP
+            )
+        );
+    }
+
+    /**
+     * This amount as a share of another, as
+     * {@code divide(base, 4, HALF_UP)}
+     */
+    public Money ratioTo(Money base) {
+        if (base.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (big == null && base.big == null) {
+            try {
+                // (a / 10^sa) / (b / 10^sb) * 10^4 = a * 10^(4 + sb - sa) / b
+                return new Money(
+                    quotient(
+                        unscaled,
+                        base.unscaled,
+                        DIVISION_SCALE + base.scale - scale
+                    ),
+                    DIVISION_SCALE,
+                    null
+                );
+            } catch (ArithmeticException overflow) {
+                // fall through to BigDecimal
+            }
+        }
+        return of(
+            toBigDecimal().divide(
+                base.toBigDecimal(),
+                DIVISION_SCALE,
+                RoundingMode.HALF_UP
+            )
+        );
+    }
+
+    /**
+     * This amount as a percentage of another, as
+     * {@code divide(base, 4, HALF_UP).multiply(valueOf(100))}; zero when the
+     * base is not positive
+     */
+    public Money percentOf(Money base) {
+        if (base.signum() <= 0) {
+            return ZERO;
+        }
+        if (big == null && base.big == null) {
+            try {
+                return new Money(
+                    Math.multiplyExact(
+                        quotient(
+                            unscaled,
+                            base.unscaled,
+                            DIVISION_SCALE + base.scale - scale
+                        ),
+                        100L
+                    ),
+                    DIVISION_SCALE,
+                    null
+                );
+            } catch (ArithmeticException overflow) {
+                // fall through to BigDecimal
+            }
+        }
+        return ratioTo(base).times(100);
+    }
+
+    public int signum() {
+        return big != null ? big.signum() : Long.signum(unscaled);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return big != null ? big : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        if (big == null && other.big == null && scale == other.scale) {
+            return Long.compare(unscaled, other.unscaled);
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    /**
+     * Equal in value and scale, like {@link BigDecimal#equals}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money other)) {
+            return false;
+        }
+        if (big == null && other.big == null) {
+            return unscaled == other.unscaled && scale == other.scale;
+        }
+        return toBigDecimal().equals(other.toBigDecimal());
+    }
+
+    @Override
+    public int hashCode() {
+        return toBigDecimal().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private static long rescale(long value, int extraDigits) {
+        return Math.multiplyExact(value, POWERS_OF_TEN[extraDigits]);
+    }
+
+    /**
+     * {@code dividend * 10^exponent / divisor} rounded half away from zero
+     */
+    private static long quotient(long dividend, long divisor, int exponent) {
+        return exponent >= 0
+            ? divideHalfUp(rescale(dividend, exponent), divisor)
+            : divideHalfUp(dividend, rescale(divisor, -exponent));
+    }
+
+    /**
+     * {@code dividend / divisor} rounded half away from zero
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        if (divisor == Long.MIN_VALUE) {
+            throw new ArithmeticException("Divisor out of range");
+        }
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder != 0 && remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend ^ divisor) < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
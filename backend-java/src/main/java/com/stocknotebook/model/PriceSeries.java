@@ -0,0 +1,537 @@
+package com.stocknotebook.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable, date-ordered price series stored in primitive arrays.
+ *
+ * Each point costs 20 bytes: an epoch day, a price scaled by
+ * 10^{@value #PRICE_SCALE} and a volume ({@link #NO_VOLUME} when unknown).
+ * {@link #slice} and {@link #between} return views over the same arrays, so
+ * sub-ranges are never copied.
+ *
+ * {@link #append} and {@link #replaceLast} return new series in amortized
+ * O(1): appends write into spare array capacity that no other view covers, and
+ * a replaced last point is kept beside the arrays instead of overwriting them,
+ * so earlier views never change.
+ *
+ * Serializes to the same JSON as a list of {@code {date, price, volume}}
+ * points.
+ */
+@JsonSerialize(using = PriceSeries.Serializer.class)
+@JsonDeserialize(using = PriceSeries.Deserializer.class)
+public final class PriceSeries {
+
+    public static final int PRICE_SCALE = 4;
+    public static final long NO_VOLUME = Long.MIN_VALUE;
+
+    private static final PriceSeries EMPTY = new PriceSeries(
+        new int[0],
+        new long[0],
+        new long[0],
+        new AtomicInteger(),
+        0,
+        0
+    );
+
+    private final int[] epochDays;
+    private final long[] prices;
+    private final long[] volumes;
+    // Slots written so far, shared by every view over the same arrays
+    private final AtomicInteger filled;
+    private final int offset;
+    // Points stored in the arrays; the last point may instead be the tail
+    private final int bodyLength;
+    private final int length;
+    private final boolean hasTail;
+    private final int tailEpochDay;
+    private final long tailPrice;
+    private final long tailVolume;
+
+    private PriceSeries(
+        int[] epochDays,
+        long[] prices,
+        long[] volumes,
+        AtomicInteger filled,
+        int offset,
+        int length
+    ) {
+        this(
+            epochDays,
+            prices,
+            volumes,
+            filled,
+            offset,
+            length,
+            false,
+            0,
+            0,
+            0
+        );
+    }
+
+    private PriceSeries(
+        int[] epochDays,
+        long[] prices,
+        long[] volumes,
+        AtomicInteger filled,
+        int offset,
+        int bodyLength,
+        boolean hasTail,
+        int tailEpochDay,
+        long tailPrice,
+        long tailVolume
+    ) {
+        this.epochDays = epochDays;
+        this.prices = prices;
+        this.volumes = volumes;
+        this.filled = filled;
+        this.offset = offset;
+        this.bodyLength = bodyLength;
+        this.length = bodyLength + (hasTail ? 1 : 0);
+        this.hasTail = hasTail;
+        this.tailEpochDay = tailEpochDay;
+        this.tailPrice = tailPrice;
+        this.tailVolume = tailVolume;
+    }
+
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Wrap date-ordered columns without copying. The caller must not modify
+     * the arrays afterwards.
+     */
+    public static PriceSeries wrap(int[] epochDays, long[] prices, long[] volumes) {
+        if (epochDays.length != prices.length || prices.length != volumes.length) {
+            throw new IllegalArgumentException(
+                "Price series columns must have the same length"
+            );
+        }
+        return epochDays.length == 0
+            ? EMPTY
+            : new PriceSeries(
+                epochDays,
+                prices,
+                volumes,
+                new AtomicInteger(epochDays.length),
+                0,
+                epochDays.length
+            );
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public int epochDayAt(int index) {
+        return isTail(checkIndex(index))
+            ? tailEpochDay
+            : epochDays[offset + index];
+    }
+
+    public LocalDate dateAt(int index) {
+        return LocalDate.ofEpochDay(epochDayAt(index));
+    }
+
+    /**
+     * Price scaled by 10^{@value #PRICE_SCALE}
+     */
+    public long scaledPriceAt(int index) {
+        return isTail(checkIndex(index)) ? tailPrice : prices[offset + index];
+    }
+
+    public BigDecimal priceAt(int index) {
+        return BigDecimal.valueOf(scaledPriceAt(index), PRICE_SCALE);
+    }
+
+    public double priceAsDoubleAt(int index) {
+        return scaledPriceAt(index) / 10_000.0;
+    }
+
+    /**
+     * Volume, or {@link #NO_VOLUME} when unknown
+     */
+    public long rawVolumeAt(int index) {
+        return isTail(checkIndex(index)) ? tailVolume : volumes[offset + index];
+    }
+
+    public Long volumeAt(int index) {
+        long volume = rawVolumeAt(index);
+        return volume == NO_VOLUME ? null : volume;
+    }
+
+    public LocalDate firstDate() {
+        return isEmpty() ? null : dateAt(0);
+    }
+
+    public LocalDate lastDate() {
+        return isEmpty() ? null : dateAt(length - 1);
+    }
+
+    /**
+     * View of the points in {@code [from, to)}
+     */
+    public PriceSeries slice(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException(
+                "Invalid slice [" + from + ", " + to + ") of " + length
+            );
+        }
+        if (from == 0 && to == length) {
+            return this;
+        }
+        if (from == to) {
+            return EMPTY;
+        }
+        if (hasTail && to == length) {
+            return new PriceSeries(
+                epochDays,
+                prices,
+                volumes,
+                filled,
+                offset + from,
+                bodyLength - from,
+                true,
+                tailEpochDay,
+                tailPrice,
+                tailVolume
+            );
+        }
+        return new PriceSeries(
+            epochDays,
+            prices,
+            volumes,
+            filled,
+            offset + from,
+            to - from
+        );
+    }
+
+    /**
+     * View of the points dated on or after {@code start}
+     */
+    public PriceSeries from(LocalDate start) {
+        return slice(lowerBound((int) start.toEpochDay()), length);
+    }
+
+    /**
+     * Series with a point added at the end, in amortized constant time
+     *
+     * @throws IllegalArgumentException if the point is dated before the last one
+     */
+    public PriceSeries append(int epochDay, long scaledPrice, long volume) {
+        if (length > 0 && epochDay < epochDayAt(length - 1)) {
+            throw new IllegalArgumentException(
+                "Price series points must be appended in date order"
+            );
+        }
+
+        // The tail has to be moved into the arrays along with the new point
+        int pending = hasTail ? 2 : 1;
+        int end = offset + bodyLength;
+        if (
+            end + pending <= epochDays.length &&
+            filled.compareAndSet(end, end + pending)
+        ) {
+            writeEnd(
+                epochDays,
+                prices,
+                volumes,
+                end,
+                epochDay,
+                scaledPrice,
+                volume
+            );
+            return new PriceSeries(
+                epochDays,
+                prices,
+                volumes,
+                filled,
+                offset,
+                length + 1
+            );
+        }
+
+        int size = length + 1;
+        int capacity = Math.max(size + (size >> 1), 8);
+        int[] newEpochDays = new int[capacity];
+        long[] newPrices = new long[capacity];
+        long[] newVolumes = new long[capacity];
+        System.arraycopy(epochDays, offset, newEpochDays, 0, bodyLength);
+        System.arraycopy(prices, offset, newPrices, 0, bodyLength);
+        System.arraycopy(volumes, offset, newVolumes, 0, bodyLength);
+        writeEnd(
+            newEpochDays,
+            newPrices,
+            newVolumes,
+            bodyLength,
+            epochDay,
+            scaledPrice,
+            volume
+        );
+        return new PriceSeries(
+            newEpochDays,
+            newPrices,
+            newVolumes,
+            new AtomicInteger(size),
+            0,
+            size
+        );
+    }
+
+    /**
+     * Series with its last point replaced, in constant time
+     *
+     * @throws IllegalArgumentException if the series is empty or the point is
+     *     dated before the one preceding the last
+     */
+    public PriceSeries replaceLast(int epochDay, long scaledPrice, long volume) {
+        if (length == 0) {
+            throw new IllegalArgumentException(
+                "Cannot replace the last point of an empty price series"
+            );
+        }
+        if (length > 1 && epochDay < epochDayAt(length - 2)) {
+            throw new IllegalArgumentException(
+                "Price series points must stay in date order"
+            );
+        }
+        return new PriceSeries(
+            epochDays,
+            prices,
+            volumes,
+            filled,
+            offset,
+            length - 1,
+            true,
+            epochDay,
+            scaledPrice,
+            volume
+        );
+    }
+
+    /**
+     * View of the points dated from {@code start} to {@code end}, inclusive
+     */
+    public PriceSeries between(LocalDate start, LocalDate end) {
+        int from = lowerBound((int) start.toEpochDay());
+        int to = lowerBound((int) end.toEpochDay() + 1);
+        return slice(from, Math.max(from, to));
+    }
+
+    /**
+     * Index of the first point dated on or after the given epoch day
+     */
+    private int lowerBound(int epochDay) {
+        int low = offset;
+        int high = offset + bodyLength;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int index = low - offset;
+        // The tail is dated on or after every point in the arrays
+        return index == bodyLength && hasTail && tailEpochDay < epochDay
+            ? index + 1
+            : index;
+    }
+
+    private boolean isTail(int index) {
+        return hasTail && index == bodyLength;
+    }
+
+    /**
+     * Write the tail, if any, and then the given point from {@code slot} on
+     */
+    private void writeEnd(
+        int[] targetEpochDays,
+        long[] targetPrices,
+        long[] targetVolumes,
+        int slot,
+        int epochDay,
+        long scaledPrice,
+        long volume
+    ) {
+        if (hasTail) {
+            targetEpochDays[slot] = tailEpochDay;
+            targetPrices[slot] = tailPrice;
+            targetVolumes[slot] = tailVolume;
+            slot++;
+        }
+        targetEpochDays[slot] = epochDay;
+        targetPrices[slot] = scaledPrice;
+        targetVolumes[slot] = volume;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(
+                "Index " + index + " out of bounds for length " + length
+            );
+        }
+        return index;
+    }
+
+    public static long scale(BigDecimal price) {
+        return price
+            .setScale(PRICE_SCALE, RoundingMode.HALF_UP)
+            .unscaledValue()
+            .longValueExact();
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "PriceSeries{size=" +
+            length +
+            ", from=" +
+            firstDate() +
+            ", to=" +
+            lastDate() +
+            '}'
+        );
+    }
+
+    /**
+     * Collects points in date order. Points sharing a date (intraday
+     * intervals) are kept.
+     */
+    public static final class Builder {
+
+        private int[] epochDays;
+        private long[] prices;
+        private long[] volumes;
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 8);
+            this.epochDays = new int[capacity];
+            this.prices = new long[capacity];
+            this.volumes = new long[capacity];
+        }
+
+        public Builder add(LocalDate date, BigDecimal price, Long volume) {
+            return add(
+                (int) date.toEpochDay(),
+                scale(price),
+                volume != null ? volume : NO_VOLUME
+            );
+        }
+
+        public Builder add(int epochDay, long scaledPrice, long volume) {
+            if (size > 0 && epochDay < epochDays[size - 1]) {
+                throw new IllegalArgumentException(
+                    "Price series points must be added in date order"
+                );
+            }
+            if (size == epochDays.length) {
+                int capacity = size + (size >> 1);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                volumes = Arrays.copyOf(volumes, capacity);
+            }
+            epochDays[size] = epochDay;
+            prices[size] = scaledPrice;
+            volumes[size] = volume;
+            size++;
+            return this;
+        }
+
+        /**
+         * Build the series, trimming the arrays when more than a quarter of
+         * their capacity is unused
+         */
+        public PriceSeries build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            if (size < epochDays.length - (epochDays.length >> 2)) {
+                epochDays = Arrays.copyOf(epochDays, size);
+                prices = Arrays.copyOf(prices, size);
+                volumes = Arrays.copyOf(volumes, size);
+            }
+            return new PriceSeries(
+                epochDays,
+                prices,
+                volumes,
+                new AtomicInteger(size),
+                0,
+                size
+            );
+        }
+    }
+
+    static final class Serializer extends JsonSerializer<PriceSeries> {
+
+        @Override
+        public void serialize(
+            PriceSeries series,
+            JsonGenerator generator,
+            SerializerProvider provider
+        ) throws IOException {
+            generator.writeStartArray(series, series.size());
+            for (int i = 0; i < series.size(); i++) {
+                generator.writeStartObject();
+                generator.writeStringField("date", series.dateAt(i).toString());
+                generator.writeNumberField("price", series.priceAt(i));
+                long volume = series.rawVolumeAt(i);
+                if (volume == NO_VOLUME) {
+                    generator.writeNullField("volume");
+                } else {
+                    generator.writeNumberField("volume", volume);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    static final class Deserializer extends JsonDeserializer<PriceSeries> {
+
+        @Override
+        public PriceSeries deserialize(
+            JsonParser parser,
+            DeserializationContext context
+        ) throws IOException {
+            JsonNode points = parser.getCodec().readTree(parser);
+            Builder builder = builder(points.size());
+            for (JsonNode point : points) {
+                JsonNode volume = point.path("volume");
+                builder.add(
+                    LocalDate.parse(point.path("date").asText()),
+                    point.path("price").decimalValue(),
+                    volume.isNumber() ? volume.asLong() : null
+                );
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.stocknotebook.repository;
+
+import com.stocknotebook.entity.CorporateAction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CorporateActionRepository extends JpaRepository<CorporateAction, UUID> {
+
+    /**
+     * Find the actions of several symbols that took effect up to a date
+     *
+     * @param symbols the upper-case stock symbols
+     * @param date the last ex-date included
+     * @return actions ordered by symbol and ex-date
+     */
+    @Query("SELECT c FROM CorporateAction c WHERE c.symbol IN :symbols AND c.exDate <= :date ORDER BY c.symbol, c.exDate")
+    List<CorporateAction> findEffectiveBySymbols(@Param("symbols") Collection<String> symbols,
+                                                 @Param("date") LocalDate date);
+
+    /**
+     * Find all actions of a symbol, latest first
+     */
+    List<CorporateAction> findBySymbolOrderByExDateDesc(String symbol);
+
+    /**
+     * Check if an action of a type is already recorded for a symbol and ex-date
+     */
+    boolean existsBySymbolAndTypeAndExDate(String symbol, CorporateAction.Type type, LocalDate exDate);
+}
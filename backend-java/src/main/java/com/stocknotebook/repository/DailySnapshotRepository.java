@@ -0,0 +1,384 @@
+package com.stocknotebook.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * JDBC access to the end-of-day snapshots in {@code daily_snapshots} and the
+ * days they were written for in {@code daily_snapshot_runs}.
+ *
+ * Amounts are stored in the base currency, or in the symbol's own currency
+ * while it has no FX rates; such rows are left out of the totals. Rows of a
+ * day are always replaced as a whole for a set of users, or for all days of
+ * one user's symbol, so a day never mixes old and new rows.
+ */
+@Repository
+public class DailySnapshotRepository {
+
+    private static final String DELETE_USERS_DAY_SQL = """
+        DELETE FROM daily_snapshots
+        WHERE user_id IN (:userIds) AND snapshot_date = :date
+        """;
+
+    private static final String DELETE_USER_SYMBOL_SQL = """
+        DELETE FROM daily_snapshots
+        WHERE user_id = :userId AND symbol = :symbol
+        """;
+
+    private static final String DELETE_SYMBOL_FROM_SQL = """
+        DELETE FROM daily_snapshots
+        WHERE symbol = :symbol AND snapshot_date >= :fromDate
+        """;
+
+    // Upserts, as a rebuild may run alongside the end-of-day job
+    private static final String INSERT_SQL = """
+        INSERT INTO daily_snapshots
+            (user_id, snapshot_date, symbol, quantity, market_value, cost,
+                currency)
+        VALUES (:userId, :date, :symbol, :quantity, :marketValue, :cost,
+            :currency)
+        ON CONFLICT (user_id, snapshot_date, symbol) DO UPDATE SET
+            quantity = EXCLUDED.quantity,
+            market_value = EXCLUDED.market_value,
+            cost = EXCLUDED.cost,
+            currency = EXCLUDED.currency
+        """;
+
+    // Serializes the rebuilds of a symbol across nodes until commit
+    private static final String LOCK_SYMBOL_SQL = """
+        SELECT pg_advisory_xact_lock(hashtext('daily_snapshots:' || :symbol))
+        """;
+
+    // Taken over only from a run that has been RUNNING since before the lease
+    private static final String CLAIM_RUN_SQL = """
+        INSERT INTO daily_snapshot_runs (snapshot_date, status)
+        VALUES (:date, 'RUNNING')
+        ON CONFLICT (snapshot_date) DO UPDATE SET
+            status = 'RUNNING',
+            user_count = 0,
+            failed_user_ids = '{}',
+            started_at = CURRENT_TIMESTAMP,
+            completed_at = NULL
+        WHERE daily_snapshot_runs.status = 'RUNNING'
+            AND daily_snapshot_runs.started_at < :staleBefore
+        """;
+
+    private static final String COMPLETE_RUN_SQL = """
+        UPDATE daily_snapshot_runs SET
+            status = :status,
+            user_count = :userCount,
+            failed_user_ids = CAST(:failedUserIds AS UUID[]),
+            completed_at = CURRENT_TIMESTAMP
+        WHERE snapshot_date = :date
+        """;
+
+    private static final String RUN_DATES_SQL = """
+        SELECT snapshot_date FROM daily_snapshot_runs
+        WHERE snapshot_date BETWEEN :startDate AND :endDate
+            AND status <> 'RUNNING'
+        ORDER BY snapshot_date
+        """;
+
+    private static final String LATEST_RUN_SQL = """
+        SELECT MAX(snapshot_date) FROM daily_snapshot_runs
+        WHERE snapshot_date <= :date
+            AND status <> 'RUNNING'
+            AND NOT (:userId = ANY(failed_user_ids))
+        """;
+
+    private static final String FIRST_MISSING_RUN_SQL = """
+        SELECT MIN(snapshot_date) FROM daily_snapshot_runs
+        WHERE snapshot_date BETWEEN :startDate AND :endDate
+            AND (status = 'RUNNING' OR :userId = ANY(failed_user_ids))
+        """;
+
+    private static final String POSITIONS_SQL = """
+        SELECT symbol, quantity, market_value, cost, currency
+        FROM daily_snapshots
+        WHERE user_id = :userId AND snapshot_date = :date
+        ORDER BY symbol
+        """;
+
+    private static final String TOTALS_SQL = """
+        SELECT
+            snapshot_date,
+            COALESCE(SUM(market_value), 0) AS market_value,
+            SUM(cost) AS cost
+        FROM daily_snapshots
+        WHERE user_id = :userId AND snapshot_date BETWEEN :startDate AND :endDate
+            AND currency IS NULL
+        GROUP BY snapshot_date
+        ORDER BY snapshot_date
+        """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public DailySnapshotRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * One held symbol of a user on a day
+     *
+     * @param marketValue value at that day's close, null without a price
+     * @param cost cost of the purchases made up to that day
+     * @param currency currency of the amounts when they could not be
+     *     converted, null when they are in the base currency
+     */
+    public record Position(
+        UUID userId,
+        LocalDate date,
+        String symbol,
+        long quantity,
+        BigDecimal marketValue,
+        BigDecimal cost,
+        String currency
+    ) {}
+
+    /**
+     * Sum of a user's converted positions on a day; unpriced positions add
+     * cost only
+     */
+    public record Total(LocalDate date, BigDecimal marketValue, BigDecimal cost) {}
+
+    /**
+     * Replace the rows of several users on one day in one batch
+     */
+    @Transactional
+    public void replaceDay(
+        Collection<UUID> userIds,
+        LocalDate date,
+        List<Position> positions
+    ) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(
+            DELETE_USERS_DAY_SQL,
+            new MapSqlParameterSource()
+                .addValue("userIds", userIds)
+                .addValue("date", Date.valueOf(date))
+        );
+        insert(positions);
+    }
+
+    /**
+     * Replace the rows of one user's symbol on every day, after any rebuild
+     * of the symbol running elsewhere has committed
+     */
+    @Transactional
+    public void replaceSymbol(
+        UUID userId,
+        String symbol,
+        List<Position> positions
+    ) {
+        lockSymbol(symbol);
+        jdbcTemplate.update(
+            DELETE_USER_SYMBOL_SQL,
+            new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("symbol", symbol)
+        );
+        insert(positions);
+    }
+
+    /**
+     * Replace the rows of a symbol of all users from a day on, after any
+     * rebuild of the symbol running elsewhere has committed
+     */
+    @Transactional
+    public void replaceSymbolFrom(
+        String symbol,
+        LocalDate fromDate,
+        List<Position> positions
+    ) {
+        lockSymbol(symbol);
+        jdbcTemplate.update(
+            DELETE_SYMBOL_FROM_SQL,
+            new MapSqlParameterSource()
+                .addValue("symbol", symbol)
+                .addValue("fromDate", Date.valueOf(fromDate))
+        );
+        insert(positions);
+    }
+
+    /**
+     * Claim the writing of a day for this node. Fails while another node holds
+     * the claim, unless that claim was taken before {@code staleBefore}, and
+     * once the day has been written.
+     *
+     * @return whether the day was claimed
+     */
+    public boolean claimRun(LocalDate date, Instant staleBefore) {
+        return (
+            jdbcTemplate.update(
+                CLAIM_RUN_SQL,
+                new MapSqlParameterSource()
+                    .addValue("date", Date.valueOf(date))
+                    .addValue("staleBefore", Timestamp.from(staleBefore))
+            ) >
+            0
+        );
+    }
+
+    /**
+     * Record that the rows of a claimed day were written, for all users but
+     * the failed ones
+     */
+    public void completeRun(
+        LocalDate date,
+        int userCount,
+        Collection<UUID> failedUserIds
+    ) {
+        jdbcTemplate.update(
+            COMPLETE_RUN_SQL,
+            new MapSqlParameterSource()
+                .addValue("date", Date.valueOf(date))
+                .addValue(
+                    "status",
+                    failedUserIds.isEmpty() ? "COMPLETE" : "PARTIAL"
+                )
+                .addValue("userCount", userCount)
+                .addValue(
+                    "failedUserIds",
+                    failedUserIds
+                        .stream()
+                        .map(UUID::toString)
+                        .collect(Collectors.joining(",", "{", "}"))
+                )
+        );
+    }
+
+    /**
+     * Days with completed snapshots within a range, oldest first
+     */
+    public List<LocalDate> findRunDates(LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.query(
+            RUN_DATES_SQL,
+            new MapSqlParameterSource()
+                .addValue("startDate", Date.valueOf(startDate))
+                .addValue("endDate", Date.valueOf(endDate)),
+            (rs, rowNum) -> rs.getDate("snapshot_date").toLocalDate()
+        );
+    }
+
+    /**
+     * Latest day with completed snapshots of a user on or before a date, or
+     * null
+     */
+    public LocalDate findLatestRunDate(UUID userId, LocalDate date) {
+        Date latest = jdbcTemplate.queryForObject(
+            LATEST_RUN_SQL,
+            new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("date", Date.valueOf(date)),
+            Date.class
+        );
+        return latest != null ? latest.toLocalDate() : null;
+    }
+
+    /**
+     * First day within a range whose snapshots of a user are missing or not
+     * yet complete, or null
+     */
+    public LocalDate findFirstMissingRunDate(
+        UUID userId,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        Date first = jdbcTemplate.queryForObject(
+            FIRST_MISSING_RUN_SQL,
+            new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("startDate", Date.valueOf(startDate))
+                .addValue("endDate", Date.valueOf(endDate)),
+            Date.class
+        );
+        return first != null ? first.toLocalDate() : null;
+    }
+
+    /**
+     * Positions of a user on a day, by symbol
+     */
+    public List<Position> findPositions(UUID userId, LocalDate date) {
+        return jdbcTemplate.query(
+            POSITIONS_SQL,
+            new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("date", Date.valueOf(date)),
+            (rs, rowNum) ->
+                new Position(
+                    userId,
+                    date,
+                    rs.getString("symbol"),
+                    rs.getLong("quantity"),
+                    rs.getBigDecimal("market_value"),
+                    rs.getBigDecimal("cost"),
+                    rs.getString("currency")
+                )
+        );
+    }
+
+    /**
+     * Totals of a user on each day with rows within a range, oldest first
+     */
+    public List<Total> findTotals(
+        UUID userId,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        return jdbcTemplate.query(
+            TOTALS_SQL,
+            new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("startDate", Date.valueOf(startDate))
+                .addValue("endDate", Date.valueOf(endDate)),
+            (rs, rowNum) ->
+                new Total(
+                    rs.getDate("snapshot_date").toLocalDate(),
+                    rs.getBigDecimal("market_value"),
+                    rs.getBigDecimal("cost")
+                )
+        );
+    }
+
+    private void lockSymbol(String symbol) {
+        jdbcTemplate.query(
+            LOCK_SYMBOL_SQL,
+            new MapSqlParameterSource().addValue("symbol", symbol),
+            rs -> null
+        );
+    }
+
+    private void insert(List<Position> positions) {
+        if (positions.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = positions
+            .stream()
+            .map(position ->
+                new MapSqlParameterSource()
+                    .addValue("userId", position.userId())
+                    .addValue("date", Date.valueOf(position.date()))
+                    .addValue("symbol", position.symbol())
+                    .addValue("quantity", position.quantity())
+                    .addValue("marketValue", position.marketValue())
+                    .addValue("cost", position.cost())
+                    .addValue("currency", position.currency())
+            )
+            .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+    }
+}
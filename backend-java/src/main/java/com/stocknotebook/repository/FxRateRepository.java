@@ -0,0 +1,111 @@
+package com.stocknotebook.repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC access to the daily FX rates in {@code fx_rates}, keyed by Yahoo
+ * Finance pair symbol ({@code USDEUR=X}) and stored at ten decimal places.
+ */
+@Repository
+public class FxRateRepository {
+
+    private static final int RATE_SCALE = 10;
+
+    private static final String QUOTES_SQL = """
+        SELECT pair, rate_date, rate
+        FROM fx_rates
+        WHERE pair IN (:pairs) AND rate_date BETWEEN :startDate AND :endDate
+        ORDER BY pair, rate_date
+        """;
+
+    // Fetched rates replace stored ones, which may be rounded
+    private static final String UPSERT_SQL = """
+        INSERT INTO fx_rates (pair, rate_date, rate)
+        VALUES (:pair, :date, :rate)
+        ON CONFLICT (pair, rate_date) DO UPDATE SET rate = EXCLUDED.rate
+        WHERE fx_rates.rate <> EXCLUDED.rate
+        """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public FxRateRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Rate of a pair on a day, in quote currency units per base unit
+     */
+    public record Quote(LocalDate date, double rate) {}
+
+    /**
+     * Quotes of several pairs within a range, oldest first; pairs without
+     * quotes are absent
+     */
+    public Map<String, List<Quote>> findQuotes(
+        Collection<String> pairs,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        if (pairs.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, List<Quote>> quotes = new HashMap<>();
+        jdbcTemplate.query(
+            QUOTES_SQL,
+            new MapSqlParameterSource()
+                .addValue("pairs", pairs)
+                .addValue("startDate", Date.valueOf(startDate))
+                .addValue("endDate", Date.valueOf(endDate)),
+            rs -> {
+                quotes
+                    .computeIfAbsent(rs.getString("pair"), pair ->
+                        new ArrayList<>()
+                    )
+                    .add(
+                        new Quote(
+                            rs.getDate("rate_date").toLocalDate(),
+                            rs.getBigDecimal("rate").doubleValue()
+                        )
+                    );
+            }
+        );
+        return quotes;
+    }
+
+    /**
+     * Insert or replace the quotes of a pair in one batch
+     */
+    public void upsertAll(String pair, List<Quote> quotes) {
+        if (quotes.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = quotes
+            .stream()
+            .map(quote ->
+                new MapSqlParameterSource()
+                    .addValue("pair", pair)
+                    .addValue("date", Date.valueOf(quote.date()))
+                    .addValue(
+                        "rate",
+                        BigDecimal.valueOf(quote.rate()).setScale(
+                            RATE_SCALE,
+                            RoundingMode.HALF_UP
+                        )
+                    )
+            )
+            .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+}
@@ -0,0 +1,35 @@
+package com.stocknotebook.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Projection of one symbol's purchases aggregated by the database, joined
+ * with the latest stored quote and the trading currency of that symbol. The
+ * quote columns are null when nothing is stored for the symbol, and the
+ * currency when the symbol has no metadata.
+ */
+public interface PositionAggregate {
+    String getSymbol();
+
+    Long getTotalQuantity();
+
+    BigDecimal getTotalCost();
+
+    BigDecimal getTotalCommission();
+
+    Long getPurchaseCount();
+
+    LocalDate getFirstPurchaseDate();
+
+    LocalDate getLastPurchaseDate();
+
+    BigDecimal getLatestPrice();
+
+    LocalDate getLatestPriceDate();
+
+    LocalDateTime getLatestPriceCreatedAt();
+
+    String getCurrency();
+}
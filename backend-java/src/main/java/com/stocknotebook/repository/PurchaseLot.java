@@ -0,0 +1,21 @@
+package com.stocknotebook.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Projection of a single purchase reduced to what valuing a position needs,
+ * with the symbol in upper case and the commission included in the cost
+ */
+public interface PurchaseLot {
+    UUID getUserId();
+
+    String getSymbol();
+
+    Long getQuantity();
+
+    BigDecimal getTotalCost();
+
+    LocalDate getPurchaseDate();
+}
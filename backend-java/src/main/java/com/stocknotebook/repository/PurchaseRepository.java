@@ -1,6 +1,7 @@
 package com.stocknotebook.repository;
 
 import com.stocknotebook.entity.Purchase;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -43,23 +45,156 @@ public interface PurchaseRepository extends JpaRepository<Purchase, UUID> {
     List<String> findDistinctSymbolsByUserId(@Param("userId") UUID userId);
 
     /**
-     * Get aggregated purchase data by symbol for a user
+     * Get the positions of a user aggregated by symbol, each joined with the
+     * latest stored quote and the currency of its symbol, in one statement
      *
      * @param userId the user ID
-     * @return list of objects containing symbol, total quantity, average price, and total spent
+     * @return one row per symbol with quantity, cost, commission, purchase dates and latest quote
      */
     @Query(value = """
         SELECT
-            p.symbol,
-            SUM(p.quantity) as total_quantity,
-            AVG(p.price_per_share) as avg_price,
-            SUM(p.quantity * p.price_per_share + p.commission) as total_spent
+            a.symbol AS "symbol",
+            a.total_quantity AS "totalQuantity",
+            a.total_cost AS "totalCost",
+            a.total_commission AS "totalCommission",
+            a.purchase_count AS "purchaseCount",
+            a.first_purchase_date AS "firstPurchaseDate",
+            a.last_purchase_date AS "lastPurchaseDate",
+            q.price AS "latestPrice",
+            q.data_date AS "latestPriceDate",
+            q.created_at AS "latestPriceCreatedAt",
+            m.currency AS "currency"
+        FROM (
+            SELECT
+                UPPER(p.symbol) AS symbol,
+                SUM(p.quantity) AS total_quantity,
+                SUM(p.quantity * p.price_per_share + p.commission) AS total_cost,
+                SUM(p.commission) AS total_commission,
+                COUNT(*) AS purchase_count,
+                MIN(p.purchase_date) AS first_purchase_date,
+                MAX(p.purchase_date) AS last_purchase_date
+            FROM purchases p
+            WHERE p.user_id = :userId
+            GROUP BY UPPER(p.symbol)
+        ) a
+        LEFT JOIN LATERAL (
+            SELECT s.price, s.data_date, s.created_at
+            FROM stock_data s
+            WHERE s.symbol = a.symbol
+            ORDER BY s.data_date DESC
+            LIMIT 1
+        ) q ON TRUE
+        LEFT JOIN symbols m ON m.symbol = a.symbol
+        ORDER BY a.symbol
+        """, nativeQuery = true)
+    List<PositionAggregate> findAggregatedPurchasesByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Get the position of a user in one symbol, aggregated and joined like
+     * {@link #findAggregatedPurchasesByUserId}
+     *
+     * @param userId the user ID
+     * @param symbol the upper-case stock symbol
+     * @return one row when the user holds the symbol, none otherwise
+     */
+    @Query(value = """
+        SELECT
+            a.symbol AS "symbol",
+            a.total_quantity AS "totalQuantity",
+            a.total_cost AS "totalCost",
+            a.total_commission AS "totalCommission",
+            a.purchase_count AS "purchaseCount",
+            a.first_purchase_date AS "firstPurchaseDate",
+            a.last_purchase_date AS "lastPurchaseDate",
+            q.price AS "latestPrice",
+            q.data_date AS "latestPriceDate",
+            q.created_at AS "latestPriceCreatedAt",
+            m.currency AS "currency"
+        FROM (
+            SELECT
+                UPPER(p.symbol) AS symbol,
+                SUM(p.quantity) AS total_quantity,
+                SUM(p.quantity * p.price_per_share + p.commission) AS total_cost,
+                SUM(p.commission) AS total_commission,
+                COUNT(*) AS purchase_count,
+                MIN(p.purchase_date) AS first_purchase_date,
+                MAX(p.purchase_date) AS last_purchase_date
+            FROM purchases p
+            WHERE p.user_id = :userId AND UPPER(p.symbol) = :symbol
+            GROUP BY UPPER(p.symbol)
+        ) a
+        LEFT JOIN LATERAL (
+            SELECT s.price, s.data_date, s.created_at
+            FROM stock_data s
+            WHERE s.symbol = a.symbol
+            ORDER BY s.data_date DESC
+            LIMIT 1
+        ) q ON TRUE
+        LEFT JOIN symbols m ON m.symbol = a.symbol
+        """, nativeQuery = true)
+    List<PositionAggregate> findAggregatedPurchasesByUserIdAndSymbol(@Param("userId") UUID userId,
+                                                                     @Param("symbol") String symbol);
+
+    /**
+     * Get the purchases of several users made up to a date, one lot per purchase
+     *
+     * @param userIds the user IDs
+     * @param date the last purchase date included
+     * @return lots ordered by user, symbol and purchase date
+     */
+    @Query(value = """
+        SELECT
+            p.user_id AS "userId",
+            UPPER(p.symbol) AS "symbol",
+            p.quantity AS "quantity",
+            p.quantity * p.price_per_share + p.commission AS "totalCost",
+            p.purchase_date AS "purchaseDate"
         FROM purchases p
-        WHERE p.user_id = :userId
-        GROUP BY p.symbol
-        ORDER BY p.symbol
+        WHERE p.user_id IN (:userIds) AND p.purchase_date <= :date
+        ORDER BY p.user_id, UPPER(p.symbol), p.purchase_date
+        """, nativeQuery = true)
+    List<PurchaseLot> findLotsByUserIdsUpTo(@Param("userIds") Collection<UUID> userIds,
+                                            @Param("date") LocalDate date);
+
+    /**
+     * Get the purchases of one symbol made by a user, one lot per purchase
+     *
+     * @param userId the user ID
+     * @param symbol the upper-case stock symbol
+     * @return lots ordered by purchase date
+     */
+    @Query(value = """
+        SELECT
+            p.user_id AS "userId",
+            UPPER(p.symbol) AS "symbol",
+            p.quantity AS "quantity",
+            p.quantity * p.price_per_share + p.commission AS "totalCost",
+            p.purchase_date AS "purchaseDate"
+        FROM purchases p
+        WHERE p.user_id = :userId AND UPPER(p.symbol) = :symbol
+        ORDER BY p.purchase_date
+        """, nativeQuery = true)
+    List<PurchaseLot> findLotsByUserIdAndSymbol(@Param("userId") UUID userId,
+                                                @Param("symbol") String symbol);
+
+    /**
+     * Get the purchases of one symbol made by all users, one lot per purchase
+     *
+     * @param symbol the upper-case stock symbol
+     * @return lots ordered by user and purchase date
+     */
+    @Query(value = """
+        SELECT
+            p.user_id AS "userId",
+            UPPER(p.symbol) AS "symbol",
+            p.quantity AS "quantity",
+            p.quantity * p.price_per_share + p.commission AS "totalCost",
+            p.purchase_date AS "purchaseDate"
+        FROM purchases p
+        WHERE UPPER(p.symbol) = :symbol
+        ORDER BY p.user_id, p.purchase_date
         """, nativeQuery = true)
-    List<Object[]> findAggregatedPurchasesByUserId(@Param("userId") UUID userId);
+    List<PurchaseLot> findLotsBySymbol(@Param("symbol") String symbol);
 
     /**
      * Find purchases within a date range
@@ -74,6 +209,19 @@ public interface PurchaseRepository extends JpaRepository<Purchase, UUID> {
                                           @Param("startDate") LocalDate startDate,
                                           @Param("endDate") LocalDate endDate);
 
+    /**
+     * Check whether a user made purchases after a date, up to another
+     *
+     * @param userId the user ID
+     * @param after the day before the first purchase date included
+     * @param date the last purchase date included
+     * @return true when at least one purchase falls in the range
+     */
+    @Query("SELECT COUNT(p) > 0 FROM Purchase p WHERE p.user.id = :userId AND p.purchaseDate > :after AND p.purchaseDate <= :date")
+    boolean existsByUserIdAndPurchaseDateBetween(@Param("userId") UUID userId,
+                                                 @Param("after") LocalDate after,
+                                                 @Param("date") LocalDate date);
+
     /**
      * Get total amount spent by a user
      *
@@ -139,6 +287,23 @@ public interface PurchaseRepository extends JpaRepository<Purchase, UUID> {
     @Query("SELECT DISTINCT p.symbol FROM Purchase p ORDER BY p.symbol")
     List<String> findAllUniqueSymbols();
 
+    /**
+     * Get the IDs of all users with at least one purchase
+     *
+     * @return user IDs in ascending order
+     */
+    @Query("SELECT DISTINCT p.user.id FROM Purchase p ORDER BY p.user.id")
+    List<UUID> findAllUserIds();
+
+    /**
+     * Get the symbols held by the most users
+     *
+     * @param pageable pagination information
+     * @return symbols ordered by number of distinct holders, descending
+     */
+    @Query("SELECT p.symbol FROM Purchase p GROUP BY p.symbol ORDER BY COUNT(DISTINCT p.user.id) DESC, p.symbol")
+    List<String> findMostHeldSymbols(Pageable pageable);
+
     /**
      * Get purchase statistics for a user
      *
@@ -9,12 +9,13 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface StockDataRepository extends JpaRepository<StockData, UUID> {
+public interface StockDataRepository extends JpaRepository<StockData, UUID>, StockDataRepositoryCustom {
 
     /**
      * Find the latest stock data for a symbol
@@ -72,7 +73,36 @@ public interface StockDataRepository extends JpaRepository<StockData, UUID> {
      * @return list of stock data for the symbols on the specified date
      */
     @Query("SELECT s FROM StockData s WHERE s.symbol IN :symbols AND s.dataDate = :date")
-    List<StockData> findBySymbolsAndDate(@Param("symbols") List<String> symbols, @Param("date") LocalDate date);
+    List<StockData> findBySymbolsAndDate(@Param("symbols") Collection<String> symbols, @Param("date") LocalDate date);
+
+    /**
+     * Find the latest stock data for each of the given symbols
+     *
+     * @param symbols list of stock symbols
+     * @return one row per symbol that has any data, the most recent one
+     */
+    @Query(value = """
+        SELECT DISTINCT ON (symbol) *
+        FROM stock_data
+        WHERE symbol IN (:symbols)
+        ORDER BY symbol, data_date DESC
+        """, nativeQuery = true)
+    List<StockData> findLatestBySymbols(@Param("symbols") Collection<String> symbols);
+
+    /**
+     * Get the version of stock data for a symbol within a date range:
+     * latest date, row count and last update time
+     *
+     * @param symbol the stock symbol
+     * @param startDate the start date
+     * @param endDate the end date
+     * @return version of the range; all fields are null or zero when empty
+     */
+    @Query("SELECT MAX(s.dataDate) AS latestDate, COUNT(s) AS rowCount, MAX(s.updatedAt) AS lastUpdated " +
+           "FROM StockData s WHERE s.symbol = :symbol AND s.dataDate BETWEEN :startDate AND :endDate")
+    StockDataVersion findVersionBySymbolAndDateRange(@Param("symbol") String symbol,
+                                                     @Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate);
 
     /**
      * Get the latest data date for a symbol
@@ -0,0 +1,46 @@
+package com.stocknotebook.repository;
+
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.model.PriceSeries;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Custom stock data operations that are not expressible as derived or JPQL queries
+ */
+public interface StockDataRepositoryCustom {
+
+    /**
+     * Insert or update stock data rows in a single JDBC batch.
+     * Rows are matched on the (symbol, data_date) natural key; an existing row
+     * gets the new price and keeps its volume when the new volume is null.
+     *
+     * @param stockData the rows to write
+     * @return number of rows written
+     */
+    int upsertAll(Collection<StockData> stockData);
+
+    /**
+     * Insert stock data rows in a single JDBC batch, skipping rows whose
+     * (symbol, data_date) already exists.
+     *
+     * @param stockData the rows to write
+     * @return number of rows actually inserted
+     */
+    int insertAllIfAbsent(Collection<StockData> stockData);
+
+    /**
+     * Load the stored prices of several symbols in one query, straight into
+     * primitive-backed series without materializing entities.
+     *
+     * @param symbols upper-case symbols
+     * @param startDate first date, inclusive
+     * @param endDate last date, inclusive
+     * @return series keyed by symbol; symbols without rows in the range are absent
+     */
+    Map<String, PriceSeries> findSeriesBySymbolsAndDateRange(Collection<String> symbols,
+                                                             LocalDate startDate,
+                                                             LocalDate endDate);
+}
@@ -0,0 +1,133 @@
+package com.stocknotebook.repository;
+
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.model.PriceSeries;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC backed implementation of {@link StockDataRepositoryCustom}
+ */
+public class StockDataRepositoryImpl implements StockDataRepositoryCustom {
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO stock_data (symbol, price, volume, data_date)
+        VALUES (?, ?, ?, ?)
+        ON CONFLICT (symbol, data_date) DO UPDATE SET
+            price = EXCLUDED.price,
+            volume = COALESCE(EXCLUDED.volume, stock_data.volume)
+        """;
+
+    private static final String INSERT_IF_ABSENT_SQL = """
+        INSERT INTO stock_data (symbol, price, volume, data_date)
+        VALUES (?, ?, ?, ?)
+        ON CONFLICT (symbol, data_date) DO NOTHING
+        """;
+
+    private static final String SERIES_SQL = """
+        SELECT symbol, data_date, price, volume
+        FROM stock_data
+        WHERE symbol IN (:symbols) AND data_date BETWEEN :startDate AND :endDate
+        ORDER BY symbol, data_date
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public StockDataRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    @Transactional
+    public int upsertAll(Collection<StockData> stockData) {
+        batchWrite(UPSERT_SQL, stockData);
+        return stockData.size();
+    }
+
+    @Override
+    @Transactional
+    public int insertAllIfAbsent(Collection<StockData> stockData) {
+        return Arrays.stream(batchWrite(INSERT_IF_ABSENT_SQL, stockData))
+            .map(count -> Math.max(count, 0))
+            .sum();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, PriceSeries> findSeriesBySymbolsAndDateRange(Collection<String> symbols,
+                                                                    LocalDate startDate,
+                                                                    LocalDate endDate) {
+        if (symbols.isEmpty()) {
+            return Map.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("symbols", symbols)
+            .addValue("startDate", Date.valueOf(startDate))
+            .addValue("endDate", Date.valueOf(endDate));
+
+        // Rows arrive grouped by symbol, so only one builder is open at a time
+        Map<String, PriceSeries.Builder> builders = new HashMap<>();
+        int expectedSize = (int) (endDate.toEpochDay() - startDate.toEpochDay() + 1);
+        namedParameterJdbcTemplate.query(SERIES_SQL, params, rs -> {
+            int epochDay = (int) rs.getDate("data_date").toLocalDate().toEpochDay();
+            long price = PriceSeries.scale(rs.getBigDecimal("price"));
+            long volume = rs.getLong("volume");
+            if (rs.wasNull()) {
+                volume = PriceSeries.NO_VOLUME;
+            }
+            builders
+                .computeIfAbsent(rs.getString("symbol"),
+                    symbol -> PriceSeries.builder(Math.min(expectedSize, 256)))
+                .add(epochDay, price, volume);
+        });
+
+        Map<String, PriceSeries> series = new HashMap<>();
+        builders.forEach((symbol, builder) -> series.put(symbol, builder.build()));
+        return series;
+    }
+
+    private int[] batchWrite(String sql, Collection<StockData> stockData) {
+        if (stockData.isEmpty()) {
+            return new int[0];
+        }
+
+        List<StockData> rows = new ArrayList<>(stockData);
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StockData row = rows.get(i);
+                ps.setString(1, row.getSymbol().toUpperCase().trim());
+                ps.setBigDecimal(2, row.getPrice());
+                if (row.getVolume() != null) {
+                    ps.setLong(3, row.getVolume());
+                } else {
+                    ps.setNull(3, Types.BIGINT);
+                }
+                ps.setDate(4, Date.valueOf(row.getDataDate()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+}
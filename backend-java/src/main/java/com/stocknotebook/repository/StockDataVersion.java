@@ -0,0 +1,16 @@
+package com.stocknotebook.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Projection describing how current a range of stock data is.
+ * Changes whenever a row in the range is added or updated.
+ */
+public interface StockDataVersion {
+    LocalDate getLatestDate();
+
+    Long getRowCount();
+
+    LocalDateTime getLastUpdated();
+}
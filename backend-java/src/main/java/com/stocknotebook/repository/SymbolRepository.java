@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +26,11 @@ public interface SymbolRepository extends JpaRepository<Symbol, UUID> {
      */
     Optional<Symbol> findBySymbolIgnoreCase(String symbol);
 
+    /**
+     * Find symbols by symbol codes
+     */
+    List<Symbol> findBySymbolIn(Collection<String> symbols);
+
     /**
      * Check if symbol exists
      */
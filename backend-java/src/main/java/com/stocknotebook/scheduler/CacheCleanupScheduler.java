@@ -0,0 +1,36 @@
+package com.stocknotebook.scheduler;
+
+import com.stocknotebook.cache.SharedCacheStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Purges expired entries from the shared cache table
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.scheduler.cache-cleanup.enabled",
+    havingValue = "true",
+    matchIfMissing = true
+)
+public class CacheCleanupScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        CacheCleanupScheduler.class
+    );
+
+    private final SharedCacheStore sharedCacheStore;
+
+    public CacheCleanupScheduler(SharedCacheStore sharedCacheStore) {
+        this.sharedCacheStore = sharedCacheStore;
+    }
+
+    @Scheduled(cron = "${app.scheduler.cache-cleanup.cron:0 0 2 * * *}")
+    public void purgeExpiredEntries() {
+        int purged = sharedCacheStore.purgeExpired();
+        log.info("Purged {} expired shared cache entries", purged);
+    }
+}
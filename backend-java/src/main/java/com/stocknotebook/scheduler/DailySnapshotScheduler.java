@@ -0,0 +1,32 @@
+package com.stocknotebook.scheduler;
+
+import com.stocknotebook.service.DailySnapshotService;
+import java.time.LocalDate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the end-of-day portfolio snapshots of all users after the close. The
+ * job fires on every node; {@link DailySnapshotService#writeSnapshots} lets
+ * only the node that claims the day write it.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.scheduler.daily-snapshot.enabled",
+    havingValue = "true",
+    matchIfMissing = true
+)
+public class DailySnapshotScheduler {
+
+    private final DailySnapshotService dailySnapshotService;
+
+    public DailySnapshotScheduler(DailySnapshotService dailySnapshotService) {
+        this.dailySnapshotService = dailySnapshotService;
+    }
+
+    @Scheduled(cron = "${app.scheduler.daily-snapshot.cron:0 0 17 * * MON-FRI}")
+    public void writeDailySnapshots() {
+        dailySnapshotService.writeSnapshots(LocalDate.now());
+    }
+}
@@ -0,0 +1,518 @@
+package com.stocknotebook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stocknotebook.cache.CacheInvalidationBus;
+import com.stocknotebook.cache.CacheNames;
+import com.stocknotebook.dto.request.CorporateActionRequestDTO;
+import com.stocknotebook.dto.response.CorporateActionDTO;
+import com.stocknotebook.entity.CorporateAction;
+import com.stocknotebook.event.AdjustmentFactorsChangedEvent;
+import com.stocknotebook.event.CacheEvictedEvent;
+import com.stocknotebook.event.CorporateActionRecordedEvent;
+import com.stocknotebook.model.AdjustmentFactors;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.repository.CorporateActionRepository;
+import com.stocknotebook.repository.PositionAggregate;
+import com.stocknotebook.repository.PurchaseLot;
+import com.stocknotebook.repository.PurchaseRepository;
+import com.stocknotebook.repository.StockDataRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Records splits and dividends and serves their cumulative adjustment factors.
+ *
+ * Stored prices and purchases stay as traded. The factors of each symbol are
+ * built once from its effective actions into an {@link AdjustmentFactors}
+ * step function and cached, so charts and portfolio computations adjust on
+ * the fly and a new action only drops one cache entry, on every node through
+ * the {@link CacheInvalidationBus}. Dividend factors use the stored close
+ * before each ex-date, loaded in one query per cache miss.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CorporateActionService {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        CorporateActionService.class
+    );
+
+    // How far back the close before a dividend's ex-date may be
+    private static final int LOOKBACK_DAYS = 14;
+
+    private final CorporateActionRepository corporateActionRepository;
+    private final StockDataRepository stockDataRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final Cache<String, AdjustmentFactors> factors;
+    private final Cache<String, AdjustedChart> adjustedCharts;
+
+    public CorporateActionService(
+        CorporateActionRepository corporateActionRepository,
+        StockDataRepository stockDataRepository,
+        PurchaseRepository purchaseRepository,
+        ApplicationEventPublisher eventPublisher,
+        CacheInvalidationBus cacheInvalidationBus,
+        CacheManager cacheManager,
+        @Value("${app.corporate-actions.max-symbols:10000}") long maxSymbols
+    ) {
+        this.corporateActionRepository = corporateActionRepository;
+        this.stockDataRepository = stockDataRepository;
+        this.purchaseRepository = purchaseRepository;
+        this.eventPublisher = eventPublisher;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.factors = nativeCache(cacheManager);
+        this.adjustedCharts = Caffeine.newBuilder()
+            .maximumSize(maxSymbols)
+            .build();
+    }
+
+    /**
+     * Adjustment factors of a symbol, {@link AdjustmentFactors#NONE} without
+     * actions
+     */
+    public AdjustmentFactors getFactors(String symbol) {
+        String upperSymbol = symbol.toUpperCase();
+        return getFactors(List.of(upperSymbol)).get(upperSymbol);
+    }
+
+    /**
+     * Adjustment factors of several symbols, keyed by upper-case symbol;
+     * missing ones are loaded together
+     */
+    public Map<String, AdjustmentFactors> getFactors(Collection<String> symbols) {
+        Set<String> upperSymbols = symbols
+            .stream()
+            .map(String::toUpperCase)
+            .collect(Collectors.toSet());
+        if (upperSymbols.isEmpty()) {
+            return Map.of();
+        }
+        return factors.getAll(upperSymbols, this::loadFactors);
+    }
+
+    /**
+     * Split-adjusted chart series. The adjusted copy is kept per chart key
+     * while the cached series and the value of the factors are unchanged, so
+     * repeated reads return the same instance.
+     */
+    public PriceSeries adjustChart(
+        String symbol,
+        String period,
+        PriceSeries series
+    ) {
+        AdjustmentFactors symbolFactors = getFactors(symbol);
+        if (symbolFactors.isEmpty()) {
+            return series;
+        }
+
+        String key = StockService.chartCacheKey(symbol, period);
+        AdjustedChart cached = adjustedCharts.getIfPresent(key);
+        if (
+            cached != null &&
+            cached.series() == series &&
+            cached.factors().equals(symbolFactors)
+        ) {
+            return cached.adjusted();
+        }
+        PriceSeries adjusted = symbolFactors.adjust(series, false);
+        adjustedCharts.put(
+            key,
+            new AdjustedChart(series, symbolFactors, adjusted)
+        );
+        return adjusted;
+    }
+
+    /**
+     * Positions of a user with quantities and latest prices in today's
+     * shares. Only positions with a split since their first purchase are
+     * touched; their lots are loaded to weight each by its own factor.
+     */
+    public List<PositionAggregate> adjustPositions(
+        UUID userId,
+        List<PositionAggregate> positions
+    ) {
+        if (positions.isEmpty()) {
+            return positions;
+        }
+
+        Map<String, AdjustmentFactors> symbolFactors = getFactors(
+            positions.stream().map(PositionAggregate::getSymbol).toList()
+        );
+        List<PositionAggregate> adjusted = new ArrayList<>(positions.size());
+        for (PositionAggregate position : positions) {
+            AdjustmentFactors positionFactors = symbolFactors.getOrDefault(
+                position.getSymbol().toUpperCase(),
+                AdjustmentFactors.NONE
+            );
+            boolean quantityAffected =
+                position.getFirstPurchaseDate() != null &&
+                positionFactors.hasSplitAfter(position.getFirstPurchaseDate());
+            boolean priceAffected =
+                position.getLatestPriceDate() != null &&
+                position.getLatestPrice() != null &&
+                positionFactors.hasSplitAfter(position.getLatestPriceDate());
+            if (!quantityAffected && !priceAffected) {
+                adjusted.add(position);
+                continue;
+            }
+
+            Long quantity = position.getTotalQuantity();
+            if (quantityAffected) {
+                List<PurchaseLot> lots =
+                    purchaseRepository.findLotsByUserIdAndSymbol(
+                        userId,
+                        position.getSymbol().toUpperCase()
+                    );
+                double units = 0;
+                for (PurchaseLot lot : lots) {
+                    units +=
+                        lot.getQuantity() *
+                        positionFactors.splitFactor(lot.getPurchaseDate());
+                }
+                // Fractional shares of reverse splits are paid out in cash
+                quantity = (long) Math.floor(units + 1e-9);
+            }
+            BigDecimal latestPrice = position.getLatestPrice();
+            if (priceAffected) {
+                latestPrice = latestPrice.divide(
+                    BigDecimal.valueOf(
+                        positionFactors.splitFactor(position.getLatestPriceDate())
+                    ),
+                    PriceSeries.PRICE_SCALE,
+                    RoundingMode.HALF_UP
+                );
+            }
+            adjusted.add(new AdjustedPosition(position, quantity, latestPrice));
+        }
+        return adjusted;
+    }
+
+    /**
+     * Actions recorded for a symbol, latest first
+     */
+    public List<CorporateActionDTO> getActions(String symbol) {
+        return corporateActionRepository
+            .findBySymbolOrderByExDateDesc(symbol.toUpperCase())
+            .stream()
+            .map(this::mapToDTO)
+            .toList();
+    }
+
+    /**
+     * Record a split or dividend. Its factors apply from the next read once
+     * the transaction commits.
+     */
+    @Transactional
+    public CorporateActionDTO recordAction(
+        String symbol,
+        CorporateActionRequestDTO request
+    ) {
+        String upperSymbol = symbol.toUpperCase().trim();
+        log.info(
+            "Recording {} of {} with ex-date {}",
+            request.type(),
+            upperSymbol,
+            request.exDate()
+        );
+
+        if (request.type() == CorporateAction.Type.SPLIT) {
+            if (request.ratio() == null || request.amount() != null) {
+                throw new IllegalArgumentException(
+                    "A split needs a ratio and no amount"
+                );
+            }
+        } else if (request.amount() == null || request.ratio() != null) {
+            throw new IllegalArgumentException(
+                "A dividend needs an amount and no ratio"
+            );
+        }
+        if (
+            corporateActionRepository.existsBySymbolAndTypeAndExDate(
+                upperSymbol,
+                request.type(),
+                request.exDate()
+            )
+        ) {
+            throw new IllegalArgumentException(
+                "A " +
+                request.type() +
+                " of " +
+                upperSymbol +
+                " is already recorded for " +
+                request.exDate()
+            );
+        }
+
+        CorporateAction saved = corporateActionRepository.save(
+            new CorporateAction(
+                upperSymbol,
+                request.type(),
+                request.exDate(),
+                request.ratio(),
+                request.amount()
+            )
+        );
+        eventPublisher.publishEvent(
+            new CorporateActionRecordedEvent(upperSymbol, request.exDate())
+        );
+        return mapToDTO(saved);
+    }
+
+    /**
+     * Drop the cached factors of the symbol on every node before other
+     * listeners rebuild with them
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCorporateActionRecorded(CorporateActionRecordedEvent event) {
+        cacheInvalidationBus.evict(
+            CacheNames.ADJUSTMENT_FACTORS,
+            event.symbol()
+        );
+    }
+
+    /**
+     * Tell the state adjusted with dropped factors, here or on another node,
+     * that it is stale
+     */
+    @EventListener
+    public void onCacheEvicted(CacheEvictedEvent event) {
+        if (CacheNames.ADJUSTMENT_FACTORS.equals(event.cacheName())) {
+            eventPublisher.publishEvent(
+                new AdjustmentFactorsChangedEvent(event.key())
+            );
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<String, AdjustmentFactors> nativeCache(
+        CacheManager cacheManager
+    ) {
+        CaffeineCache caffeineCache = (CaffeineCache) cacheManager.getCache(
+            CacheNames.ADJUSTMENT_FACTORS
+        );
+        return (Cache<String, AdjustmentFactors>) (Cache<?, ?>) caffeineCache
+            .getNativeCache();
+    }
+
+    private Map<String, AdjustmentFactors> loadFactors(
+        Set<? extends String> symbols
+    ) {
+        Map<String, List<CorporateAction>> bySymbol = corporateActionRepository
+            .findEffectiveBySymbols(List.copyOf(symbols), LocalDate.now())
+            .stream()
+            .collect(Collectors.groupingBy(CorporateAction::getSymbol));
+        Map<String, PriceSeries> closes = closesBeforeDividends(bySymbol);
+
+        Map<String, AdjustmentFactors> loaded = new HashMap<>();
+        for (String symbol : symbols) {
+            List<CorporateAction> actions = bySymbol.get(symbol);
+            if (actions == null) {
+                loaded.put(symbol, AdjustmentFactors.NONE);
+                continue;
+            }
+
+            AdjustmentFactors.Builder builder = AdjustmentFactors.builder();
+            for (CorporateAction action : actions) {
+                if (action.getType() == CorporateAction.Type.SPLIT) {
+                    builder.addSplit(
+                        action.getExDate(),
+                        action.getRatio().doubleValue()
+                    );
+                    continue;
+                }
+                double close = closeBefore(
+                    closes.get(symbol),
+                    action.getExDate()
+                );
+                double dividend = action.getAmount().doubleValue();
+                if (Double.isNaN(close) || dividend >= close) {
+                    log.debug(
+                        "No close before the {} dividend of {}, not adjusting for it",
+                        action.getExDate(),
+                        symbol
+                    );
+                    continue;
+                }
+                builder.addDividend(action.getExDate(), 1 - dividend / close);
+            }
+            loaded.put(symbol, builder.build());
+        }
+        log.debug("Loaded adjustment factors of {} symbols", symbols.size());
+        return loaded;
+    }
+
+    /**
+     * Stored prices around the dividends of the given actions, in one query
+     */
+    private Map<String, PriceSeries> closesBeforeDividends(
+        Map<String, List<CorporateAction>> bySymbol
+    ) {
+        Set<String> symbols = new HashSet<>();
+        LocalDate first = null;
+        LocalDate last = null;
+        for (List<CorporateAction> actions : bySymbol.values()) {
+            for (CorporateAction action : actions) {
+                if (action.getType() != CorporateAction.Type.DIVIDEND) {
+                    continue;
+                }
+                symbols.add(action.getSymbol());
+                if (first == null || action.getExDate().isBefore(first)) {
+                    first = action.getExDate();
+                }
+                if (last == null || action.getExDate().isAfter(last)) {
+                    last = action.getExDate();
+                }
+            }
+        }
+        if (symbols.isEmpty()) {
+            return Map.of();
+        }
+        return stockDataRepository.findSeriesBySymbolsAndDateRange(
+            symbols,
+            first.minusDays(LOOKBACK_DAYS),
+            last.minusDays(1)
+        );
+    }
+
+    /**
+     * Last close within the lookback before a day, NaN when there is none
+     */
+    private static double closeBefore(PriceSeries series, LocalDate date) {
+        if (series == null) {
+            return Double.NaN;
+        }
+        int day = (int) date.toEpochDay();
+        int low = 0;
+        int high = series.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (series.epochDayAt(mid) < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0 || series.epochDayAt(low - 1) < day - LOOKBACK_DAYS) {
+            return Double.NaN;
+        }
+        return series.priceAsDoubleAt(low - 1);
+    }
+
+    private CorporateActionDTO mapToDTO(CorporateAction action) {
+        return new CorporateActionDTO(
+            action.getSymbol(),
+            action.getType(),
+            action.getExDate(),
+            action.getRatio(),
+            action.getAmount()
+        );
+    }
+
+    private record AdjustedChart(
+        PriceSeries series,
+        AdjustmentFactors factors,
+        PriceSeries adjusted
+    ) {}
+
+    /**
+     * A position with its quantity and latest price replaced
+     */
+    private static final class AdjustedPosition implements PositionAggregate {
+
+        private final PositionAggregate source;
+        private final Long totalQuantity;
+        private final BigDecimal latestPrice;
+
+        AdjustedPosition(
+            PositionAggregate source,
+            Long totalQuantity,
+            BigDecimal latestPrice
+        ) {
+            this.source = source;
+            this.totalQuantity = totalQuantity;
+            this.latestPrice = latestPrice;
+        }
+
+        @Override
+        public String getSymbol() {
+            return source.getSymbol();
+        }
+
+        @Override
+        public Long getTotalQuantity() {
+            return totalQuantity;
+        }
+
+        @Override
+        public BigDecimal getTotalCost() {
+            return source.getTotalCost();
+        }
+
+        @Override
+        public BigDecimal getTotalCommission() {
+            return source.getTotalCommission();
+        }
+
+        @Override
+        public Long getPurchaseCount() {
+            return source.getPurchaseCount();
+        }
+
+        @Override
+        public LocalDate getFirstPurchaseDate() {
+            return source.getFirstPurchaseDate();
+        }
+
+        @Override
+        public LocalDate getLastPurchaseDate() {
+            return source.getLastPurchaseDate();
+        }
+
+        @Override
+        public BigDecimal getLatestPrice() {
+            return latestPrice;
+        }
+
+        @Override
+        public LocalDate getLatestPriceDate() {
+            return source.getLatestPriceDate();
+        }
+
+        @Override
+        public LocalDateTime getLatestPriceCreatedAt() {
+            return source.getLatestPriceCreatedAt();
+        }
+
+        @Override
+        public String getCurrency() {
+            return source.getCurrency();
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.stocknotebook.service;
+
+import com.stocknotebook.dto.response.PortfolioAsOfDTO;
+import com.stocknotebook.entity.Symbol;
+import com.stocknotebook.event.CorporateActionRecordedEvent;
+import com.stocknotebook.event.PurchaseChangedEvent;
+import com.stocknotebook.model.AdjustmentFactors;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.repository.DailySnapshotRepository;
+import com.stocknotebook.repository.PurchaseLot;
+import com.stocknotebook.repository.PurchaseRepository;
+import com.stocknotebook.repository.StockDataRepository;
+import com.stocknotebook.repository.SymbolRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Writes and reads end-of-day portfolio snapshots.
+ *
+ * After the close every user's positions are valued once and stored in
+ * {@code daily_snapshots}, a batch of users per round trip: one query for
+ * their purchases, one for the closing prices of all their symbols and one
+ * batched insert. Asking for a past day's value is then a lookup of one day's
+ * rows, and {@link PortfolioHistoryEngine} reads stored totals instead of
+ * replaying purchases and prices.
+ *
+ * When a purchase changes, the stored rows of that user's symbol are rebuilt
+ * for every snapshot day, so backdated purchases are reflected as well. The
+ * rebuild runs on the task executor once the change has committed, so the
+ * request neither waits for it nor holds a second connection meanwhile.
+ * Quantities are in the shares of each day; a split or dividend recorded late
+ * rebuilds the symbol's rows from its ex-date for all holders.
+ */
+@Service
+public class DailySnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        DailySnapshotService.class
+    );
+
+    // Prices loaded before the first day so it has a close to carry
+    private static final int LOOKBACK_DAYS = 14;
+    // Snapshots at most this much older than the requested day still answer
+    // it, unless a purchase was made in between
+    private static final int MAX_SNAPSHOT_AGE_DAYS = 4;
+
+    private final PurchaseRepository purchaseRepository;
+    private final StockDataRepository stockDataRepository;
+    private final SymbolRepository symbolRepository;
+    private final DailySnapshotRepository dailySnapshotRepository;
+    private final FxRateTable fxRateTable;
+    private final CorporateActionService corporateActionService;
+    private final int batchSize;
+    private final Duration lease;
+
+    public DailySnapshotService(
+        PurchaseRepository purchaseRepository,
+        StockDataRepository stockDataRepository,
+        SymbolRepository symbolRepository,
+        DailySnapshotRepository dailySnapshotRepository,
+        FxRateTable fxRateTable,
+        CorporateActionService corporateActionService,
+        @Value("${app.portfolio.daily-snapshot-batch-size:500}") int batchSize,
+        @Value("${app.portfolio.daily-snapshot-lease:3600}") long lease
+    ) {
+        this.purchaseRepository = purchaseRepository;
+        this.stockDataRepository = stockDataRepository;
+        this.symbolRepository = symbolRepository;
+        this.dailySnapshotRepository = dailySnapshotRepository;
+        this.fxRateTable = fxRateTable;
+        this.corporateActionService = corporateActionService;
+        this.batchSize = Math.max(1, batchSize);
+        this.lease = Duration.ofSeconds(lease);
+    }
+
+    /**
+     * Write the snapshots of all users for a day. Every node runs the job, so
+     * the day is claimed first and left to the node that claimed it; a claim
+     * older than {@code daily-snapshot-lease} is taken over. Users whose rows
+     * fail to write are recorded with the run, and their reads of the day are
+     * computed instead.
+     *
+     * @return number of positions written, 0 when another node has the day
+     */
+    public int writeSnapshots(LocalDate date) {
+        if (
+            !dailySnapshotRepository.claimRun(
+                date,
+                Instant.now().minus(lease)
+            )
+        ) {
+            log.info("Snapshots for {} are written by another node", date);
+            return 0;
+        }
+
+        long started = System.currentTimeMillis();
+        List<UUID> userIds = purchaseRepository.findAllUserIds();
+        List<UUID> failed = new ArrayList<>();
+        int written = 0;
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<UUID> batch = userIds.subList(
+                from,
+                Math.min(from + batchSize, userIds.size())
+            );
+            try {
+                written += writeBatch(batch, date);
+            } catch (RuntimeException e) {
+                log.warn(
+                    "Failed to write snapshots of {} users for {}, retrying them one by one: {}",
+                    batch.size(),
+                    date,
+                    e.getMessage()
+                );
+                // Keep one bad user from leaving out the rest of the batch
+                for (UUID userId : batch) {
+                    try {
+                        written += writeBatch(List.of(userId), date);
+                    } catch (RuntimeException userFailure) {
+                        failed.add(userId);
+                    }
+                }
+            }
+        }
+        dailySnapshotRepository.completeRun(date, userIds.size(), failed);
+
+        if (!failed.isEmpty()) {
+            log.warn(
+                "Snapshots for {} are missing {} of {} users, computed on read instead",
+                date,
+                failed.size(),
+                userIds.size()
+            );
+        }
+        log.info(
+            "Wrote {} snapshot positions of {} users for {} in {} ms",
+            written,
+            userIds.size() - failed.size(),
+            date,
+            System.currentTimeMillis() - started
+        );
+        return written;
+    }
+
+    private int writeBatch(List<UUID> userIds, LocalDate date) {
+        List<DailySnapshotRepository.Position> positions = valuate(
+            purchaseRepository.findLotsByUserIdsUpTo(userIds, date),
+            List.of(date)
+        );
+        dailySnapshotRepository.replaceDay(userIds, date, positions);
+        return positions.size();
+    }
+
+    /**
+     * Rebuild the stored rows of a user's symbol once the change is committed,
+     * in the background as it spans every snapshot day
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchaseChanged(PurchaseChangedEvent event) {
+        if (event.symbol() == null) {
+            return;
+        }
+
+        try {
+            List<PurchaseLot> lots =
+                purchaseRepository.findLotsByUserIdAndSymbol(
+                    event.userId(),
+                    event.symbol()
+                );
+            List<LocalDate> days = lots.isEmpty()
+                ? List.of()
+                : dailySnapshotRepository.findRunDates(
+                    lots.get(0).getPurchaseDate(),
+                    LocalDate.now()
+                );
+            dailySnapshotRepository.replaceSymbol(
+                event.userId(),
+                event.symbol(),
+                valuate(lots, days)
+            );
+        } catch (RuntimeException e) {
+            log.warn(
+                "Failed to rebuild snapshots of {} for user {}: {}",
+                event.symbol(),
+                event.userId(),
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Rebuild the stored rows of a symbol from the ex-date of a recorded
+     * split or dividend, for every holder, in the background
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCorporateActionRecorded(CorporateActionRecordedEvent event) {
+        try {
+            List<LocalDate> days = dailySnapshotRepository.findRunDates(
+                event.exDate(),
+                LocalDate.now()
+            );
+            if (days.isEmpty()) {
+                return;
+            }
+            dailySnapshotRepository.replaceSymbolFrom(
+                event.symbol(),
+                event.exDate(),
+                valuate(purchaseRepository.findLotsBySymbol(event.symbol()), days)
+            );
+        } catch (RuntimeException e) {
+            log.warn(
+                "Failed to rebuild snapshots of {} after a corporate action: {}",
+                event.symbol(),
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Value of a user's portfolio at the close of a past day, read from the
+     * latest snapshot on or before it, or computed when there is none or a
+     * purchase was made after the snapshot day
+     */
+    public PortfolioAsOfDTO getAsOf(UUID userId, LocalDate date) {
+        LocalDate today = LocalDate.now();
+        if (date.isAfter(today)) {
+            throw new IllegalArgumentException("Date must not be in the future");
+        }
+
+        LocalDate runDate = dailySnapshotRepository.findLatestRunDate(
+            userId,
+            date
+        );
+        if (
+            runDate != null &&
+            (runDate.equals(date) ||
+                (date.isBefore(today) &&
+                    !runDate.isBefore(date.minusDays(MAX_SNAPSHOT_AGE_DAYS)) &&
+                    !purchaseRepository.existsByUserIdAndPurchaseDateBetween(
+                        userId,
+                        runDate,
+                        date
+                    )))
+        ) {
+            return toAsOf(
+                date,
+                runDate,
+                dailySnapshotRepository.findPositions(userId, runDate)
+            );
+        }
+
+        log.debug("No snapshot for user {} on {}, computing it", userId, date);
+        return toAsOf(
+            date,
+            date,
+            valuate(
+                purchaseRepository.findLotsByUserIdsUpTo(List.of(userId), date),
+                List.of(date)
+            )
+        );
+    }
+
+    /**
+     * Value every position of the lots' users on each of the given days,
+     * oldest first. Positions whose currency has no rates keep their amounts
+     * in that currency.
+     */
+    private List<DailySnapshotRepository.Position> valuate(
+        List<PurchaseLot> lots,
+        List<LocalDate> days
+    ) {
+        if (lots.isEmpty() || days.isEmpty()) {
+            return List.of();
+        }
+
+        Map<PositionKey, List<PurchaseLot>> byPosition = lots
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    lot -> new PositionKey(lot.getUserId(), lot.getSymbol()),
+                    LinkedHashMap::new,
+                    Collectors.toList()
+                )
+            );
+        Set<String> symbols = byPosition
+            .keySet()
+            .stream()
+            .map(PositionKey::symbol)
+            .collect(Collectors.toSet());
+        Map<String, String> currencies = new HashMap<>();
+        for (Symbol symbol : symbolRepository.findBySymbolIn(symbols)) {
+            currencies.put(symbol.getSymbol(), symbol.getCurrency());
+        }
+
+        LocalDate firstDay = days.get(0);
+        LocalDate lastDay = days.get(days.size() - 1);
+        Map<String, PriceSeries> series =
+            stockDataRepository.findSeriesBySymbolsAndDateRange(
+                symbols,
+                firstDay.minusDays(LOOKBACK_DAYS),
+                lastDay
+            );
+        LocalDate firstPurchaseDate = lots
+            .stream()
+            .map(PurchaseLot::getPurchaseDate)
+            .min(LocalDate::compareTo)
+            .orElse(firstDay);
+        FxRateTable.Rates rates = fxRateTable.rates(
+            currencies.values(),
+            firstPurchaseDate
+        );
+        Map<String, AdjustmentFactors> factors =
+            corporateActionService.getFactors(symbols);
+
+        List<DailySnapshotRepository.Position> positions = new ArrayList<>();
+        Set<String> unconverted = new TreeSet<>();
+        byPosition.forEach((key, positionLots) -> {
+            String currency = currencies.get(key.symbol());
+            boolean convertible =
+                rates.isBase(currency) ||
+                !Double.isNaN(rates.rate(currency, lastDay));
+            if (!convertible) {
+                unconverted.add(key.symbol());
+            }
+            valuate(
+                key,
+                positionLots,
+                series.get(key.symbol()),
+                factors.getOrDefault(key.symbol(), AdjustmentFactors.NONE),
+                convertible && !rates.isBase(currency) ? currency : null,
+                convertible ? null : currency.toUpperCase(),
+                rates,
+                days,
+                positions
+            );
+        });
+        if (!unconverted.isEmpty()) {
+            log.warn("No FX rates for {}, keeping them unconverted", unconverted);
+        }
+        return positions;
+    }
+
+    /**
+     * Value one position on each day in that day's shares, converted from its
+     * currency unless that is null, or kept in the unconverted currency. Lots
+     * must be ordered by purchase date.
+     */
+    private static void valuate(
+        PositionKey key,
+        List<PurchaseLot> lots,
+        PriceSeries prices,
+        AdjustmentFactors factors,
+        String currency,
+        String unconvertedCurrency,
+        FxRateTable.Rates rates,
+        List<LocalDate> days,
+        List<DailySnapshotRepository.Position> positions
+    ) {
+        int pricesSize = prices != null ? prices.size() : 0;
+        int priceIndex = 0;
+        int lotIndex = 0;
+        long price = 0;
+        boolean priced = false;
+        boolean split = factors.hasSplitAfter(lots.get(0).getPurchaseDate());
+        long quantity = 0;
+        // Quantity in today's shares, only tracked across splits
+        double units = 0;
+        long cost = 0;
+        for (LocalDate date : days) {
+            int day = (int) date.toEpochDay();
+            while (
+                priceIndex < pricesSize && prices.epochDayAt(priceIndex) <= day
+            ) {
+                price = prices.scaledPriceAt(priceIndex++);
+                priced = true;
+            }
+            while (
+                lotIndex < lots.size() &&
+                !lots.get(lotIndex).getPurchaseDate().isAfter(date)
+            ) {
+                PurchaseLot lot = lots.get(lotIndex++);
+                long lotCost = PriceSeries.scale(lot.getTotalCost());
+                quantity += lot.getQuantity();
+                if (split) {
+                    units +=
+                        lot.getQuantity() *
+                        factors.splitFactor(lot.getPurchaseDate());
+                }
+                cost += currency == null
+                    ? lotCost
+                    : Math.round(
+                        lotCost * rates.rate(currency, lot.getPurchaseDate())
+                    );
+            }
+            if (quantity == 0) {
+                continue;
+            }
+
+            double held = split ? units / factors.splitFactor(day) : quantity;
+            Long value = null;
+            if (priced && currency == null && !split) {
+                value = quantity * price;
+            } else if (priced) {
+                double rate = currency == null ? 1 : rates.rate(currency, day);
+                value = Math.round(held * price * rate);
+            }
+            positions.add(
+                new DailySnapshotRepository.Position(
+                    key.userId(),
+                    date,
+                    key.symbol(),
+                    split ? Math.round(held) : quantity,
+                    value != null ? toAmount(value) : null,
+                    toAmount(cost),
+                    unconvertedCurrency
+                )
+            );
+        }
+    }
+
+    private PortfolioAsOfDTO toAsOf(
+        LocalDate date,
+        LocalDate valuationDate,
+        List<DailySnapshotRepository.Position> stored
+    ) {
+        BigDecimal totalValue = BigDecimal.ZERO;
+        BigDecimal totalCost = BigDecimal.ZERO;
+        BigDecimal totalGainLoss = BigDecimal.ZERO;
+        List<PortfolioAsOfDTO.Position> positions = new ArrayList<>();
+        for (DailySnapshotRepository.Position position : stored) {
+            BigDecimal cost = toMoney(position.cost());
+            BigDecimal value = toMoney(position.marketValue());
+            BigDecimal gainLoss = value != null ? value.subtract(cost) : null;
+            // Unconverted positions cannot be added to the totals
+            if (position.currency() == null) {
+                totalCost = totalCost.add(cost);
+                if (value != null) {
+                    totalValue = totalValue.add(value);
+                    totalGainLoss = totalGainLoss.add(gainLoss);
+                }
+            }
+            positions.add(
+                new PortfolioAsOfDTO.Position(
+                    position.symbol(),
+                    position.quantity(),
+                    value,
+                    cost,
+                    gainLoss,
+                    position.currency() != null
+                        ? position.currency()
+                        : fxRateTable.baseCurrency()
+                )
+            );
+        }
+        return new PortfolioAsOfDTO(
+            date,
+            valuationDate,
+            fxRateTable.baseCurrency(),
+            totalValue,
+            totalCost,
+            totalGainLoss,
+            positions
+        );
+    }
+
+    private static BigDecimal toAmount(long scaled) {
+        return BigDecimal.valueOf(scaled, PriceSeries.PRICE_SCALE);
+    }
+
+    private static BigDecimal toMoney(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP) : null;
+    }
+
+    private record PositionKey(UUID userId, String symbol) {}
+}
@@ -0,0 +1,139 @@
+package com.stocknotebook.service;
+
+import com.stocknotebook.dto.response.DashboardResponseDTO;
+import com.stocknotebook.dto.response.PortfolioPositionDTO;
+import com.stocknotebook.dto.response.PortfolioSummaryDTO;
+import com.stocknotebook.dto.response.PurchaseResponseDTO;
+import com.stocknotebook.dto.response.StockHoldingDTO;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Assembles the dashboard in one request.
+ *
+ * Holdings and totals come from the user's portfolio snapshot, which prices
+ * all symbols in one bulk lookup; recent purchases are read concurrently on
+ * the application task executor.
+ */
+@Service
+public class DashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        DashboardService.class
+    );
+
+    private final PurchaseService purchaseService;
+    private final AsyncTaskExecutor taskExecutor;
+
+    public DashboardService(
+        PurchaseService purchaseService,
+        @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor
+    ) {
+        this.purchaseService = purchaseService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Get the dashboard of a user
+     *
+     * @param recentLimit number of recent purchases to include
+     */
+    public DashboardResponseDTO getDashboard(UUID userId, int recentLimit) {
+        log.info("Getting dashboard for user: {}", userId);
+
+        CompletableFuture<List<PurchaseResponseDTO>> recentPurchases =
+            CompletableFuture.supplyAsync(
+                () -> purchaseService.getRecentPurchases(userId, recentLimit),
+                taskExecutor
+            );
+        PortfolioSummaryDTO summary = purchaseService.getPortfolioSummary(
+            userId
+        );
+
+        // Largest first, compared in the summary currency
+        List<StockHoldingDTO> holdings = summary
+            .positions()
+            .stream()
+            .sorted(
+                Comparator.comparing(DashboardService::convertedValue).reversed()
+            )
+            .map(this::mapToHolding)
+            .toList();
+
+        Long oldestPriceAgeSeconds = summary
+            .positions()
+            .stream()
+            .map(PortfolioPositionDTO::priceAgeSeconds)
+            .filter(Objects::nonNull)
+            .max(Long::compare)
+            .orElse(null);
+
+        return new DashboardResponseDTO(
+            summary.totalSpent(),
+            summary.totalValue(),
+            summary.profitLoss(),
+            summary.profitLossPercentage(),
+            holdings,
+            summary.totalPositions(),
+            summary.totalPurchases(),
+            summary.lastUpdated(),
+            join(recentPurchases),
+            oldestPriceAgeSeconds,
+            summary.currency(),
+            summary.unpricedSymbols()
+        );
+    }
+
+    private StockHoldingDTO mapToHolding(PortfolioPositionDTO position) {
+        return new StockHoldingDTO(
+            position.symbol(),
+            position.quantity(),
+            position.averagePrice(),
+            position.currentPrice(),
+            position.currentValue(),
+            position.totalSpent(),
+            position.totalCommission(),
+            position.profitLoss(),
+            position.profitLossPercentage(),
+            position.purchaseCount(),
+            atStartOfDay(position.firstPurchaseDate()),
+            atStartOfDay(position.lastPurchaseDate()),
+            position.priceSource(),
+            position.priceAgeSeconds(),
+            position.currency()
+        );
+    }
+
+    private static BigDecimal convertedValue(PortfolioPositionDTO position) {
+        return position.fxRate() != null
+            ? position.currentValue().multiply(position.fxRate())
+            : BigDecimal.ZERO;
+    }
+
+    private static LocalDateTime atStartOfDay(LocalDate date) {
+        return date != null ? date.atStartOfDay() : null;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.stocknotebook.service;
+
+import com.stocknotebook.client.YahooFinanceClient;
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.event.StockDataWrittenEvent;
+import com.stocknotebook.repository.FxRateRepository;
+import com.stocknotebook.repository.FxRateRepository.Quote;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory table of daily FX rates to the base currency.
+ *
+ * Rates are stored in {@code fx_rates} at ten decimal places, under Yahoo
+ * Finance pair symbols quoting the currency per unit of the base currency
+ * ({@code USDEUR=X}, {@code USDJPY=X}), which keeps weak currencies precise.
+ * Lookups only read stored rates. Missing or stale ones are fetched from
+ * Yahoo Finance in the background at full precision and stored, so a
+ * currency without stored rates converts as unavailable until then.
+ *
+ * Each currency's rates are expanded into one dense array with a slot per
+ * calendar day, carried forward over weekends and holidays, so converting an
+ * amount on any day is a single array read. Written quotes are applied as they
+ * arrive and a currency is reloaded after {@code refresh-interval}.
+ */
+@Component
+public class FxRateTable {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        FxRateTable.class
+    );
+
+    private static final String PAIR_SUFFIX = "=X";
+    // Stored rates older than this are refreshed from Yahoo Finance
+    private static final int STALE_DAYS = 4;
+
+    private final FxRateRepository fxRateRepository;
+    private final YahooFinanceClient yahooFinanceClient;
+    private final AsyncTaskExecutor taskExecutor;
+    private final String baseCurrency;
+    private final long refreshIntervalMillis;
+    private final Map<String, RateColumn> columns = new ConcurrentHashMap<>();
+    // When each pair was last fetched, so a failing pair is retried only after
+    // the refresh interval
+    private final Map<String, Long> fetchedAt = new ConcurrentHashMap<>();
+
+    public FxRateTable(
+        FxRateRepository fxRateRepository,
+        YahooFinanceClient yahooFinanceClient,
+        @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+        @Value("${app.fx.base-currency:USD}") String baseCurrency,
+        @Value("${app.fx.refresh-interval:3600}") long refreshInterval
+    ) {
+        this.fxRateRepository = fxRateRepository;
+        this.yahooFinanceClient = yahooFinanceClient;
+        this.taskExecutor = taskExecutor;
+        this.baseCurrency = baseCurrency.toUpperCase();
+        this.refreshIntervalMillis = Duration.ofSeconds(
+            refreshInterval
+        ).toMillis();
+    }
+
+    public String baseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * Rates of several currencies from a date on, loading the currencies that
+     * are missing, stale or do not reach back that far in one query. Never
+     * waits on Yahoo Finance; currencies without stored rates are missing.
+     */
+    public Rates rates(Collection<String> currencies, LocalDate from) {
+        Set<String> needed = currencies
+            .stream()
+            .map(this::normalize)
+            .filter(currency -> !currency.equals(baseCurrency))
+            .collect(Collectors.toSet());
+        if (needed.isEmpty()) {
+            return new Rates(baseCurrency, Map.of());
+        }
+
+        long now = System.currentTimeMillis();
+        int fromDay = (int) from.toEpochDay();
+        List<String> toLoad = needed
+            .stream()
+            .filter(currency -> {
+                RateColumn column = columns.get(currency);
+                return (
+                    column == null ||
+                    column.firstDay() > fromDay ||
+                    now - column.loadedAt() > refreshIntervalMillis
+                );
+            })
+            .toList();
+        if (!toLoad.isEmpty()) {
+            // Never shrink the range already covered
+            int loadFrom = toLoad
+                .stream()
+                .map(columns::get)
+                .filter(Objects::nonNull)
+                .mapToInt(RateColumn::firstDay)
+                .reduce(fromDay, Math::min);
+            load(toLoad, LocalDate.ofEpochDay(loadFrom));
+        }
+
+        Map<String, RateColumn> snapshot = new HashMap<>();
+        for (String currency : needed) {
+            RateColumn column = columns.get(currency);
+            if (column != null) {
+                snapshot.put(currency, column);
+            }
+        }
+        return new Rates(baseCurrency, snapshot);
+    }
+
+    /**
+     * Apply newly written quotes of the currencies held in the table. Stock
+     * data keeps four decimal places, so the newer days are also fetched at
+     * full precision in the background.
+     */
+    @EventListener
+    public void onStockDataWritten(StockDataWrittenEvent event) {
+        for (StockData row : event.stockData()) {
+            String currency = currencyOf(row.getSymbol());
+            if (
+                currency != null &&
+                row.getPrice() != null &&
+                row.getPrice().signum() > 0 &&
+                row.getDataDate() != null
+            ) {
+                RateColumn column = columns.computeIfPresent(
+                    currency,
+                    (key, current) ->
+                        current.withQuote(
+                            (int) row.getDataDate().toEpochDay(),
+                            row.getPrice().doubleValue()
+                        )
+                );
+                if (column != null) {
+                    fetchLater(
+                        currency,
+                        LocalDate.ofEpochDay(column.firstDay()),
+                        row.getDataDate().minusDays(STALE_DAYS)
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Pseudo-symbol under which the rates of a currency are stored
+     */
+    public String pairSymbol(String currency) {
+        return baseCurrency + normalize(currency) + PAIR_SUFFIX;
+    }
+
+    private String currencyOf(String symbol) {
+        if (
+            symbol == null ||
+            !symbol.startsWith(baseCurrency) ||
+            !symbol.endsWith(PAIR_SUFFIX)
+        ) {
+            return null;
+        }
+        String currency = symbol.substring(
+            baseCurrency.length(),
+            symbol.length() - PAIR_SUFFIX.length()
+        );
+        return currency.isEmpty() ? null : currency;
+    }
+
+    private String normalize(String currency) {
+        return currency != null && !currency.isBlank()
+            ? currency.trim().toUpperCase()
+            : baseCurrency;
+    }
+
+    private void load(List<String> currencies, LocalDate from) {
+        LocalDate today = LocalDate.now();
+        Map<String, String> pairs = currencies
+            .stream()
+            .collect(Collectors.toMap(currency -> currency, this::pairSymbol));
+        Map<String, List<Quote>> stored = fxRateRepository.findQuotes(
+            pairs.values(),
+            from,
+            today
+        );
+
+        for (String currency : currencies) {
+            List<Quote> quotes = stored.getOrDefault(
+                pairs.get(currency),
+                List.of()
+            );
+            if (
+                quotes.isEmpty() ||
+                quotes.get(0).date().isAfter(from.plusDays(STALE_DAYS))
+            ) {
+                fetchLater(currency, from, from);
+            } else {
+                LocalDate lastDate = quotes.get(quotes.size() - 1).date();
+                if (lastDate.isBefore(today.minusDays(STALE_DAYS))) {
+                    fetchLater(currency, from, lastDate);
+                }
+            }
+            if (quotes.isEmpty()) {
+                log.debug("No stored FX rates for {} yet", currency);
+                continue;
+            }
+            columns.put(currency, RateColumn.of(List.of(quotes), from, today));
+        }
+        log.debug("Loaded FX rates of {} from {}", currencies, from);
+    }
+
+    /**
+     * Fetch the rates of a currency since a day in the background, store them
+     * and replace its column from a day on with the stored rates, unless the
+     * pair was fetched within the refresh interval
+     */
+    private void fetchLater(String currency, LocalDate from, LocalDate since) {
+        String pair = pairSymbol(currency);
+        long now = System.currentTimeMillis();
+        long started = fetchedAt.merge(pair, now, (previous, next) ->
+            next - previous < refreshIntervalMillis ? previous : next
+        );
+        if (started != now) {
+            return;
+        }
+
+        try {
+            taskExecutor.execute(() -> {
+                LocalDate today = LocalDate.now();
+                List<Quote> fetched = fetch(pair, since, today);
+                if (fetched.isEmpty()) {
+                    return;
+                }
+                try {
+                    fxRateRepository.upsertAll(pair, fetched);
+                } catch (RuntimeException e) {
+                    log.warn(
+                        "Failed to store FX rates for {}: {}",
+                        pair,
+                        e.getMessage()
+                    );
+                }
+                List<Quote> stored = fxRateRepository
+                    .findQuotes(List.of(pair), from, today)
+                    .getOrDefault(pair, List.of());
+                columns.put(
+                    currency,
+                    RateColumn.of(List.of(stored, fetched), from, today)
+                );
+                log.debug("Fetched FX rates of {} since {}", currency, since);
+            });
+        } catch (TaskRejectedException e) {
+            fetchedAt.remove(pair, now);
+            log.warn("Could not schedule loading the FX rates of {}", pair);
+        }
+    }
+
+    /**
+     * Daily quotes of a pair from Yahoo Finance at full precision, coarser
+     * for long ranges
+     */
+    private List<Quote> fetch(String pair, LocalDate since, LocalDate today) {
+        String period;
+        if (!since.isBefore(today.minusMonths(1))) {
+            period = "1M";
+        } else if (!since.isBefore(today.minusYears(1))) {
+            period = "1Y";
+        } else if (!since.isBefore(today.minusYears(5))) {
+            period = "5Y";
+        } else {
+            period = "MAX";
+        }
+        try {
+            return yahooFinanceClient
+                .fetchCloses(pair, period)
+                .entrySet()
+                .stream()
+                .filter(close -> close.getValue() > 0)
+                .map(close -> new Quote(close.getKey(), close.getValue()))
+                .toList();
+        } catch (RuntimeException e) {
+            log.warn("Failed to load FX rates for {}: {}", pair, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Rates of some currencies to the base currency, as loaded at one time
+     */
+    public static final class Rates {
+
+        private final String baseCurrency;
+        private final Map<String, RateColumn> columns;
+
+        private Rates(String baseCurrency, Map<String, RateColumn> columns) {
+            this.baseCurrency = baseCurrency;
+            this.columns = columns;
+        }
+
+        public String baseCurrency() {
+            return baseCurrency;
+        }
+
+        public boolean isBase(String currency) {
+            return currency == null || baseCurrency.equalsIgnoreCase(currency);
+        }
+
+        /**
+         * Base currency units per unit of a currency on a day, NaN when the
+         * currency has no rates
+         */
+        public double rate(String currency, int epochDay) {
+            if (isBase(currency)) {
+                return 1;
+            }
+            RateColumn column = columns.get(currency.toUpperCase());
+            return column != null ? column.at(epochDay) : Double.NaN;
+        }
+
+        public double rate(String currency, LocalDate date) {
+            return rate(currency, (int) date.toEpochDay());
+        }
+
+        /**
+         * Latest rate of a currency, null when it has none
+         */
+        public BigDecimal latestRate(String currency) {
+            if (isBase(currency)) {
+                return BigDecimal.ONE;
+            }
+            RateColumn column = columns.get(currency.toUpperCase());
+            return column != null
+                ? BigDecimal.valueOf(column.latest()).setScale(
+                    8,
+                    RoundingMode.HALF_UP
+                )
+                : null;
+        }
+    }
+
+    /**
+     * Rates of one currency with a slot per calendar day from the first day.
+     * Days after the last slot use the last rate, days before the first the
+     * first.
+     *
+     * @param lastQuoteDay day of the latest quote the rates were built from
+     */
+    private record RateColumn(
+        int firstDay,
+        double[] rates,
+        int lastQuoteDay,
+        long loadedAt
+    ) {
+        /**
+         * Build from several quote lists; later lists win on shared days
+         */
+        static RateColumn of(
+            List<List<Quote>> sources,
+            LocalDate from,
+            LocalDate to
+        ) {
+            int firstDay = (int) from.toEpochDay();
+            int span = Math.max(1, (int) (to.toEpochDay() - firstDay + 1));
+            double[] quotes = new double[span];
+            Arrays.fill(quotes, Double.NaN);
+            double seed = Double.NaN;
+            int seedDay = Integer.MIN_VALUE;
+            int lastQuoteDay = Integer.MIN_VALUE;
+            for (List<Quote> source : sources) {
+                for (Quote sourceQuote : source) {
+                    int day = (int) sourceQuote.date().toEpochDay();
+                    double quote = sourceQuote.rate();
+                    if (quote <= 0) {
+                        continue;
+                    }
+                    if (day < firstDay) {
+                        if (day >= seedDay) {
+                            seed = quote;
+                            seedDay = day;
+                        }
+                    } else if (day < firstDay + span) {
+                        quotes[day - firstDay] = quote;
+                        lastQuoteDay = Math.max(lastQuoteDay, day);
+                    }
+                }
+            }
+
+            double[] rates = new double[span];
+            double quote = seed;
+            for (int i = 0; i < span; i++) {
+                if (!Double.isNaN(quotes[i])) {
+                    quote = quotes[i];
+                }
+                rates[i] = 1 / quote;
+            }
+            // Before the first quote, fall back to the earliest known rate
+            int first = 0;
+            while (first < span && Double.isNaN(rates[first])) {
+                first++;
+            }
+            if (first < span) {
+                Arrays.fill(rates, 0, first, rates[first]);
+            }
+            return new RateColumn(
+                firstDay,
+                rates,
+                Math.max(lastQuoteDay, seedDay),
+                System.currentTimeMillis()
+            );
+        }
+
+        double at(int epochDay) {
+            int index = Math.min(
+                Math.max(epochDay - firstDay, 0),
+                rates.length - 1
+            );
+            return rates[index];
+        }
+
+        double latest() {
+            return rates[rates.length - 1];
+        }
+
+        /**
+         * Copy with a quote applied from its day on. Quotes older than the
+         * latest one are left to the next reload.
+         */
+        RateColumn withQuote(int day, double quote) {
+            if (day < lastQuoteDay || day < firstDay) {
+                return this;
+            }
+            int length = Math.max(rates.length, day - firstDay + 1);
+            double[] updated = Arrays.copyOf(rates, length);
+            Arrays.fill(updated, rates.length, length, rates[rates.length - 1]);
+            Arrays.fill(updated, day - firstDay, length, 1 / quote);
+            return new RateColumn(firstDay, updated, day, loadedAt);
+        }
+    }
+}
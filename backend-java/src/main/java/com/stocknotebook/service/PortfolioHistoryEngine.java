@@ -0,0 +1,358 @@
+package com.stocknotebook.service;
+
+import com.stocknotebook.dto.response.PortfolioHistoryDTO;
+import com.stocknotebook.entity.Purchase;
+import com.stocknotebook.entity.Symbol;
+import com.stocknotebook.model.AdjustmentFactors;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.repository.DailySnapshotRepository;
+import com.stocknotebook.repository.PurchaseRepository;
+import com.stocknotebook.repository.StockDataRepository;
+import com.stocknotebook.repository.SymbolRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes the value of a portfolio over time from stored prices.
+ *
+ * The stored prices of all held symbols are loaded in one query into
+ * primitive series. Their dates are merged into one axis of trading days,
+ * each symbol's close is carried forward onto that axis, and its cumulative
+ * quantity (a step function of the purchase dates) is multiplied in. Values
+ * are summed column by column in scaled longs and only converted to
+ * {@link BigDecimal} for the response.
+ *
+ * Symbols traded in another currency are converted to the base currency with
+ * the {@link FxRateTable}: each day's value at that day's rate and each
+ * purchase at the rate of its date, one array read per value.
+ *
+ * Prices and purchases are as traded. Across a split, the shares held on a
+ * day are each purchase's quantity times the ratio of the split factors of
+ * its date and that day, looked up in the symbol's cached
+ * {@link AdjustmentFactors}.
+ *
+ * Days already covered by the end-of-day snapshots are read as stored totals
+ * and only the days after the latest snapshot are computed. Periods reaching
+ * back before the first snapshot are computed in full.
+ */
+@Component
+public class PortfolioHistoryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        PortfolioHistoryEngine.class
+    );
+
+    // Prices loaded before the start so the first day has a close to carry
+    private static final int LOOKBACK_DAYS = 14;
+
+    private final PurchaseRepository purchaseRepository;
+    private final StockDataRepository stockDataRepository;
+    private final SymbolRepository symbolRepository;
+    private final DailySnapshotRepository dailySnapshotRepository;
+    private final FxRateTable fxRateTable;
+    private final CorporateActionService corporateActionService;
+
+    public PortfolioHistoryEngine(
+        PurchaseRepository purchaseRepository,
+        StockDataRepository stockDataRepository,
+        SymbolRepository symbolRepository,
+        DailySnapshotRepository dailySnapshotRepository,
+        FxRateTable fxRateTable,
+        CorporateActionService corporateActionService
+    ) {
+        this.purchaseRepository = purchaseRepository;
+        this.stockDataRepository = stockDataRepository;
+        this.symbolRepository = symbolRepository;
+        this.dailySnapshotRepository = dailySnapshotRepository;
+        this.fxRateTable = fxRateTable;
+        this.corporateActionService = corporateActionService;
+    }
+
+    /**
+     * Value of a user's portfolio on each trading day of a chart period,
+     * starting no earlier than the first purchase
+     */
+    public PortfolioHistoryDTO getHistory(UUID userId, String period) {
+        long started = System.currentTimeMillis();
+        List<Purchase> purchases = purchaseRepository.findByUserId(userId);
+        if (purchases.isEmpty()) {
+            return new PortfolioHistoryDTO(
+                period,
+                List.of(),
+                List.of(),
+                fxRateTable.baseCurrency()
+            );
+        }
+
+        LocalDate endDate = LocalDate.now();
+        LocalDate firstPurchaseDate = purchases
+            .stream()
+            .map(Purchase::getPurchaseDate)
+            .min(LocalDate::compareTo)
+            .orElse(endDate);
+        LocalDate startDate = StockService.calculateStartDate(period, endDate);
+        if (startDate.isBefore(firstPurchaseDate)) {
+            startDate = firstPurchaseDate;
+        }
+
+        List<PortfolioHistoryDTO.Point> points = new ArrayList<>();
+        LocalDate storedUntil = storedUntil(userId, startDate, endDate);
+        if (storedUntil != null) {
+            List<DailySnapshotRepository.Total> totals =
+                dailySnapshotRepository.findTotals(userId, startDate, storedUntil);
+            for (DailySnapshotRepository.Total total : totals) {
+                points.add(
+                    new PortfolioHistoryDTO.Point(
+                        total.date(),
+                        toMoney(total.marketValue()),
+                        toMoney(total.cost())
+                    )
+                );
+            }
+            startDate = storedUntil.plusDays(1);
+        }
+
+        Map<String, List<Purchase>> bySymbol = purchases
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    purchase -> purchase.getSymbol().toUpperCase(),
+                    TreeMap::new,
+                    Collectors.toList()
+                )
+            );
+        Map<String, PriceSeries> series =
+            stockDataRepository.findSeriesBySymbolsAndDateRange(
+                bySymbol.keySet(),
+                startDate.minusDays(LOOKBACK_DAYS),
+                endDate
+            );
+
+        Map<String, String> currencies = new HashMap<>();
+        for (Symbol symbol : symbolRepository.findBySymbolIn(bySymbol.keySet())) {
+            currencies.put(symbol.getSymbol(), symbol.getCurrency());
+        }
+        FxRateTable.Rates rates = fxRateTable.rates(
+            currencies.values(),
+            firstPurchaseDate
+        );
+        Map<String, AdjustmentFactors> factors =
+            corporateActionService.getFactors(bySymbol.keySet());
+
+        int[] axis = tradingDays(series, startDate, endDate);
+        long[] values = new long[axis.length];
+        long[] invested = new long[axis.length];
+        List<String> unpriced = new ArrayList<>();
+        bySymbol.forEach((symbol, symbolPurchases) -> {
+            PriceSeries prices = series.get(symbol);
+            String currency = currencies.get(symbol);
+            if (Double.isNaN(rates.rate(currency, endDate))) {
+                // No rate to convert with, leave the symbol out entirely
+                unpriced.add(symbol);
+                return;
+            }
+            if (prices == null) {
+                unpriced.add(symbol);
+            }
+            accumulate(
+                axis,
+                prices,
+                symbolPurchases,
+                factors.getOrDefault(symbol, AdjustmentFactors.NONE),
+                rates.isBase(currency) ? null : currency,
+                rates,
+                values,
+                invested
+            );
+        });
+
+        for (int i = 0; i < axis.length; i++) {
+            points.add(
+                new PortfolioHistoryDTO.Point(
+                    LocalDate.ofEpochDay(axis[i]),
+                    toMoney(values[i]),
+                    toMoney(invested[i])
+                )
+            );
+        }
+
+        log.debug(
+            "Computed {} and read {} history points for {} symbols in {} ms",
+            axis.length,
+            points.size() - axis.length,
+            bySymbol.size(),
+            System.currentTimeMillis() - started
+        );
+        return new PortfolioHistoryDTO(
+            period,
+            points,
+            unpriced,
+            rates.baseCurrency()
+        );
+    }
+
+    /**
+     * Latest snapshot day of a user up to the end, or up to the first day
+     * whose snapshot of the user is missing, when snapshots reach back to the
+     * start; null when the period has to be computed in full
+     */
+    private LocalDate storedUntil(
+        UUID userId,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        if (
+            dailySnapshotRepository.findLatestRunDate(userId, startDate) == null
+        ) {
+            return null;
+        }
+        LocalDate missing = dailySnapshotRepository.findFirstMissingRunDate(
+            userId,
+            startDate,
+            endDate
+        );
+        if (missing == null) {
+            return dailySnapshotRepository.findLatestRunDate(userId, endDate);
+        }
+        return missing.isAfter(startDate)
+            ? dailySnapshotRepository.findLatestRunDate(
+                userId,
+                missing.minusDays(1)
+            )
+            : null;
+    }
+
+    /**
+     * Days from start to end on which any of the series has a price
+     */
+    private static int[] tradingDays(
+        Map<String, PriceSeries> series,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        int firstDay = (int) startDate.toEpochDay();
+        int span = (int) (endDate.toEpochDay() - firstDay + 1);
+        if (span <= 0) {
+            return new int[0];
+        }
+
+        boolean[] traded = new boolean[span];
+        int count = 0;
+        for (PriceSeries prices : series.values()) {
+            for (int i = 0; i < prices.size(); i++) {
+                int offset = prices.epochDayAt(i) - firstDay;
+                if (offset >= 0 && offset < span && !traded[offset]) {
+                    traded[offset] = true;
+                    count++;
+                }
+            }
+        }
+
+        int[] axis = new int[count];
+        for (int offset = 0, i = 0; offset < span; offset++) {
+            if (traded[offset]) {
+                axis[i++] = firstDay + offset;
+            }
+        }
+        return axis;
+    }
+
+    /**
+     * Add one symbol's value and invested amount to every day of the axis,
+     * in the shares of each day and converted from its currency unless that
+     * is null
+     */
+    private static void accumulate(
+        int[] axis,
+        PriceSeries prices,
+        List<Purchase> purchases,
+        AdjustmentFactors factors,
+        String currency,
+        FxRateTable.Rates rates,
+        long[] values,
+        long[] invested
+    ) {
+        List<Purchase> ordered = purchases
+            .stream()
+            .sorted(Comparator.comparing(Purchase::getPurchaseDate))
+            .toList();
+
+        int pricesSize = prices != null ? prices.size() : 0;
+        int priceIndex = 0;
+        int purchaseIndex = 0;
+        long price = 0;
+        boolean priced = false;
+        boolean split =
+            !ordered.isEmpty() &&
+            factors.hasSplitAfter(ordered.get(0).getPurchaseDate());
+        long quantity = 0;
+        // Quantity in today's shares, only tracked across splits
+        double units = 0;
+        long cost = 0;
+        for (int day = 0; day < axis.length; day++) {
+            while (
+                priceIndex < pricesSize &&
+                prices.epochDayAt(priceIndex) <= axis[day]
+            ) {
+                price = prices.scaledPriceAt(priceIndex++);
+                priced = true;
+            }
+            while (
+                purchaseIndex < ordered.size() &&
+                ordered.get(purchaseIndex).getPurchaseDate().toEpochDay() <=
+                axis[day]
+            ) {
+                Purchase purchase = ordered.get(purchaseIndex++);
+                long purchaseCost = PriceSeries.scale(purchase.getTotalCost());
+                quantity += purchase.getQuantity();
+                if (split) {
+                    units +=
+                        purchase.getQuantity() *
+                        factors.splitFactor(purchase.getPurchaseDate());
+                }
+                cost += currency == null
+                    ? purchaseCost
+                    : Math.round(
+                        purchaseCost *
+                        rates.rate(currency, purchase.getPurchaseDate())
+                    );
+            }
+
+            invested[day] += cost;
+            if (priced && currency == null && !split) {
+                values[day] += quantity * price;
+            } else if (priced) {
+                double held = split
+                    ? units / factors.splitFactor(axis[day])
+                    : quantity;
+                double rate = currency == null
+                    ? 1
+                    : rates.rate(currency, axis[day]);
+                values[day] += Math.round(held * price * rate);
+            }
+        }
+    }
+
+    private static BigDecimal toMoney(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal toMoney(long scaled) {
+        return BigDecimal.valueOf(scaled, PriceSeries.PRICE_SCALE).setScale(
+            2,
+            RoundingMode.HALF_UP
+        );
+    }
+}
@@ -0,0 +1,539 @@
+package com.stocknotebook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stocknotebook.dto.response.PortfolioRiskDTO;
+import com.stocknotebook.dto.response.PortfolioRiskDTO.PositionRisk;
+import com.stocknotebook.dto.response.PortfolioRiskDTO.RiskMetrics;
+import com.stocknotebook.event.AdjustmentFactorsChangedEvent;
+import com.stocknotebook.event.PurchaseChangedEvent;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.repository.PositionAggregate;
+import com.stocknotebook.repository.PurchaseRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Computes risk metrics of a portfolio from daily prices.
+ *
+ * The daily series of every held symbol and of the benchmark are taken from
+ * the chart cache, so repeated reports reuse the same primitive series. Their
+ * closes are carried forward onto one axis of trading days and turned into
+ * daily log-return vectors of doubles, from which volatility, maximum
+ * drawdown and beta are computed in single passes. Series are adjusted for
+ * splits with dividends reinvested, so returns are total returns. The
+ * pairwise correlation matrix is split over symbol pairs and computed in
+ * parallel on the common fork-join pool.
+ *
+ * Portfolio metrics treat the current holdings as held over the whole period,
+ * weighting each day's returns by current value. Reports are cached per user
+ * and as-of date, and dropped when one of the user's purchases changes or a
+ * corporate action is recorded.
+ */
+@Component
+public class PortfolioRiskEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        PortfolioRiskEngine.class
+    );
+
+    // Chart period with one point per trading day
+    private static final String PERIOD = "1Y";
+    private static final int TRADING_DAYS_PER_YEAR = 252;
+    private static final int MIN_OBSERVATIONS = 2;
+    // Symbol pairs correlated by one fork-join task before it stops splitting
+    private static final int PAIRS_PER_TASK = 32;
+
+    private final PurchaseRepository purchaseRepository;
+    private final StockService stockService;
+    private final CorporateActionService corporateActionService;
+    private final String benchmark;
+    private final Cache<RiskKey, PortfolioRiskDTO> reports;
+
+    public PortfolioRiskEngine(
+        PurchaseRepository purchaseRepository,
+        StockService stockService,
+        CorporateActionService corporateActionService,
+        @Value("${app.portfolio.risk-benchmark:SPY}") String benchmark,
+        @Value("${app.portfolio.risk-cache-ttl:3600}") long cacheTtl,
+        @Value("${app.portfolio.max-risk-reports:10000}") long maxReports
+    ) {
+        this.purchaseRepository = purchaseRepository;
+        this.stockService = stockService;
+        this.corporateActionService = corporateActionService;
+        this.benchmark = benchmark.toUpperCase();
+        this.reports = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(cacheTtl))
+            .maximumSize(maxReports)
+            .build();
+    }
+
+    /**
+     * Risk report of a user's portfolio as of today
+     */
+    public PortfolioRiskDTO getRisk(UUID userId) {
+        return reports.get(new RiskKey(userId, LocalDate.now()), key ->
+            compute(key.userId(), key.asOf())
+        );
+    }
+
+    /**
+     * Drop the reports of a user whose holdings changed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchaseChanged(PurchaseChangedEvent event) {
+        reports
+            .asMap()
+            .keySet()
+            .removeIf(key -> key.userId().equals(event.userId()));
+    }
+
+    private PortfolioRiskDTO compute(UUID userId, LocalDate asOf) {
+        long started = System.currentTimeMillis();
+        List<PositionAggregate> aggregates =
+            corporateActionService.adjustPositions(
+                userId,
+                purchaseRepository.findAggregatedPurchasesByUserId(userId)
+            );
+        Map<String, Long> quantities = new TreeMap<>();
+        for (PositionAggregate position : aggregates) {
+            Long quantity = position.getTotalQuantity();
+            if (quantity != null && quantity > 0) {
+                quantities.put(position.getSymbol(), quantity);
+            }
+        }
+
+        LocalDate startDate = StockService.calculateStartDate(PERIOD, asOf);
+        List<String> symbols = new ArrayList<>();
+        List<PriceSeries> series = new ArrayList<>();
+        List<String> unpriced = new ArrayList<>();
+        quantities
+            .keySet()
+            .forEach(symbol -> {
+                PriceSeries prices = dailySeries(symbol, startDate, asOf);
+                if (prices.isEmpty()) {
+                    unpriced.add(symbol);
+                } else {
+                    symbols.add(symbol);
+                    series.add(prices);
+                }
+            });
+        if (symbols.isEmpty()) {
+            return new PortfolioRiskDTO(
+                asOf,
+                PERIOD,
+                benchmark,
+                null,
+                List.of(),
+                List.of(),
+                List.of(),
+                unpriced
+            );
+        }
+
+        PriceSeries benchmarkSeries = dailySeries(benchmark, startDate, asOf);
+        List<PriceSeries> axisSeries = new ArrayList<>(series);
+        axisSeries.add(benchmarkSeries);
+        int[] axis = tradingDays(axisSeries, startDate, asOf);
+
+        int n = symbols.size();
+        double[][] closes = new double[n][];
+        double[][] returns = new double[n][];
+        double[] weights = new double[n];
+        double totalValue = 0;
+        for (int i = 0; i < n; i++) {
+            PriceSeries prices = series.get(i);
+            closes[i] = carryForward(axis, prices);
+            returns[i] = logReturns(closes[i]);
+            weights[i] =
+                quantities.get(symbols.get(i)) *
+                prices.priceAsDoubleAt(prices.size() - 1);
+            totalValue += weights[i];
+        }
+        for (int i = 0; i < n; i++) {
+            weights[i] = totalValue > 0 ? weights[i] / totalValue : 0;
+        }
+        double[] benchmarkReturns = benchmarkSeries.isEmpty()
+            ? null
+            : logReturns(carryForward(axis, benchmarkSeries));
+
+        double[] portfolioReturns = weightedReturns(returns, weights);
+        RiskMetrics portfolio = metrics(
+            portfolioReturns,
+            growth(portfolioReturns),
+            benchmarkReturns
+        );
+
+        List<PositionRisk> positions = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            positions.add(
+                new PositionRisk(
+                    symbols.get(i),
+                    round(weights[i]),
+                    metrics(returns[i], closes[i], benchmarkReturns)
+                )
+            );
+        }
+        positions.sort(
+            Comparator.comparing(
+                PositionRisk::weight,
+                Comparator.nullsLast(Comparator.reverseOrder())
+            )
+        );
+
+        List<List<BigDecimal>> correlations = Arrays.stream(
+            correlations(returns)
+        )
+            .map(row ->
+                Arrays.stream(row).mapToObj(PortfolioRiskEngine::round).toList()
+            )
+            .toList();
+
+        log.debug(
+            "Computed risk of {} symbols over {} days in {} ms",
+            n,
+            axis.length,
+            System.currentTimeMillis() - started
+        );
+        return new PortfolioRiskDTO(
+            asOf,
+            PERIOD,
+            benchmark,
+            portfolio,
+            positions,
+            symbols,
+            correlations,
+            unpriced
+        );
+    }
+
+    /**
+     * Drop all reports, as any of them may hold the symbol of a split or
+     * dividend recorded on any node
+     */
+    @EventListener
+    public void onAdjustmentFactorsChanged(
+        AdjustmentFactorsChangedEvent event
+    ) {
+        reports.invalidateAll();
+    }
+
+    /**
+     * Cached daily series of a symbol adjusted for splits and with dividends
+     * reinvested, empty when it cannot be loaded
+     */
+    private PriceSeries dailySeries(
+        String symbol,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        try {
+            return corporateActionService
+                .getFactors(symbol)
+                .adjust(stockService.getChartData(symbol, PERIOD), true)
+                .between(startDate, endDate);
+        } catch (RuntimeException e) {
+            log.warn("No daily prices for {}: {}", symbol, e.getMessage());
+            return PriceSeries.empty();
+        }
+    }
+
+    private static RiskMetrics metrics(
+        double[] returns,
+        double[] levels,
+        double[] benchmarkReturns
+    ) {
+        Comoments own = Comoments.of(returns, returns);
+        Comoments market = benchmarkReturns != null
+            ? Comoments.of(returns, benchmarkReturns)
+            : null;
+        return new RiskMetrics(
+            round(own.volatility()),
+            round(maxDrawdown(levels)),
+            market != null ? round(market.beta()) : null,
+            own.count
+        );
+    }
+
+    /**
+     * Days from start to end on which any of the series has a price
+     */
+    private static int[] tradingDays(
+        List<PriceSeries> series,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        int firstDay = (int) startDate.toEpochDay();
+        int span = (int) (endDate.toEpochDay() - firstDay + 1);
+        if (span <= 0) {
+            return new int[0];
+        }
+
+        boolean[] traded = new boolean[span];
+        int count = 0;
+        for (PriceSeries prices : series) {
+            for (int i = 0; i < prices.size(); i++) {
+                int offset = prices.epochDayAt(i) - firstDay;
+                if (offset >= 0 && offset < span && !traded[offset]) {
+                    traded[offset] = true;
+                    count++;
+                }
+            }
+        }
+
+        int[] axis = new int[count];
+        for (int offset = 0, i = 0; offset < span; offset++) {
+            if (traded[offset]) {
+                axis[i++] = firstDay + offset;
+            }
+        }
+        return axis;
+    }
+
+    /**
+     * Close on each day of the axis, carried forward over days without a
+     * price and NaN before the first one
+     */
+    private static double[] carryForward(int[] axis, PriceSeries prices) {
+        double[] closes = new double[axis.length];
+        double close = Double.NaN;
+        for (int day = 0, index = 0; day < axis.length; day++) {
+            while (index < prices.size() && prices.epochDayAt(index) <= axis[day]) {
+                close = prices.priceAsDoubleAt(index++);
+            }
+            closes[day] = close;
+        }
+        return closes;
+    }
+
+    /**
+     * Log return from each day to the next, NaN where either close is missing
+     */
+    private static double[] logReturns(double[] closes) {
+        double[] returns = new double[Math.max(0, closes.length - 1)];
+        for (int day = 0; day < returns.length; day++) {
+            returns[day] = Math.log(closes[day + 1] / closes[day]);
+        }
+        return returns;
+    }
+
+    /**
+     * Each day's returns averaged by weight over the symbols priced that day
+     */
+    private static double[] weightedReturns(
+        double[][] returns,
+        double[] weights
+    ) {
+        int days = returns.length > 0 ? returns[0].length : 0;
+        double[] weighted = new double[days];
+        for (int day = 0; day < days; day++) {
+            double sum = 0;
+            double weight = 0;
+            for (int i = 0; i < returns.length; i++) {
+                if (!Double.isNaN(returns[i][day])) {
+                    sum += weights[i] * returns[i][day];
+                    weight += weights[i];
+                }
+            }
+            weighted[day] = weight > 0 ? sum / weight : Double.NaN;
+        }
+        return weighted;
+    }
+
+    /**
+     * Value of one unit compounded by the returns, starting at 1
+     */
+    private static double[] growth(double[] returns) {
+        double[] levels = new double[returns.length + 1];
+        double logLevel = 0;
+        levels[0] = 1;
+        for (int day = 0; day < returns.length; day++) {
+            if (!Double.isNaN(returns[day])) {
+                logLevel += returns[day];
+            }
+            levels[day + 1] = Math.exp(logLevel);
+        }
+        return levels;
+    }
+
+    /**
+     * Largest fall from a running peak as a fraction of that peak
+     */
+    private static double maxDrawdown(double[] levels) {
+        double peak = Double.NaN;
+        double drawdown = Double.NaN;
+        for (double level : levels) {
+            if (Double.isNaN(level)) {
+                continue;
+            }
+            if (Double.isNaN(peak) || level > peak) {
+                peak = level;
+            }
+            double fall = (peak - level) / peak;
+            drawdown = Double.isNaN(drawdown) ? fall : Math.max(drawdown, fall);
+        }
+        return drawdown;
+    }
+
+    /**
+     * Correlation of every pair of return vectors, computed on the common
+     * fork-join pool
+     */
+    private static double[][] correlations(double[][] returns) {
+        int n = returns.length;
+        double[][] matrix = new double[n][n];
+        int pairs = n * (n - 1) / 2;
+        int[] rows = new int[pairs];
+        int[] columns = new int[pairs];
+        for (int i = 0, pair = 0; i < n; i++) {
+            matrix[i][i] = 1;
+            for (int j = i + 1; j < n; j++, pair++) {
+                rows[pair] = i;
+                columns[pair] = j;
+            }
+        }
+        if (pairs > 0) {
+            ForkJoinPool.commonPool().invoke(
+                new CorrelationTask(returns, rows, columns, 0, pairs, matrix)
+            );
+        }
+        return matrix;
+    }
+
+    private static BigDecimal round(double value) {
+        return Double.isFinite(value)
+            ? BigDecimal.valueOf(value).setScale(4, RoundingMode.HALF_UP)
+            : null;
+    }
+
+    /**
+     * Correlates a range of symbol pairs, splitting it in halves until it is
+     * small enough
+     */
+    private static final class CorrelationTask extends RecursiveAction {
+
+        private final double[][] returns;
+        private final int[] rows;
+        private final int[] columns;
+        private final int from;
+        private final int to;
+        private final double[][] matrix;
+
+        CorrelationTask(
+            double[][] returns,
+            int[] rows,
+            int[] columns,
+            int from,
+            int to,
+            double[][] matrix
+        ) {
+            this.returns = returns;
+            this.rows = rows;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.matrix = matrix;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PAIRS_PER_TASK) {
+                for (int pair = from; pair < to; pair++) {
+                    int i = rows[pair];
+                    int j = columns[pair];
+                    double correlation = Comoments.of(
+                        returns[i],
+                        returns[j]
+                    ).correlation();
+                    matrix[i][j] = correlation;
+                    matrix[j][i] = correlation;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new CorrelationTask(returns, rows, columns, from, middle, matrix),
+                new CorrelationTask(returns, rows, columns, middle, to, matrix)
+            );
+        }
+    }
+
+    /**
+     * Means and co-moments of two return vectors over the days both have a
+     * return, accumulated in one pass with Welford's update
+     */
+    private static final class Comoments {
+
+        private int count;
+        private double meanX;
+        private double meanY;
+        private double sumXX;
+        private double sumYY;
+        private double sumXY;
+
+        static Comoments of(double[] x, double[] y) {
+            Comoments moments = new Comoments();
+            int days = Math.min(x.length, y.length);
+            for (int day = 0; day < days; day++) {
+                if (!Double.isNaN(x[day]) && !Double.isNaN(y[day])) {
+                    moments.add(x[day], y[day]);
+                }
+            }
+            return moments;
+        }
+
+        private void add(double x, double y) {
+            count++;
+            double dx = x - meanX;
+            meanX += dx / count;
+            double dy = y - meanY;
+            meanY += dy / count;
+            sumXX += dx * (x - meanX);
+            sumYY += dy * (y - meanY);
+            sumXY += dx * (y - meanY);
+        }
+
+        /**
+         * Annualized sample standard deviation of x
+         */
+        double volatility() {
+            return count >= MIN_OBSERVATIONS
+                ? Math.sqrt(sumXX / (count - 1) * TRADING_DAYS_PER_YEAR)
+                : Double.NaN;
+        }
+
+        /**
+         * Slope of x against y
+         */
+        double beta() {
+            return count >= MIN_OBSERVATIONS && sumYY > 0
+                ? sumXY / sumYY
+                : Double.NaN;
+        }
+
+        double correlation() {
+            return count >= MIN_OBSERVATIONS && sumXX > 0 && sumYY > 0
+                ? sumXY / Math.sqrt(sumXX * sumYY)
+                : Double.NaN;
+        }
+    }
+
+    private record RiskKey(UUID userId, LocalDate asOf) {}
+}
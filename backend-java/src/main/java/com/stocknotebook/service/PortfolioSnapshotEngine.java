@@ -0,0 +1,469 @@
+package com.stocknotebook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stocknotebook.dto.response.PortfolioPositionDTO;
+import com.stocknotebook.dto.response.PortfolioSummaryDTO;
+import com.stocknotebook.dto.response.PriceSource;
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.event.AdjustmentFactorsChangedEvent;
+import com.stocknotebook.event.PortfolioUpdatedEvent;
+import com.stocknotebook.event.PurchaseChangedEvent;
+import com.stocknotebook.event.StockDataWrittenEvent;
+import com.stocknotebook.model.Money;
+import com.stocknotebook.repository.PurchaseRepository;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the portfolio of each active user valued in memory.
+ *
+ * A snapshot is built on first access from positions aggregated in SQL and
+ * valued by {@link PortfolioValuationEngine}, and is
+ * then maintained incrementally: written prices reach only the positions that
+ * hold the symbol, through a symbol to holders index, and a committed purchase
+ * change revalues only that position, in the background. Totals are adjusted
+ * by the difference, so reading a summary prices nothing unless a purchase
+ * change is still pending. Snapshots of users idle for
+ * {@code snapshot-idle-timeout} are dropped; every change publishes a
+ * {@link PortfolioUpdatedEvent}.
+ *
+ * Totals are kept in {@link Money} in the base currency, converting each
+ * position at the FX rate it was valued with; new rates are picked up when the snapshot is
+ * rebuilt. Quantities are in today's shares through the
+ * {@link CorporateActionService}; recording a split or dividend drops the
+ * snapshots holding that symbol.
+ *
+ * Price ages in a snapshot are as of its {@code lastUpdated} time. Prices
+ * written on other nodes are not seen here, so snapshots are also rebuilt
+ * after {@code snapshot-max-age}.
+ */
+@Component
+public class PortfolioSnapshotEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        PortfolioSnapshotEngine.class
+    );
+
+    private final PurchaseRepository purchaseRepository;
+    private final PortfolioValuationEngine portfolioValuationEngine;
+    private final CorporateActionService corporateActionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<UUID, PortfolioState> snapshots;
+    private final Map<String, Set<UUID>> holders = new ConcurrentHashMap<>();
+
+    public PortfolioSnapshotEngine(
+        PurchaseRepository purchaseRepository,
+        PortfolioValuationEngine portfolioValuationEngine,
+        CorporateActionService corporateActionService,
+        ApplicationEventPublisher eventPublisher,
+        @Value("${app.portfolio.snapshot-idle-timeout:1800}") long idleTimeout,
+        @Value("${app.portfolio.snapshot-max-age:3600}") long maxAge,
+        @Value("${app.portfolio.max-snapshots:10000}") long maxSnapshots
+    ) {
+        this.purchaseRepository = purchaseRepository;
+        this.portfolioValuationEngine = portfolioValuationEngine;
+        this.corporateActionService = corporateActionService;
+        this.eventPublisher = eventPublisher;
+        this.snapshots = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofSeconds(idleTimeout))
+            .expireAfterWrite(Duration.ofSeconds(maxAge))
+            .maximumSize(maxSnapshots)
+            .<UUID, PortfolioState>evictionListener((userId, state, cause) -> {
+                if (userId != null && state != null) {
+                    state.symbols().forEach(symbol -> unindex(symbol, userId));
+                }
+            })
+            .build();
+    }
+
+    /**
+     * Current portfolio summary of a user, built on first access. While a
+     * purchase change is still being applied in the background the snapshot
+     * is rebuilt instead, so a user reads their own change right away.
+     */
+    public PortfolioSummaryDTO getSummary(UUID userId) {
+        PortfolioState state = snapshots.get(userId, this::build);
+        if (state.hasPendingChanges()) {
+            snapshots.asMap().remove(userId, state);
+            state = snapshots.get(userId, this::build);
+        }
+        return state.summary();
+    }
+
+    /**
+     * Move the positions holding a written symbol to its new price. A snapshot
+     * that fails to apply it is dropped and rebuilt on next read, so the
+     * writer and the other listeners of the event are never affected.
+     */
+    @EventListener
+    public void onStockDataWritten(StockDataWrittenEvent event) {
+        for (StockData row : event.stockData()) {
+            Set<UUID> userIds = holders.get(row.getSymbol());
+            if (userIds == null || row.getPrice() == null) {
+                continue;
+            }
+
+            LocalDateTime timestamp = row.getCreatedAt() != null
+                ? row.getCreatedAt()
+                : LocalDateTime.now();
+            for (UUID userId : userIds) {
+                PortfolioState state = snapshots.getIfPresent(userId);
+                if (state == null) {
+                    unindex(row.getSymbol(), userId);
+                    continue;
+                }
+                try {
+                    if (state.reprice(row, timestamp)) {
+                        publish(userId, state);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn(
+                        "Failed to reprice {} in the portfolio snapshot of user {}, rebuilding on next read: {}",
+                        row.getSymbol(),
+                        userId,
+                        e.getMessage()
+                    );
+                    snapshots.asMap().remove(userId, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Revalue the changed position once the purchase change is committed.
+     * Runs in the background, as valuing may fetch prices and rates upstream;
+     * of concurrent changes to a symbol only the latest started is applied.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchaseChanged(PurchaseChangedEvent event) {
+        PortfolioState state = snapshots.getIfPresent(event.userId());
+        if (state == null) {
+            return;
+        }
+
+        long change = state.beginChange();
+        try {
+            List<PortfolioPositionDTO> position = portfolioValuationEngine.value(
+                corporateActionService.adjustPositions(
+                    event.userId(),
+                    purchaseRepository.findAggregatedPurchasesByUserIdAndSymbol(
+                        event.userId(),
+                        event.symbol()
+                    )
+                )
+            );
+            if (
+                !state.replace(
+                    event.symbol(),
+                    position.isEmpty() ? null : position.get(0),
+                    change
+                )
+            ) {
+                return;
+            }
+            if (position.isEmpty()) {
+                unindex(event.symbol(), event.userId());
+            } else {
+                index(event.symbol(), event.userId());
+            }
+            publish(event.userId(), state);
+        } catch (RuntimeException e) {
+            log.warn(
+                "Failed to update portfolio snapshot of user {}, rebuilding on next read: {}",
+                event.userId(),
+                e.getMessage()
+            );
+            snapshots.asMap().remove(event.userId(), state);
+        } finally {
+            state.endChange();
+        }
+    }
+
+    /**
+     * Drop the snapshots holding a symbol whose shares were split or paid a
+     * dividend, on any node; they are rebuilt on next read
+     */
+    @EventListener
+    public void onAdjustmentFactorsChanged(
+        AdjustmentFactorsChangedEvent event
+    ) {
+        if (event.symbol() == null) {
+            snapshots.invalidateAll();
+            return;
+        }
+        Set<UUID> userIds = holders.get(event.symbol());
+        if (userIds != null) {
+            snapshots.invalidateAll(Set.copyOf(userIds));
+        }
+    }
+
+    private PortfolioState build(UUID userId) {
+        PortfolioState state = new PortfolioState(
+            portfolioValuationEngine.value(
+                corporateActionService.adjustPositions(
+                    userId,
+                    purchaseRepository.findAggregatedPurchasesByUserId(userId)
+                )
+            ),
+            portfolioValuationEngine.baseCurrency()
+        );
+        state.symbols().forEach(symbol -> index(symbol, userId));
+        log.debug(
+            "Built portfolio snapshot of user {} with {} positions",
+            userId,
+            state.symbols().size()
+        );
+        return state;
+    }
+
+    private void index(String symbol, UUID userId) {
+        holders
+            .computeIfAbsent(symbol, key -> ConcurrentHashMap.newKeySet())
+            .add(userId);
+    }
+
+    private void unindex(String symbol, UUID userId) {
+        holders.computeIfPresent(symbol, (key, userIds) -> {
+            userIds.remove(userId);
+            return userIds.isEmpty() ? null : userIds;
+        });
+    }
+
+    private void publish(UUID userId, PortfolioState state) {
+        eventPublisher.publishEvent(
+            new PortfolioUpdatedEvent(userId, state.summary())
+        );
+    }
+
+    /**
+     * Positions and running totals of one user. Changes are serialized per
+     * user; readers get the last published summary without locking.
+     */
+    private static final class PortfolioState {
+
+        private final Map<String, PortfolioPositionDTO> positions =
+            new LinkedHashMap<>();
+        private Money totalValue = Money.ZERO;
+        private Money totalSpent = Money.ZERO;
+        private int totalPurchases;
+        private final String currency;
+        private volatile PortfolioSummaryDTO summary;
+        // Purchase changes started, and the latest applied per symbol
+        private final AtomicLong changes = new AtomicLong();
+        private final AtomicInteger pendingChanges = new AtomicInteger();
+        private final Map<String, Long> appliedChanges = new HashMap<>();
+
+        PortfolioState(List<PortfolioPositionDTO> initial, String currency) {
+            this.currency = currency;
+            for (PortfolioPositionDTO position : initial) {
+                positions.put(position.symbol(), position);
+                add(position, 1);
+            }
+            publishSummary();
+        }
+
+        PortfolioSummaryDTO summary() {
+            return summary;
+        }
+
+        synchronized Set<String> symbols() {
+            return Set.copyOf(positions.keySet());
+        }
+
+        /**
+         * Start applying a purchase change
+         *
+         * @return the change's number, later than all started before
+         */
+        long beginChange() {
+            pendingChanges.incrementAndGet();
+            return changes.incrementAndGet();
+        }
+
+        void endChange() {
+            pendingChanges.decrementAndGet();
+        }
+
+        boolean hasPendingChanges() {
+            return pendingChanges.get() > 0;
+        }
+
+        /**
+         * Apply a written price to the position of its symbol, unless the
+         * position already has a newer one. The first price of a position
+         * valued without one always applies, moving it into the totals.
+         *
+         * @return whether the snapshot changed
+         */
+        synchronized boolean reprice(StockData row, LocalDateTime timestamp) {
+            PortfolioPositionDTO position = positions.get(row.getSymbol());
+            // Older rows are backfills, not ticks
+            if (
+                position == null ||
+                row.getPrice() == null ||
+                row.getDataDate() == null ||
+                row.getDataDate().isBefore(LocalDate.now()) ||
+                (isPriced(position) &&
+                    row.getPrice().compareTo(position.currentPrice()) == 0)
+            ) {
+                return false;
+            }
+
+            replace(
+                row.getSymbol(),
+                withPrice(position, row.getPrice(), timestamp)
+            );
+            return true;
+        }
+
+        /**
+         * Replace or remove the position of a symbol for a purchase change,
+         * unless a later change of the symbol was applied already
+         *
+         * @return whether the snapshot changed
+         */
+        synchronized boolean replace(
+            String symbol,
+            PortfolioPositionDTO position,
+            long change
+        ) {
+            if (change < appliedChanges.getOrDefault(symbol, 0L)) {
+                return false;
+            }
+            appliedChanges.put(symbol, change);
+            replace(symbol, position);
+            return true;
+        }
+
+        /**
+         * Replace or, given null, remove the position of a symbol
+         */
+        private synchronized void replace(
+            String symbol,
+            PortfolioPositionDTO position
+        ) {
+            PortfolioPositionDTO previous = position != null
+                ? positions.put(symbol, position)
+                : positions.remove(symbol);
+            if (previous != null) {
+                add(previous, -1);
+            }
+            if (position != null) {
+                add(position, 1);
+            }
+            publishSummary();
+        }
+
+        /**
+         * Add a position to the totals in the summary currency. Positions
+         * without a price or a rate are left out of the value and cost
+         * totals, which are then partial.
+         */
+        private void add(PortfolioPositionDTO position, int sign) {
+            totalPurchases += sign * position.purchaseCount();
+            if (!isCounted(position)) {
+                return;
+            }
+            Money fxRate = Money.of(position.fxRate());
+            totalValue = totalValue.plus(
+                converted(position.currentValue(), fxRate).times(sign)
+            );
+            totalSpent = totalSpent.plus(
+                converted(position.totalSpent(), fxRate).times(sign)
+            );
+        }
+
+        private static boolean isCounted(PortfolioPositionDTO position) {
+            return position.fxRate() != null && isPriced(position);
+        }
+
+        private static boolean isPriced(PortfolioPositionDTO position) {
+            return (
+                position.priceSource() != PriceSource.UNAVAILABLE &&
+                position.currentPrice() != null
+            );
+        }
+
+        private static Money converted(BigDecimal amount, Money fxRate) {
+            Money money = Money.of(amount);
+            return fxRate.compareTo(Money.ONE) == 0
+                ? money
+                : money.convertedAt(fxRate);
+        }
+
+        private void publishSummary() {
+            Money profitLoss = totalValue.minus(totalSpent);
+
+            summary = new PortfolioSummaryDTO(
+                List.copyOf(positions.values()),
+                totalValue.toBigDecimal(),
+                totalSpent.toBigDecimal(),
+                profitLoss.toBigDecimal(),
+                profitLoss.percentOf(totalSpent).toBigDecimal(),
+                positions.size(),
+                totalPurchases,
+                LocalDateTime.now(),
+                currency,
+                positions
+                    .values()
+                    .stream()
+                    .filter(position -> !isCounted(position))
+                    .map(PortfolioPositionDTO::symbol)
+                    .toList()
+            );
+        }
+
+        private static PortfolioPositionDTO withPrice(
+            PortfolioPositionDTO position,
+            BigDecimal price,
+            LocalDateTime timestamp
+        ) {
+            Money totalSpent = Money.of(position.totalSpent());
+            Money currentValue = Money.of(price).times(position.quantity());
+            Money profitLoss = currentValue.minus(totalSpent);
+
+            return new PortfolioPositionDTO(
+                position.symbol(),
+                position.quantity(),
+                position.averagePrice(),
+                price,
+                currentValue.toBigDecimal(),
+                position.totalSpent(),
+                position.totalCommission(),
+                profitLoss.toBigDecimal(),
+                profitLoss.percentOf(totalSpent).toBigDecimal(),
+                position.purchaseCount(),
+                position.firstPurchaseDate(),
+                position.lastPurchaseDate(),
+                PriceSource.UPSTREAM,
+                Math.max(
+                    0,
+                    Duration.between(timestamp, LocalDateTime.now()).toSeconds()
+                ),
+                position.currency(),
+                position.fxRate()
+            );
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.stocknotebook.service;
+
+import com.stocknotebook.cache.StockPriceCache;
+import com.stocknotebook.cache.UnknownSymbolCache;
+import com.stocknotebook.dto.response.PortfolioPositionDTO;
+import com.stocknotebook.dto.response.PriceSource;
+import com.stocknotebook.dto.response.StockPriceDTO;
+import com.stocknotebook.model.Money;
+import com.stocknotebook.repository.PositionAggregate;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Values portfolio positions against current prices.
+ *
+ * Positions arrive already aggregated by the database together with the
+ * latest stored quote of each symbol (see
+ * {@code PurchaseRepository#findAggregatedPurchasesByUserId}). All prices are
+ * settled in one bulk step before any position is computed: cached prices
+ * first, then stored quotes dated today, then a single batched load through
+ * the price cache for the rest (see {@link StockService#loadCurrentPrices}),
+ * with the stored quote as the last resort. A cold portfolio therefore waits
+ * for one upstream round trip instead of one per symbol. Positions are then
+ * computed in parallel, in {@link Money} arithmetic and in the currency of
+ * their symbol, and report where
+ * their price came from, how old it is and the latest rate to the base
+ * currency from the {@link FxRateTable}.
+ */
+@Component
+public class PortfolioValuationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        PortfolioValuationEngine.class
+    );
+
+    private final StockPriceCache stockPriceCache;
+    private final UnknownSymbolCache unknownSymbolCache;
+    private final FxRateTable fxRateTable;
+
+    public PortfolioValuationEngine(
+        StockPriceCache stockPriceCache,
+        UnknownSymbolCache unknownSymbolCache,
+        FxRateTable fxRateTable
+    ) {
+        this.stockPriceCache = stockPriceCache;
+        this.unknownSymbolCache = unknownSymbolCache;
+        this.fxRateTable = fxRateTable;
+    }
+
+    /**
+     * Currency that position values are converted to for totals
+     */
+    public String baseCurrency() {
+        return fxRateTable.baseCurrency();
+    }
+
+    /**
+     * Value aggregated positions, one per symbol. Symbols without a price are
+     * reported with {@link PriceSource#UNAVAILABLE}, a zero current value and
+     * no profit or loss, rather than a loss of their whole cost.
+     */
+    public List<PortfolioPositionDTO> value(List<PositionAggregate> positions) {
+        long started = System.currentTimeMillis();
+        Map<String, PricedQuote> prices = price(positions);
+        log.debug(
+            "Priced {} of {} symbols in {} ms",
+            prices.size(),
+            positions.size(),
+            System.currentTimeMillis() - started
+        );
+
+        LocalDate today = LocalDate.now();
+        FxRateTable.Rates rates = fxRateTable.rates(
+            positions.stream().map(PositionAggregate::getCurrency).toList(),
+            today
+        );
+
+        LocalDateTime now = LocalDateTime.now();
+        return positions
+            .parallelStream()
+            .map(position ->
+                calculatePosition(
+                    position,
+                    prices.get(position.getSymbol()),
+                    rates,
+                    now
+                )
+            )
+            .toList();
+    }
+
+    private Map<String, PricedQuote> price(List<PositionAggregate> positions) {
+        Map<String, PricedQuote> prices = new HashMap<>();
+        Set<String> symbols = positions
+            .stream()
+            .map(PositionAggregate::getSymbol)
+            .filter(symbol -> !unknownSymbolCache.isUnknown(symbol))
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        stockPriceCache
+            .getAllPresent(symbols)
+            .forEach((symbol, price) ->
+                prices.put(symbol, new PricedQuote(price, PriceSource.CACHE))
+            );
+
+        // Quotes stored today came with the aggregates, no lookup needed
+        LocalDate today = LocalDate.now();
+        List<String> missing = new ArrayList<>();
+        for (PositionAggregate position : positions) {
+            String symbol = position.getSymbol();
+            if (prices.containsKey(symbol) || !symbols.contains(symbol)) {
+                continue;
+            }
+            if (today.equals(position.getLatestPriceDate())) {
+                prices.put(symbol, storedQuote(position, PriceSource.DATABASE));
+            } else {
+                missing.add(symbol);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            StockPriceCache.Lookup loaded = stockPriceCache.lookup(missing);
+            loaded
+                .prices()
+                .forEach((symbol, price) ->
+                    prices.put(
+                        symbol,
+                        new PricedQuote(
+                            price,
+                            loaded.isCached(symbol)
+                                ? PriceSource.CACHE
+                                : sourceOf(price)
+                        )
+                    )
+                );
+        }
+
+        // Fall back to the stored quote joined in by the aggregate query
+        for (PositionAggregate position : positions) {
+            if (
+                !prices.containsKey(position.getSymbol()) &&
+                position.getLatestPrice() != null
+            ) {
+                prices.put(
+                    position.getSymbol(),
+                    storedQuote(position, PriceSource.LATEST_STORED)
+                );
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Calculate position for a symbol
+     */
+    private PortfolioPositionDTO calculatePosition(
+        PositionAggregate position,
+        PricedQuote quote,
+        FxRateTable.Rates rates,
+        LocalDateTime now
+    ) {
+        long totalQuantity = position.getTotalQuantity();
+        Money totalCost = Money.of(position.getTotalCost());
+
+        Money averagePrice = totalQuantity > 0
+            ? totalCost.dividedBy(totalQuantity)
+            : Money.ZERO;
+
+        BigDecimal currentPrice = quote != null ? quote.price().price() : null;
+        Money currentValue = currentPrice != null
+            ? Money.of(currentPrice).times(totalQuantity)
+            : Money.ZERO;
+
+        // Calculate profit/loss, unknown without a price
+        Money profitLoss = currentPrice != null
+            ? currentValue.minus(totalCost)
+            : Money.ZERO;
+
+        return new PortfolioPositionDTO(
+            position.getSymbol(),
+            totalQuantity,
+            averagePrice.toBigDecimal(),
+            currentPrice,
+            currentValue.toBigDecimal(),
+            position.getTotalCost(),
+            position.getTotalCommission(),
+            profitLoss.toBigDecimal(),
+            profitLoss.percentOf(totalCost).toBigDecimal(),
+            Math.toIntExact(position.getPurchaseCount()),
+            position.getFirstPurchaseDate(),
+            position.getLastPurchaseDate(),
+            quote != null ? quote.source() : PriceSource.UNAVAILABLE,
+            quote != null ? ageInSeconds(quote.price(), now) : null,
+            currency(position, rates),
+            rates.latestRate(position.getCurrency())
+        );
+    }
+
+    private static String currency(
+        PositionAggregate position,
+        FxRateTable.Rates rates
+    ) {
+        return position.getCurrency() != null
+            ? position.getCurrency().toUpperCase()
+            : rates.baseCurrency();
+    }
+
+    private static PricedQuote storedQuote(
+        PositionAggregate position,
+        PriceSource source
+    ) {
+        return new PricedQuote(
+            new StockPriceDTO(
+                position.getSymbol(),
+                position.getLatestPrice(),
+                position.getLatestPriceCreatedAt(),
+                source
+            ),
+            source
+        );
+    }
+
+    private static PriceSource sourceOf(StockPriceDTO price) {
+        return price.source() != null ? price.source() : PriceSource.UPSTREAM;
+    }
+
+    private static long ageInSeconds(StockPriceDTO price, LocalDateTime now) {
+        return Math.max(0, Duration.between(price.timestamp(), now).toSeconds());
+    }
+
+    private record PricedQuote(StockPriceDTO price, PriceSource source) {}
+}
@@ -1,26 +1,29 @@
 package com.stocknotebook.service;
 
 import com.stocknotebook.dto.request.CreatePurchaseRequestDTO;
-import com.stocknotebook.dto.response.PortfolioPositionDTO;
+import com.stocknotebook.dto.response.PortfolioAsOfDTO;
+import com.stocknotebook.dto.response.PortfolioHistoryDTO;
+import com.stocknotebook.dto.response.PortfolioRiskDTO;
 import com.stocknotebook.dto.response.PortfolioSummaryDTO;
 import com.stocknotebook.dto.response.PurchaseResponseDTO;
 import com.stocknotebook.dto.response.StockPriceDTO;
 import com.stocknotebook.entity.Purchase;
 import com.stocknotebook.entity.User;
+import com.stocknotebook.event.PurchaseChangedEvent;
 import com.stocknotebook.repository.PurchaseRepository;
 import com.stocknotebook.repository.UserRepository;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -34,15 +37,30 @@ public class PurchaseService {
     private final PurchaseRepository purchaseRepository;
     private final UserRepository userRepository;
     private final StockService stockService;
+    private final PortfolioSnapshotEngine portfolioSnapshotEngine;
+    private final PortfolioHistoryEngine portfolioHistoryEngine;
+    private final PortfolioRiskEngine portfolioRiskEngine;
+    private final DailySnapshotService dailySnapshotService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PurchaseService(
         PurchaseRepository purchaseRepository,
         UserRepository userRepository,
-        StockService stockService
+        StockService stockService,
+        PortfolioSnapshotEngine portfolioSnapshotEngine,
+        PortfolioHistoryEngine portfolioHistoryEngine,
+        PortfolioRiskEngine portfolioRiskEngine,
+        DailySnapshotService dailySnapshotService,
+        ApplicationEventPublisher eventPublisher
     ) {
         this.purchaseRepository = purchaseRepository;
         this.userRepository = userRepository;
         this.stockService = stockService;
+        this.portfolioSnapshotEngine = portfolioSnapshotEngine;
+        this.portfolioHistoryEngine = portfolioHistoryEngine;
+        this.portfolioRiskEngine = portfolioRiskEngine;
+        this.dailySnapshotService = dailySnapshotService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -74,6 +92,9 @@ public class PurchaseService {
         );
 
         Purchase savedPurchase = purchaseRepository.save(purchase);
+        eventPublisher.publishEvent(
+            new PurchaseChangedEvent(userId, savedPurchase.getSymbol())
+        );
         log.info(
             "Successfully created purchase: {} for user: {}",
             savedPurchase.getId(),
@@ -119,72 +140,52 @@ public class PurchaseService {
     }
 
     /**
-     * Get portfolio summary with current prices
+     * Get portfolio summary with current prices.
+     *
+     * Served from the user's maintained snapshot; the first call builds it
+     * outside a transaction because pricing may call Yahoo Finance.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PortfolioSummaryDTO getPortfolioSummary(UUID userId) {
         log.info("Getting portfolio summary for user: {}", userId);
+        return portfolioSnapshotEngine.getSummary(userId);
+    }
 
-        List<Purchase> purchases = purchaseRepository.findByUserId(userId);
-
-        if (purchases.isEmpty()) {
-            return new PortfolioSummaryDTO(
-                List.of(),
-                BigDecimal.ZERO,
-                BigDecimal.ZERO,
-                BigDecimal.ZERO,
-                BigDecimal.ZERO,
-                0,
-                0,
-                LocalDateTime.now()
-            );
-        }
-
-        // Group purchases by symbol
-        Map<String, List<Purchase>> groupedBySymbol = purchases
-            .stream()
-            .collect(Collectors.groupingBy(Purchase::getSymbol));
-
-        // Calculate positions
-        List<PortfolioPositionDTO> positions = groupedBySymbol
-            .entrySet()
-            .stream()
-            .map(entry -> calculatePosition(entry.getKey(), entry.getValue()))
-            .collect(Collectors.toList());
+    /**
+     * Get the portfolio value on each trading day of a chart period
+     */
+    @Transactional(readOnly = true)
+    public PortfolioHistoryDTO getPortfolioHistory(UUID userId, String period) {
+        log.info(
+            "Getting portfolio history for user: {} with period: {}",
+            userId,
+            period
+        );
+        return portfolioHistoryEngine.getHistory(userId, period);
+    }
 
-        // Calculate totals
-        BigDecimal totalValue = positions
-            .stream()
-            .map(PortfolioPositionDTO::currentValue)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Get volatility, drawdown, beta and correlations of the portfolio.
+     *
+     * Runs outside a transaction because missing daily prices may be loaded
+     * from Yahoo Finance.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PortfolioRiskDTO getPortfolioRisk(UUID userId) {
+        log.info("Getting portfolio risk for user: {}", userId);
+        return portfolioRiskEngine.getRisk(userId);
+    }
 
-        BigDecimal totalSpent = positions
-            .stream()
-            .map(PortfolioPositionDTO::totalSpent)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal profitLoss = totalValue.subtract(totalSpent);
-        BigDecimal profitLossPercentage = totalSpent.compareTo(
-                BigDecimal.ZERO
-            ) >
-            0
-            ? profitLoss
-                .divide(totalSpent, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100))
-            : BigDecimal.ZERO;
-
-        int totalPurchases = purchases.size();
-
-        return new PortfolioSummaryDTO(
-            positions,
-            totalValue,
-            totalSpent,
-            profitLoss,
-            profitLossPercentage,
-            positions.size(),
-            totalPurchases,
-            LocalDateTime.now()
-        );
+    /**
+     * Get the portfolio value at the close of a past day.
+     *
+     * Read from the end-of-day snapshots; days before them are computed, which
+     * may load FX rates from Yahoo Finance, so this runs outside a transaction.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PortfolioAsOfDTO getPortfolioAsOf(UUID userId, LocalDate date) {
+        log.info("Getting portfolio as of {} for user: {}", date, userId);
+        return dailySnapshotService.getAsOf(userId, date);
     }
 
     /**
@@ -248,6 +249,7 @@ public class PurchaseService {
         return purchaseRepository
             .findById(purchaseId)
             .map(purchase -> {
+                String previousSymbol = purchase.getSymbol();
                 purchase.setSymbol(request.symbol());
                 purchase.setQuantity(request.quantity());
                 purchase.setPricePerShare(request.pricePerShare());
@@ -255,6 +257,17 @@ public class PurchaseService {
                 purchase.setPurchaseDate(request.purchaseDate());
 
                 Purchase savedPurchase = purchaseRepository.save(purchase);
+                UUID userId = savedPurchase.getUser().getId();
+                eventPublisher.publishEvent(
+                    new PurchaseChangedEvent(userId, savedPurchase.getSymbol())
+                );
+                if (
+                    !previousSymbol.equalsIgnoreCase(savedPurchase.getSymbol())
+                ) {
+                    eventPublisher.publishEvent(
+                        new PurchaseChangedEvent(userId, previousSymbol)
+                    );
+                }
                 log.info(
                     "Successfully updated purchase: {}",
                     savedPurchase.getId()
@@ -270,12 +283,19 @@ public class PurchaseService {
     public boolean deletePurchase(UUID purchaseId) {
         log.info("Deleting purchase: {}", purchaseId);
 
-        if (!purchaseRepository.existsById(purchaseId)) {
+        Optional<Purchase> purchase = purchaseRepository.findById(purchaseId);
+        if (purchase.isEmpty()) {
             log.warn("Purchase not found for deletion: {}", purchaseId);
             return false;
         }
 
-        purchaseRepository.deleteById(purchaseId);
+        purchaseRepository.delete(purchase.get());
+        eventPublisher.publishEvent(
+            new PurchaseChangedEvent(
+                purchase.get().getUser().getId(),
+                purchase.get().getSymbol()
+            )
+        );
         log.info("Successfully deleted purchase: {}", purchaseId);
         return true;
     }
@@ -290,82 +310,6 @@ public class PurchaseService {
         return purchaseRepository.findById(purchaseId).map(this::mapToDTO);
     }
 
-    /**
-     * Calculate position for a symbol
-     */
-    private PortfolioPositionDTO calculatePosition(
-        String symbol,
-        List<Purchase> purchases
-    ) {
-        // Calculate totals using streams
-        Integer totalQuantity = purchases
-            .stream()
-            .mapToInt(Purchase::getQuantity)
-            .sum();
-
-        BigDecimal totalCost = purchases
-            .stream()
-            .map(Purchase::getTotalCost)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalCommission = purchases
-            .stream()
-            .map(Purchase::getCommission)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal averagePrice = totalQuantity > 0
-            ? totalCost.divide(
-                BigDecimal.valueOf(totalQuantity),
-                4,
-                RoundingMode.HALF_UP
-            )
-            : BigDecimal.ZERO;
-
-        // Get current price
-        StockPriceDTO currentPriceDTO = stockService.getCurrentPrice(symbol);
-        BigDecimal currentPrice = currentPriceDTO.price();
-        BigDecimal currentValue = currentPrice.multiply(
-            BigDecimal.valueOf(totalQuantity)
-        );
-
-        // Calculate profit/loss
-        BigDecimal profitLoss = currentValue.subtract(totalCost);
-        BigDecimal profitLossPercentage = totalCost.compareTo(BigDecimal.ZERO) >
-            0
-            ? profitLoss
-                .divide(totalCost, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100))
-            : BigDecimal.ZERO;
-
-        // Get purchase dates
-        LocalDate firstPurchaseDate = purchases
-            .stream()
-            .map(Purchase::getPurchaseDate)
-            .min(LocalDate::compareTo)
-            .orElse(null);
-
-        LocalDate lastPurchaseDate = purchases
-            .stream()
-            .map(Purchase::getPurchaseDate)
-            .max(LocalDate::compareTo)
-            .orElse(null);
-
-        return new PortfolioPositionDTO(
-            symbol,
-            totalQuantity,
-            averagePrice,
-            currentPrice,
-            currentValue,
-            totalCost,
-            totalCommission,
-            profitLoss,
-            profitLossPercentage,
-            purchases.size(),
-            firstPurchaseDate,
-            lastPurchaseDate
-        );
-    }
-
     /**
      * Map Purchase entity to DTO
      */
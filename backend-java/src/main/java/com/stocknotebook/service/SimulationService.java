@@ -0,0 +1,284 @@
+package com.stocknotebook.service;
+
+import com.stocknotebook.dto.request.DcaSimulationRequestDTO;
+import com.stocknotebook.dto.request.DcaSimulationRequestDTO.Scenario;
+import com.stocknotebook.dto.response.DcaSimulationDTO;
+import com.stocknotebook.dto.response.DcaSimulationDTO.ScenarioResult;
+import com.stocknotebook.dto.response.PortfolioHistoryDTO;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.repository.StockDataRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Replays recurring-purchase (dollar-cost averaging) strategies over stored
+ * prices.
+ *
+ * The prices of every symbol in the request are loaded once, in one query,
+ * into primitive series shared read-only by all scenarios, so a grid of
+ * scenarios costs one data load. Scenarios are independent and run in
+ * parallel on the common fork-join pool.
+ *
+ * A scheduled purchase executes at the close of the first trading day on or
+ * after its date, at most once per trading day; symbols not yet priced on that
+ * day are skipped. Shares are fractional. Prices are adjusted for splits
+ * with dividends reinvested, using the cached corporate-action factors.
+ */
+@Service
+public class SimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        SimulationService.class
+    );
+
+    private final StockDataRepository stockDataRepository;
+    private final CorporateActionService corporateActionService;
+
+    public SimulationService(
+        StockDataRepository stockDataRepository,
+        CorporateActionService corporateActionService
+    ) {
+        this.stockDataRepository = stockDataRepository;
+        this.corporateActionService = corporateActionService;
+    }
+
+    /**
+     * Simulate every scenario of the request over stored prices
+     */
+    public DcaSimulationDTO simulateDca(DcaSimulationRequestDTO request) {
+        long started = System.currentTimeMillis();
+        List<Scenario> scenarios = request.scenarios();
+
+        Set<String> symbols = new TreeSet<>();
+        LocalDate startDate = null;
+        LocalDate endDate = null;
+        for (Scenario scenario : scenarios) {
+            if (scenario.endDate().isBefore(scenario.startDate())) {
+                throw new IllegalArgumentException(
+                    "End date must not be before start date"
+                );
+            }
+            symbols.addAll(scenario.symbols());
+            if (startDate == null || scenario.startDate().isBefore(startDate)) {
+                startDate = scenario.startDate();
+            }
+            if (endDate == null || scenario.endDate().isAfter(endDate)) {
+                endDate = scenario.endDate();
+            }
+        }
+
+        Map<String, PriceSeries> series = new HashMap<>(
+            stockDataRepository.findSeriesBySymbolsAndDateRange(
+                symbols,
+                startDate,
+                endDate
+            )
+        );
+        corporateActionService
+            .getFactors(series.keySet())
+            .forEach((symbol, factors) ->
+                series.computeIfPresent(symbol, (key, prices) ->
+                    factors.adjust(prices, true)
+                )
+            );
+        List<ScenarioResult> results = IntStream.range(0, scenarios.size())
+            .parallel()
+            .mapToObj(index -> simulate(index, scenarios.get(index), series))
+            .toList();
+        List<String> unpriced = symbols
+            .stream()
+            .filter(symbol -> !series.containsKey(symbol))
+            .toList();
+
+        log.info(
+            "Simulated {} scenarios over {} symbols in {} ms",
+            scenarios.size(),
+            symbols.size(),
+            System.currentTimeMillis() - started
+        );
+        return new DcaSimulationDTO(results, unpriced);
+    }
+
+    private static ScenarioResult simulate(
+        int index,
+        Scenario scenario,
+        Map<String, PriceSeries> series
+    ) {
+        List<String> symbols = scenario.symbols();
+        int count = symbols.size();
+        PriceSeries[] prices = new PriceSeries[count];
+        for (int i = 0; i < count; i++) {
+            PriceSeries symbolSeries = series.get(symbols.get(i));
+            prices[i] = symbolSeries != null
+                ? symbolSeries.between(scenario.startDate(), scenario.endDate())
+                : PriceSeries.empty();
+        }
+        int[] axis = tradingDays(
+            prices,
+            scenario.startDate(),
+            scenario.endDate()
+        );
+
+        double perSymbol = scenario.amount().doubleValue() / count;
+        double spentOnShares = Math.max(
+            0,
+            perSymbol - scenario.commission().doubleValue()
+        );
+        int[] cursors = new int[count];
+        double[] closes = new double[count];
+        double[] shares = new double[count];
+        Arrays.fill(closes, Double.NaN);
+
+        int period = 0;
+        int nextPurchase = purchaseDay(scenario, period);
+        int purchaseCount = 0;
+        double invested = 0;
+        double previousValue = 0;
+        // Value of one unit invested at the start, unaffected by new money
+        double unitValue = 1;
+        double peak = 1;
+        double drawdown = 0;
+        List<PortfolioHistoryDTO.Point> curve = new ArrayList<>(axis.length);
+        for (int day : axis) {
+            for (int i = 0; i < count; i++) {
+                while (
+                    cursors[i] < prices[i].size() &&
+                    prices[i].epochDayAt(cursors[i]) <= day
+                ) {
+                    closes[i] = prices[i].priceAsDoubleAt(cursors[i]++);
+                }
+            }
+
+            double value = value(shares, closes);
+            if (previousValue > 0) {
+                unitValue *= value / previousValue;
+                peak = Math.max(peak, unitValue);
+                drawdown = Math.max(drawdown, (peak - unitValue) / peak);
+            }
+
+            if (nextPurchase <= day) {
+                for (int i = 0; i < count; i++) {
+                    if (!Double.isNaN(closes[i])) {
+                        shares[i] += spentOnShares / closes[i];
+                        invested += perSymbol;
+                        purchaseCount++;
+                    }
+                }
+                while (nextPurchase <= day) {
+                    nextPurchase = purchaseDay(scenario, ++period);
+                }
+                value = value(shares, closes);
+            }
+            previousValue = value;
+
+            curve.add(
+                new PortfolioHistoryDTO.Point(
+                    LocalDate.ofEpochDay(day),
+                    money(value),
+                    money(invested)
+                )
+            );
+        }
+
+        double finalValue = previousValue;
+        Map<String, BigDecimal> held = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            held.put(
+                symbols.get(i),
+                BigDecimal.valueOf(shares[i]).setScale(6, RoundingMode.HALF_UP)
+            );
+        }
+        return new ScenarioResult(
+            scenario.name() != null
+                ? scenario.name()
+                : "Scenario " + (index + 1),
+            symbols,
+            scenario.frequency(),
+            money(invested),
+            money(finalValue),
+            money(finalValue - invested),
+            money(invested > 0 ? (finalValue - invested) / invested * 100 : 0),
+            money((unitValue - 1) * 100),
+            money(drawdown * 100),
+            purchaseCount,
+            held,
+            curve
+        );
+    }
+
+    /**
+     * Epoch day of the n-th scheduled purchase, counted from the start date
+     * so monthly purchases keep their day of month
+     */
+    private static int purchaseDay(Scenario scenario, int period) {
+        LocalDate start = scenario.startDate();
+        LocalDate date = switch (scenario.frequency()) {
+            case DAILY -> start.plusDays(period);
+            case WEEKLY -> start.plusWeeks(period);
+            case MONTHLY -> start.plusMonths(period);
+        };
+        return (int) date.toEpochDay();
+    }
+
+    private static double value(double[] shares, double[] closes) {
+        double value = 0;
+        for (int i = 0; i < shares.length; i++) {
+            if (shares[i] > 0) {
+                value += shares[i] * closes[i];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Days from start to end on which any of the series has a price
+     */
+    private static int[] tradingDays(
+        PriceSeries[] series,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        int firstDay = (int) startDate.toEpochDay();
+        int span = (int) (endDate.toEpochDay() - firstDay + 1);
+        if (span <= 0) {
+            return new int[0];
+        }
+
+        boolean[] traded = new boolean[span];
+        int count = 0;
+        for (PriceSeries prices : series) {
+            for (int i = 0; i < prices.size(); i++) {
+                int offset = prices.epochDayAt(i) - firstDay;
+                if (offset >= 0 && offset < span && !traded[offset]) {
+                    traded[offset] = true;
+                    count++;
+                }
+            }
+        }
+
+        int[] axis = new int[count];
+        for (int offset = 0, i = 0; offset < span; offset++) {
+            if (traded[offset]) {
+                axis[i++] = firstDay + offset;
+            }
+        }
+        return axis;
+    }
+
+    private static BigDecimal money(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,387 @@
+package com.stocknotebook.service;
+
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.event.StockDataWrittenEvent;
+import com.stocknotebook.repository.StockDataRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asynchronous, batching write-behind queue for fetched stock quotes.
+ *
+ * Quotes are coalesced by (symbol, date) so a burst of fetches for the same
+ * symbol results in a single row. A background thread flushes the queue as one
+ * batched upsert once it reaches the batch size or the flush interval elapses.
+ * When the queue is full, producers wait for a flush up to the offer timeout and
+ * then write synchronously, so no quote is dropped. Pending quotes are drained on
+ * shutdown, and quotes queued after that are written synchronously. Every
+ * successful write publishes a {@link StockDataWrittenEvent}.
+ *
+ * A batch that fails is retried row by row, so one bad row cannot hold back the
+ * others. Rows that still fail are re-queued up to the max attempts, then
+ * logged as dead letters and dropped.
+ */
+@Component
+public class StockDataWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        StockDataWriteBehindQueue.class
+    );
+
+    private final StockDataRepository stockDataRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final int maxAttempts;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private Map<QuoteKey, StockData> pending = new LinkedHashMap<>();
+    private Map<QuoteKey, StockData> inFlight = Map.of();
+    private final Map<QuoteKey, Integer> failedAttempts = new HashMap<>();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public StockDataWriteBehindQueue(
+        StockDataRepository stockDataRepository,
+        ApplicationEventPublisher eventPublisher,
+        @Value("${app.write-behind.capacity:10000}") int capacity,
+        @Value("${app.write-behind.batch-size:500}") int batchSize,
+        @Value("${app.write-behind.flush-interval:1000}") long flushIntervalMs,
+        @Value("${app.write-behind.offer-timeout:200}") long offerTimeoutMs,
+        @Value("${app.write-behind.max-attempts:5}") int maxAttempts
+    ) {
+        this.stockDataRepository = stockDataRepository;
+        this.eventPublisher = eventPublisher;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flusher = new Thread(this::runFlusher, "stock-data-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info(
+            "Started stock data write-behind queue (capacity: {}, batch size: {}, flush interval: {} ms)",
+            capacity,
+            batchSize,
+            flushIntervalMs
+        );
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        lock.lock();
+        try {
+            flushRequested.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join(flushIntervalMs * 5);
+
+        // Failed rows are re-queued until written or dropped as dead letters
+        int drained = 0;
+        while (size() > 0) {
+            drained += flush();
+        }
+        log.info("Stopped stock data write-behind queue, drained {} rows", drained);
+    }
+
+    /**
+     * Queue a quote for persistence. A quote for a (symbol, date) that is already
+     * pending replaces it in place. Once the queue is stopped, the quote is
+     * written synchronously.
+     */
+    public void enqueue(StockData stockData) {
+        QuoteKey key = QuoteKey.of(stockData.getSymbol(), stockData.getDataDate());
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+
+        lock.lock();
+        try {
+            // Checked under the lock, so a quote queued before stop() set the
+            // flag is still drained by its final flush
+            while (
+                running &&
+                pending.size() >= capacity &&
+                !pending.containsKey(key)
+            ) {
+                flushRequested.signal();
+                if (remainingNanos <= 0) {
+                    break;
+                }
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+
+            if (
+                running &&
+                (pending.size() < capacity || pending.containsKey(key))
+            ) {
+                StockData previous = pending.put(key, stockData);
+                if (
+                    previous != null &&
+                    stockData.getVolume() == null &&
+                    previous.getVolume() != null
+                ) {
+                    stockData.setVolume(previous.getVolume());
+                }
+                if (pending.size() >= batchSize) {
+                    flushRequested.signal();
+                }
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+
+        if (running) {
+            log.warn(
+                "Write-behind queue full, writing {} for {} synchronously",
+                stockData.getSymbol(),
+                stockData.getDataDate()
+            );
+        }
+        stockDataRepository.upsertAll(List.of(stockData));
+        publishWritten(List.of(stockData));
+    }
+
+    /**
+     * Look up a quote that has been queued but not yet written to the database
+     */
+    public Optional<StockData> findPending(String symbol, LocalDate date) {
+        QuoteKey key = QuoteKey.of(symbol, date);
+
+        lock.lock();
+        try {
+            StockData stockData = pending.get(key);
+            if (stockData == null) {
+                stockData = inFlight.get(key);
+            }
+            return Optional.ofNullable(stockData);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of quotes waiting to be written
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write all pending quotes as one batched upsert, falling back to one
+     * upsert per row when the batch fails
+     *
+     * @return number of rows written
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<QuoteKey, StockData> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                batch = pending;
+                inFlight = batch;
+                pending = new LinkedHashMap<>();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                int written = stockDataRepository.upsertAll(batch.values());
+                log.debug("Flushed {} stock data rows", written);
+                succeeded(batch.keySet());
+                publishWritten(batch.values());
+                return written;
+            } catch (Exception e) {
+                log.warn(
+                    "Failed to flush {} stock data rows, writing them one by one: {}",
+                    batch.size(),
+                    e.getMessage()
+                );
+                return flushRowByRow(batch);
+            } finally {
+                lock.lock();
+                try {
+                    inFlight = Map.of();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Private helper methods
+
+    private void runFlusher() {
+        while (running) {
+            lock.lock();
+            try {
+                if (running && pending.size() < batchSize) {
+                    flushRequested.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            flush();
+        }
+    }
+
+    /**
+     * Notify listeners of written rows. Listener failures are logged so they
+     * never cause a written batch to be re-queued.
+     */
+    private void publishWritten(Collection<StockData> written) {
+        try {
+            eventPublisher.publishEvent(
+                new StockDataWrittenEvent(new ArrayList<>(written))
+            );
+        } catch (RuntimeException e) {
+            log.warn("Stock data write listener failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Upsert each row of a failed batch on its own, re-queueing the rows that
+     * still fail
+     *
+     * @return number of rows written
+     */
+    private int flushRowByRow(Map<QuoteKey, StockData> batch) {
+        Map<QuoteKey, StockData> written = new LinkedHashMap<>();
+        Map<QuoteKey, StockData> failed = new LinkedHashMap<>();
+        for (Map.Entry<QuoteKey, StockData> entry : batch.entrySet()) {
+            try {
+                stockDataRepository.upsertAll(List.of(entry.getValue()));
+                written.put(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                log.warn(
+                    "Failed to write stock data {} for {}: {}",
+                    entry.getKey().symbol(),
+                    entry.getKey().date(),
+                    e.getMessage()
+                );
+                failed.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        succeeded(written.keySet());
+        requeue(failed);
+        if (!written.isEmpty()) {
+            publishWritten(written.values());
+        }
+        return written.size();
+    }
+
+    private void succeeded(Collection<QuoteKey> keys) {
+        lock.lock();
+        try {
+            if (!failedAttempts.isEmpty()) {
+                failedAttempts.keySet().removeAll(keys);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Put failed rows back in the queue. A row that has failed max attempts
+     * times is logged as a dead letter and dropped instead.
+     */
+    private void requeue(Map<QuoteKey, StockData> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            int dropped = 0;
+            for (Map.Entry<QuoteKey, StockData> entry : batch.entrySet()) {
+                QuoteKey key = entry.getKey();
+                if (pending.containsKey(key)) {
+                    continue; // superseded by a newer quote
+                }
+                int attempts = failedAttempts.merge(key, 1, Integer::sum);
+                if (attempts >= maxAttempts) {
+                    failedAttempts.remove(key);
+                    StockData row = entry.getValue();
+                    log.error(
+                        "Dead letter: giving up on stock data {} for {} after {} attempts (price: {}, volume: {})",
+                        key.symbol(),
+                        key.date(),
+                        attempts,
+                        row.getPrice(),
+                        row.getVolume()
+                    );
+                    continue;
+                }
+                if (pending.size() >= capacity) {
+                    failedAttempts.remove(key);
+                    dropped++;
+                    continue;
+                }
+                pending.put(key, entry.getValue());
+            }
+            if (dropped > 0) {
+                log.error(
+                    "Dropped {} stock data rows, write-behind queue is full",
+                    dropped
+                );
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record QuoteKey(String symbol, LocalDate date) {
+        static QuoteKey of(String symbol, LocalDate date) {
+            return new QuoteKey(symbol.toUpperCase().trim(), date);
+        }
+    }
+}
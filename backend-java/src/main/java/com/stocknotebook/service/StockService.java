@@ -1,30 +1,52 @@
 package com.stocknotebook.service;
 
+import com.stocknotebook.cache.CacheInspector;
+import com.stocknotebook.cache.CacheInvalidationBus;
+import com.stocknotebook.cache.CacheNames;
+import com.stocknotebook.cache.StockPriceCache;
+import com.stocknotebook.cache.UnknownSymbolCache;
 import com.stocknotebook.client.YahooFinanceClient;
+import com.stocknotebook.dto.response.PriceSource;
 import com.stocknotebook.dto.response.StockPriceDTO;
 import com.stocknotebook.dto.response.SymbolSuggestionDTO;
 import com.stocknotebook.entity.StockData;
+import com.stocknotebook.event.StockDataWrittenEvent;
+import com.stocknotebook.exception.custom.StockNotFoundException;
 import com.stocknotebook.entity.Symbol;
+import com.stocknotebook.model.PriceSeries;
 import com.stocknotebook.repository.StockDataRepository;
+import com.stocknotebook.repository.StockDataVersion;
 import com.stocknotebook.repository.SymbolRepository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Stock prices, charts and symbol metadata.
+ *
+ * Methods that call Yahoo Finance are deliberately not transactional: database
+ * reads and writes around a remote fetch run in their own short repository
+ * transactions so no pooled connection is held while waiting on the network.
+ */
 @Service
-@Transactional
 public class StockService {
 
     private static final Logger log = LoggerFactory.getLogger(
@@ -34,54 +56,95 @@ public class StockService {
     private final StockDataRepository stockDataRepository;
     private final SymbolRepository symbolRepository;
     private final YahooFinanceClient yahooFinanceClient;
+    private final StockDataWriteBehindQueue stockDataWriteBehindQueue;
+    private final StockPriceCache stockPriceCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final CacheInspector cacheInspector;
+    private final UnknownSymbolCache unknownSymbolCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public StockService(
         StockDataRepository stockDataRepository,
         SymbolRepository symbolRepository,
-        YahooFinanceClient yahooFinanceClient
+        YahooFinanceClient yahooFinanceClient,
+        StockDataWriteBehindQueue stockDataWriteBehindQueue,
+        StockPriceCache stockPriceCache,
+        CacheInvalidationBus cacheInvalidationBus,
+        CacheInspector cacheInspector,
+        UnknownSymbolCache unknownSymbolCache,
+        ApplicationEventPublisher eventPublisher
     ) {
         this.stockDataRepository = stockDataRepository;
         this.symbolRepository = symbolRepository;
         this.yahooFinanceClient = yahooFinanceClient;
+        this.stockDataWriteBehindQueue = stockDataWriteBehindQueue;
+        this.stockPriceCache = stockPriceCache;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.cacheInspector = cacheInspector;
+        this.unknownSymbolCache = unknownSymbolCache;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Get current price for a stock symbol with caching
      */
-    @Cacheable(value = "stockPrices", key = "#symbol")
     public StockPriceDTO getCurrentPrice(String symbol) {
+        requireNotUnknown(symbol);
+        return stockPriceCache.get(symbol);
+    }
+
+    /**
+     * Age of the cached price for a symbol. Prices past their TTL are still
+     * served while a background refresh replaces them.
+     */
+    public Optional<CacheInspector.EntryAge> getCachedPriceAge(String symbol) {
+        return cacheInspector.ageOf(
+            CacheNames.STOCK_PRICES,
+            symbol.trim().toUpperCase()
+        );
+    }
+
+    /**
+     * Load current price for a stock symbol, bypassing the cache.
+     * Used by the price cache to load and refresh entries.
+     */
+    public StockPriceDTO loadCurrentPrice(String symbol) {
         log.info("Getting current price for symbol: {}", symbol);
 
         String upperSymbol = symbol.toUpperCase();
         LocalDate today = LocalDate.now();
 
-        // Check if we have today's data in database
-        Optional<StockData> todayData =
-            stockDataRepository.findBySymbolAndDataDate(upperSymbol, today);
+        // Check if we have today's data queued for writing or in database
+        Optional<StockData> todayData = stockDataWriteBehindQueue
+            .findPending(upperSymbol, today)
+            .or(() ->
+                stockDataRepository.findBySymbolAndDataDate(upperSymbol, today)
+            );
         if (todayData.isPresent()) {
             log.info("Found today's data in database for symbol: {}", symbol);
-            return mapToStockPriceDTO(todayData.get());
+            return mapToStockPriceDTO(todayData.get(), PriceSource.DATABASE);
         }
 
         // Fetch from Yahoo Finance API
         try {
             BigDecimal price = yahooFinanceClient.fetchCurrentPrice(symbol);
 
-            // Store in database
-            StockData stockData = new StockData(
-                upperSymbol,
-                price,
-                null,
-                today
+            // Hand off to the write-behind queue, the insert is batched later
+            stockDataWriteBehindQueue.enqueue(
+                new StockData(upperSymbol, price, null, today)
             );
-            stockDataRepository.save(stockData);
 
             log.info(
-                "Successfully fetched and stored current price for {}: {}",
+                "Successfully fetched and queued current price for {}: {}",
                 symbol,
                 price
             );
-            return new StockPriceDTO(upperSymbol, price, LocalDateTime.now());
+            return new StockPriceDTO(
+                upperSymbol,
+                price,
+                LocalDateTime.now(),
+                PriceSource.UPSTREAM
+            );
         } catch (Exception e) {
             log.error(
                 "Failed to fetch current price for symbol: {}",
@@ -94,7 +157,15 @@ public class StockService {
                 stockDataRepository.findLatestBySymbol(upperSymbol);
             if (latestData.isPresent()) {
                 log.warn("Using latest available data for symbol: {}", symbol);
-                return mapToStockPriceDTO(latestData.get());
+                return mapToStockPriceDTO(
+                    latestData.get(),
+                    PriceSource.LATEST_STORED
+                );
+            }
+
+            if (e instanceof StockNotFoundException notFound) {
+                rememberUnknownSymbol(upperSymbol);
+                throw notFound;
             }
 
             throw new RuntimeException(
@@ -104,41 +175,169 @@ public class StockService {
         }
     }
 
+    /**
+     * Load current prices for several symbols, bypassing the cache.
+     * Today's queued and stored quotes are read first, the rest are fetched
+     * from Yahoo Finance in one request, and anything still missing falls back
+     * to the latest stored price. Used by the price cache for bulk loads.
+     *
+     * @return prices keyed by upper-case symbol; unpriced symbols are absent
+     */
+    public Map<String, StockPriceDTO> loadCurrentPrices(
+        Collection<String> symbols
+    ) {
+        log.info("Loading current prices for {} symbols", symbols.size());
+
+        LocalDate today = LocalDate.now();
+        Map<String, StockPriceDTO> prices = new HashMap<>();
+        Set<String> missing = symbols
+            .stream()
+            .map(String::toUpperCase)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // Quotes queued for writing and today's stored quotes
+        for (String symbol : List.copyOf(missing)) {
+            stockDataWriteBehindQueue
+                .findPending(symbol, today)
+                .ifPresent(data -> {
+                    prices.put(
+                        symbol,
+                        mapToStockPriceDTO(data, PriceSource.DATABASE)
+                    );
+                    missing.remove(symbol);
+                });
+        }
+        if (!missing.isEmpty()) {
+            stockDataRepository
+                .findBySymbolsAndDate(missing, today)
+                .forEach(data -> {
+                    prices.put(
+                        data.getSymbol(),
+                        mapToStockPriceDTO(data, PriceSource.DATABASE)
+                    );
+                    missing.remove(data.getSymbol());
+                });
+        }
+
+        // One batched request for everything else
+        boolean quotesFetched = false;
+        if (!missing.isEmpty()) {
+            try {
+                Map<String, BigDecimal> fetched =
+                    yahooFinanceClient.fetchCurrentPrices(missing);
+                LocalDateTime now = LocalDateTime.now();
+
+                fetched.forEach((symbol, price) -> {
+                    if (missing.remove(symbol)) {
+                        stockDataWriteBehindQueue.enqueue(
+                            new StockData(symbol, price, null, today)
+                        );
+                        prices.put(
+                            symbol,
+                            new StockPriceDTO(
+                                symbol,
+                                price,
+                                now,
+                                PriceSource.UPSTREAM
+                            )
+                        );
+                    }
+                });
+                quotesFetched = true;
+            } catch (Exception e) {
+                log.error(
+                    "Failed to fetch current prices for symbols: {}",
+                    missing,
+                    e
+                );
+            }
+        }
+
+        // Fallback to latest available data
+        if (!missing.isEmpty()) {
+            stockDataRepository
+                .findLatestBySymbols(missing)
+                .forEach(data -> {
+                    log.warn(
+                        "Using latest available data for symbol: {}",
+                        data.getSymbol()
+                    );
+                    prices.put(
+                        data.getSymbol(),
+                        mapToStockPriceDTO(data, PriceSource.LATEST_STORED)
+                    );
+                    missing.remove(data.getSymbol());
+                });
+        }
+
+        if (!missing.isEmpty()) {
+            log.warn("Unable to get current price for symbols: {}", missing);
+            // Yahoo answered without them and nothing is stored: unknown
+            if (quotesFetched) {
+                missing.forEach(this::rememberUnknownSymbol);
+            }
+        }
+        return prices;
+    }
+
     /**
      * Get current prices for multiple symbols
      */
-    @Transactional(readOnly = true)
     public List<StockPriceDTO> getMultiplePrices(List<String> symbols) {
         log.info("Getting current prices for {} symbols", symbols.size());
 
-        return symbols
-            .stream()
-            .map(this::getCurrentPrice)
-            .collect(Collectors.toList());
+        return new ArrayList<>(
+            stockPriceCache.getAll(withoutUnknownSymbols(symbols)).values()
+        );
     }
 
     /**
      * Get portfolio values for multiple symbols
      */
-    @Transactional(readOnly = true)
     public Map<String, BigDecimal> getPortfolioValues(List<String> symbols) {
         log.info("Getting portfolio values for {} symbols", symbols.size());
 
-        return symbols
+        return stockPriceCache
+            .getAll(withoutUnknownSymbols(symbols))
+            .values()
             .stream()
             .collect(
-                Collectors.toMap(
-                    symbol -> symbol,
-                    symbol -> getCurrentPrice(symbol).price()
-                )
+                Collectors.toMap(StockPriceDTO::symbol, StockPriceDTO::price)
             );
     }
 
     /**
      * Get chart data for a stock symbol with caching
      */
-    @Cacheable(value = "stockCharts", key = "#symbol + '_' + #period")
-    public List<YahooFinanceClient.PricePoint> getChartData(
+    @Cacheable(
+        value = CacheNames.STOCK_CHARTS,
+        key = "#symbol.toUpperCase() + '_' + #period.toUpperCase()"
+    )
+    public PriceSeries getChartData(
+        String symbol,
+        String period
+    ) {
+        return loadChartData(symbol, period);
+    }
+
+    /**
+     * Age of the cached chart for a symbol and period
+     */
+    public Optional<CacheInspector.EntryAge> getCachedChartAge(
+        String symbol,
+        String period
+    ) {
+        return cacheInspector.ageOf(
+            CacheNames.STOCK_CHARTS,
+            chartCacheKey(symbol, period)
+        );
+    }
+
+    /**
+     * Load chart data for a stock symbol, bypassing the cache.
+     * Used by the chart cache to load and refresh entries.
+     */
+    public PriceSeries loadChartData(
         String symbol,
         String period
     ) {
@@ -148,6 +347,7 @@ public class StockService {
             period
         );
 
+        requireNotUnknown(symbol);
         String upperSymbol = symbol.toUpperCase();
 
         // Determine date range for the period
@@ -167,13 +367,15 @@ public class StockService {
             hasSufficientCoverage(dbData, startDate, endDate, period)
         ) {
             log.info("Using database data for chart: {}", symbol);
-            return convertToYahooFinanceFormat(dbData);
+            return toPriceSeries(dbData);
         }
 
         // Fetch from Yahoo Finance API
         try {
-            List<YahooFinanceClient.PricePoint> chartData =
-                yahooFinanceClient.fetchChartData(symbol, period);
+            PriceSeries chartData = yahooFinanceClient.fetchChartData(
+                symbol,
+                period
+            );
 
             // Store fetched data in database
             storeChartDataInDatabase(upperSymbol, chartData);
@@ -190,7 +392,15 @@ public class StockService {
             // Fallback to available database data
             if (!dbData.isEmpty()) {
                 log.warn("Using available database data for chart: {}", symbol);
-                return convertToYahooFinanceFormat(dbData);
+                return toPriceSeries(dbData);
+            }
+
+            if (
+                e instanceof StockNotFoundException notFound &&
+                stockDataRepository.findLatestBySymbol(upperSymbol).isEmpty()
+            ) {
+                rememberUnknownSymbol(upperSymbol);
+                throw notFound;
             }
 
             throw new RuntimeException(
@@ -203,8 +413,23 @@ public class StockService {
     /**
      * Search for stock symbols using database
      */
-    @Cacheable(value = "symbolSearch", key = "#query + '_' + #limit")
+    @Cacheable(
+        value = CacheNames.SYMBOL_SEARCH,
+        key = "(#query ?: '') + '_' + #limit"
+    )
     public List<SymbolSuggestionDTO> searchSymbols(String query, int limit) {
+        return loadSymbolSuggestions(query, limit);
+    }
+
+    /**
+     * Search for stock symbols, bypassing the cache.
+     * Used by the symbol search cache to load entries.
+     */
+    @Transactional(readOnly = true)
+    public List<SymbolSuggestionDTO> loadSymbolSuggestions(
+        String query,
+        int limit
+    ) {
         log.info(
             "Searching symbols for query: {} with limit: {}",
             query,
@@ -280,6 +505,23 @@ public class StockService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Get the version of historical data for a date range, so conditional
+     * requests can be answered without loading the rows
+     */
+    @Transactional(readOnly = true)
+    public StockDataVersion getHistoricalDataVersion(
+        String symbol,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        return stockDataRepository.findVersionBySymbolAndDateRange(
+            symbol.toUpperCase(),
+            startDate,
+            endDate
+        );
+    }
+
     /**
      * Get latest stock data for a symbol
      */
@@ -319,14 +561,14 @@ public class StockService {
         log.info("Updating stock data for {} symbols", symbols.size());
 
         LocalDate today = LocalDate.now();
+        Set<String> symbolsWithTodayData = new HashSet<>(
+            stockDataRepository.findSymbolsWithTodayData(today)
+        );
 
         List<String> symbolsToUpdate = symbols
             .stream()
             .filter(symbol ->
-                !stockDataRepository.existsBySymbolAndDataDate(
-                    symbol.toUpperCase(),
-                    today
-                )
+                !symbolsWithTodayData.contains(symbol.toUpperCase())
             )
             .collect(Collectors.toList());
 
@@ -341,6 +583,7 @@ public class StockService {
     /**
      * Clean up old stock data
      */
+    @Transactional
     public int cleanupOldData(int daysToKeep) {
         log.info("Cleaning up stock data older than {} days", daysToKeep);
 
@@ -375,18 +618,25 @@ public class StockService {
     }
 
     /**
-     * Evict price cache for a specific symbol
+     * Evict price cache for a specific symbol on all nodes
      */
-    @CacheEvict(value = "stockPrices", key = "#symbol")
     public void evictPriceCache(String symbol) {
+        stockPriceCache.evict(symbol);
+        cacheInvalidationBus.evict(
+            CacheNames.UNKNOWN_SYMBOLS,
+            symbol.trim().toUpperCase()
+        );
         log.info("Evicted price cache for symbol: {}", symbol);
     }
 
     /**
-     * Evict chart cache for a specific symbol and period
+     * Evict chart cache for a specific symbol and period on all nodes
      */
-    @CacheEvict(value = "stockCharts", key = "#symbol + '_' + #period")
     public void evictChartCache(String symbol, String period) {
+        cacheInvalidationBus.evict(
+            CacheNames.STOCK_CHARTS,
+            chartCacheKey(symbol, period)
+        );
         log.info(
             "Evicted chart cache for symbol: {} and period: {}",
             symbol,
@@ -395,19 +645,21 @@ public class StockService {
     }
 
     /**
-     * Evict all caches
+     * Evict all caches on all nodes
      */
-    @CacheEvict(
-        value = { "stockPrices", "stockCharts", "symbolSearch" },
-        allEntries = true
-    )
     public void evictAllCaches() {
+        cacheInvalidationBus.clear(CacheNames.STOCK_PRICES);
+        cacheInvalidationBus.clear(CacheNames.STOCK_CHARTS);
+        cacheInvalidationBus.clear(CacheNames.SYMBOL_SEARCH);
+        cacheInvalidationBus.clear(CacheNames.UNKNOWN_SYMBOLS);
+        cacheInvalidationBus.clear(CacheNames.SYMBOL_LISTS);
         log.info("Evicted all stock caches");
     }
 
     /**
      * Get popular symbols (used as fallback when search query is empty)
      */
+    @Cacheable(value = CacheNames.SYMBOL_LISTS, key = "'popular_' + #limit")
     @Transactional(readOnly = true)
     public List<SymbolSuggestionDTO> getPopularSymbols(int limit) {
         log.info("Getting {} popular symbols", limit);
@@ -450,6 +702,7 @@ public class StockService {
     /**
      * Get all unique sectors
      */
+    @Cacheable(value = CacheNames.SYMBOL_LISTS, key = "'sectors'")
     @Transactional(readOnly = true)
     public List<String> getAllSectors() {
         log.info("Getting all unique sectors");
@@ -459,6 +712,7 @@ public class StockService {
     /**
      * Get all unique industries
      */
+    @Cacheable(value = CacheNames.SYMBOL_LISTS, key = "'industries'")
     @Transactional(readOnly = true)
     public List<String> getAllIndustries() {
         log.info("Getting all unique industries");
@@ -507,7 +761,10 @@ public class StockService {
                 null,
                 LocalDate.now()
             );
-            stockDataRepository.save(stockData);
+            stockDataRepository.upsertAll(List.of(stockData));
+            eventPublisher.publishEvent(
+                new StockDataWrittenEvent(List.of(stockData))
+            );
             log.info("Updated stock data for {}: {}", symbol, price);
             return 1;
         } catch (Exception e) {
@@ -516,6 +773,34 @@ public class StockService {
         }
     }
 
+    /**
+     * Fail fast for symbols recently found to be unknown
+     */
+    private void requireNotUnknown(String symbol) {
+        if (unknownSymbolCache.isUnknown(symbol)) {
+            throw new StockNotFoundException("Unknown symbol: " + symbol);
+        }
+    }
+
+    private List<String> withoutUnknownSymbols(Collection<String> symbols) {
+        return symbols
+            .stream()
+            .filter(symbol -> !unknownSymbolCache.isUnknown(symbol))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Remember a symbol Yahoo Finance does not know, unless it is in the
+     * symbols catalog; catalog symbols are assumed valid and failures for
+     * them transient
+     */
+    private void rememberUnknownSymbol(String upperSymbol) {
+        if (!symbolRepository.existsBySymbol(upperSymbol)) {
+            unknownSymbolCache.markUnknown(upperSymbol);
+            log.info("Remembering unknown symbol: {}", upperSymbol);
+        }
+    }
+
     private StockPriceDTO mapToStockPriceDTO(StockData stockData) {
         return new StockPriceDTO(
             stockData.getSymbol(),
@@ -524,7 +809,32 @@ public class StockService {
         );
     }
 
-    private LocalDate calculateStartDate(String period, LocalDate endDate) {
+    private StockPriceDTO mapToStockPriceDTO(
+        StockData stockData,
+        PriceSource source
+    ) {
+        return new StockPriceDTO(
+            stockData.getSymbol(),
+            stockData.getPrice(),
+            stockData.getCreatedAt(),
+            source
+        );
+    }
+
+    /**
+     * Key of a symbol and period in the chart cache
+     */
+    public static String chartCacheKey(String symbol, String period) {
+        return symbol.toUpperCase() + "_" + period.toUpperCase();
+    }
+
+    /**
+     * First date covered by a chart period ending on the given date
+     */
+    public static LocalDate calculateStartDate(
+        String period,
+        LocalDate endDate
+    ) {
         return switch (period.toUpperCase()) {
             case "1D" -> endDate.minusDays(1);
             case "1W" -> endDate.minusWeeks(1);
@@ -572,47 +882,34 @@ public class StockService {
         return (double) actualDays / totalDays >= expectedCoverage;
     }
 
-    private List<YahooFinanceClient.PricePoint> convertToYahooFinanceFormat(
-        List<StockData> stockDataList
-    ) {
-        return stockDataList
-            .stream()
-            .map(data ->
-                new YahooFinanceClient.PricePoint(
-                    data.getDataDate(),
-                    data.getPrice(),
-                    data.getVolume()
-                )
-            )
-            .collect(Collectors.toList());
+    private PriceSeries toPriceSeries(List<StockData> stockDataList) {
+        PriceSeries.Builder series = PriceSeries.builder(stockDataList.size());
+        for (StockData data : stockDataList) {
+            series.add(data.getDataDate(), data.getPrice(), data.getVolume());
+        }
+        return series.build();
     }
 
     private void storeChartDataInDatabase(
         String symbol,
-        List<YahooFinanceClient.PricePoint> chartData
+        PriceSeries chartData
     ) {
-        List<StockData> stockDataList = chartData
-            .stream()
-            .filter(point ->
-                !stockDataRepository.existsBySymbolAndDataDate(
-                    symbol,
-                    point.getDate()
-                )
-            )
-            .map(point ->
+        List<StockData> stockDataList = new ArrayList<>(chartData.size());
+        for (int i = 0; i < chartData.size(); i++) {
+            stockDataList.add(
                 new StockData(
                     symbol,
-                    point.getPrice(),
-                    point.getVolume(),
-                    point.getDate()
+                    chartData.priceAt(i),
+                    chartData.volumeAt(i),
+                    chartData.dateAt(i)
                 )
-            )
-            .collect(Collectors.toList());
+            );
+        }
 
-        stockDataRepository.saveAll(stockDataList);
+        int inserted = stockDataRepository.insertAllIfAbsent(stockDataList);
         log.info(
             "Stored {} new stock data records for symbol: {}",
-            stockDataList.size(),
+            inserted,
             symbol
         );
     }
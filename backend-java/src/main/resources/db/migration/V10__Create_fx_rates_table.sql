@@ -0,0 +1,24 @@
+-- Daily FX rates per Yahoo Finance pair (e.g. USDEUR=X: currency units per
+-- unit of the base currency). Kept apart from stock_data, whose four decimals
+-- leave pairs near or below 1 (USDGBP ~ 0.79) with about four significant
+-- digits.
+
+CREATE TABLE fx_rates (
+    pair VARCHAR(10) NOT NULL,
+    rate_date DATE NOT NULL,
+    rate DECIMAL(20, 10) NOT NULL CHECK (rate > 0),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (pair, rate_date)
+);
+
+CREATE TRIGGER update_fx_rates_updated_at
+    BEFORE UPDATE ON fx_rates
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- Start from the rates stored so far; fetches overwrite them at full precision
+INSERT INTO fx_rates (pair, rate_date, rate)
+SELECT symbol, data_date, price
+FROM stock_data
+WHERE symbol LIKE '%=X' AND price > 0;
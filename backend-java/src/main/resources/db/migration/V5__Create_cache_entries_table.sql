@@ -0,0 +1,14 @@
+-- Create cache_entries table used as the shared (L2) cache between application nodes
+-- UNLOGGED: entries are disposable, so writes skip the WAL and the table is emptied after a crash
+
+CREATE UNLOGGED TABLE cache_entries (
+    cache_name VARCHAR(50) NOT NULL,
+    cache_key VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (cache_name, cache_key)
+);
+
+-- Index for purging expired entries
+CREATE INDEX idx_cache_entries_expires_at ON cache_entries(expires_at);
@@ -0,0 +1,5 @@
+-- Keep four decimal places of stored prices, matching the in-memory price series.
+-- FX rates are stored in stock_data as pseudo-symbols (e.g. USDEUR=X) and need
+-- more precision than two decimals.
+
+ALTER TABLE stock_data ALTER COLUMN price TYPE DECIMAL(14, 4);
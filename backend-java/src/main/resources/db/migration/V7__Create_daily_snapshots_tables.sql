@@ -0,0 +1,30 @@
+-- End-of-day portfolio snapshots, one row per user, day and held symbol.
+-- Amounts are in the base currency at four decimals; market_value is NULL when
+-- the symbol had no stored price that day. P&L is market_value - cost.
+-- Amounts of a symbol without FX rates are kept in its own currency, named in
+-- currency, and left out of the totals; currency is NULL for converted rows.
+
+CREATE TABLE daily_snapshots (
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    snapshot_date DATE NOT NULL,
+    symbol VARCHAR(10) NOT NULL,
+    quantity BIGINT NOT NULL,
+    market_value DECIMAL(18, 4),
+    cost DECIMAL(18, 4) NOT NULL,
+    currency VARCHAR(10),
+    PRIMARY KEY (user_id, snapshot_date, symbol)
+);
+
+-- Days on which snapshots were written for all users; a day without a row for
+-- a user means the user held nothing that day. The row is claimed as RUNNING
+-- before writing starts, so only one node writes a day, and marked COMPLETE
+-- when done, or PARTIAL with the users whose rows could not be written;
+-- readers ignore days still RUNNING and the days missing their user.
+CREATE TABLE daily_snapshot_runs (
+    snapshot_date DATE PRIMARY KEY,
+    status VARCHAR(10) NOT NULL,
+    user_count INTEGER NOT NULL DEFAULT 0,
+    failed_user_ids UUID[] NOT NULL DEFAULT '{}',
+    started_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP WITH TIME ZONE
+);
@@ -0,0 +1,22 @@
+-- Splits and cash dividends per symbol. Stored prices and purchases stay as
+-- traded; adjustment factors are derived from these rows when read.
+-- ratio: new shares per old share for SPLIT (4 for 4:1, 0.1 for 1:10)
+-- amount: cash per share for DIVIDEND, in the symbol's currency
+
+CREATE TABLE corporate_actions (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    symbol VARCHAR(10) NOT NULL,
+    action_type VARCHAR(20) NOT NULL CHECK (action_type IN ('SPLIT', 'DIVIDEND')),
+    ex_date DATE NOT NULL,
+    ratio DECIMAL(18, 8),
+    amount DECIMAL(14, 4),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_corporate_actions_symbol_type_date UNIQUE (symbol, action_type, ex_date),
+    CONSTRAINT chk_corporate_actions_value CHECK (
+        (action_type = 'SPLIT' AND ratio > 0) OR
+        (action_type = 'DIVIDEND' AND amount > 0)
+    )
+);
+
+CREATE INDEX idx_corporate_actions_symbol_ex_date ON corporate_actions(symbol, ex_date);
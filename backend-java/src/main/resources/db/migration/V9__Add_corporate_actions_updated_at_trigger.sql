@@ -0,0 +1,6 @@
+-- Keep corporate_actions.updated_at current on updates, like the other tables
+
+CREATE TRIGGER update_corporate_actions_updated_at
+    BEFORE UPDATE ON corporate_actions
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
@@ -0,0 +1,98 @@
+package com.stocknotebook.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+class YahooFinanceClientTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final YahooFinanceClient client = new YahooFinanceClient(
+        restTemplate,
+        new ObjectMapper(),
+        "https://query1.finance.yahoo.com",
+        30000,
+        2,
+        0
+    );
+
+    @Test
+    void bulkPricesComeFromSparkBatches() {
+        when(restTemplate.getForEntity(anyString(), eq(String.class)))
+            .thenAnswer(invocation -> {
+                String url = invocation.getArgument(0);
+                String symbols = url.replaceAll(".*symbols=([^&]*).*", "$1");
+                return ResponseEntity.ok(spark(symbols.split(",")));
+            });
+        List<String> symbols = IntStream.range(0, 45)
+            .mapToObj(i -> "s" + i)
+            .toList();
+
+        Map<String, BigDecimal> prices = client.fetchCurrentPrices(symbols);
+
+        assertThat(prices)
+            .hasSize(45)
+            .containsEntry("S7", new BigDecimal("12.5"));
+        ArgumentCaptor<String> urls = ArgumentCaptor.forClass(String.class);
+        verify(restTemplate, times(3)).getForEntity(
+            urls.capture(),
+            eq(String.class)
+        );
+        assertThat(urls.getAllValues()).allMatch(url ->
+            url.contains("/v8/finance/spark")
+        );
+    }
+
+    @Test
+    void aFailingBatchOnlyDropsItsOwnSymbols() {
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            symbols.add("S" + i);
+        }
+        when(restTemplate.getForEntity(anyString(), eq(String.class)))
+            .thenAnswer(invocation -> {
+                String url = invocation.getArgument(0);
+                if (url.contains("S20")) {
+                    throw new IllegalStateException("boom");
+                }
+                return ResponseEntity.ok(
+                    spark(symbols.subList(0, 20).toArray(String[]::new))
+                );
+            });
+
+        Map<String, BigDecimal> prices = client.fetchCurrentPrices(symbols);
+
+        assertThat(prices).hasSize(20).doesNotContainKey("S20");
+    }
+
+    private static String spark(String... symbols) {
+        return (
+            "{\"spark\":{\"result\":[" +
+            Arrays.stream(symbols)
+                .map(symbol ->
+                    "{\"symbol\":\"" +
+                    symbol +
+                    "\",\"response\":[{\"meta\":{\"regularMarketPrice\":12.5}}]}"
+                )
+                .collect(Collectors.joining(",")) +
+            "],\"error\":null}}"
+        );
+    }
+}
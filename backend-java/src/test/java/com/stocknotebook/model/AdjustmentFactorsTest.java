@@ -0,0 +1,147 @@
+package com.stocknotebook.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class AdjustmentFactorsTest {
+
+    private static final LocalDate SPLIT = LocalDate.of(2024, 6, 10);
+    private static final LocalDate SECOND_SPLIT = LocalDate.of(2024, 9, 2);
+    private static final LocalDate DIVIDEND = LocalDate.of(2024, 3, 15);
+
+    private final AdjustmentFactors factors = AdjustmentFactors.builder()
+        .addSplit(SECOND_SPLIT, 2)
+        .addDividend(DIVIDEND, 0.98)
+        .addSplit(SPLIT, 4)
+        .build();
+
+    @Test
+    void splitFactorStepsDownOnEachExDate() {
+        assertThat(factors.splitFactor(SPLIT.minusDays(1))).isEqualTo(8);
+        assertThat(factors.splitFactor(SPLIT)).isEqualTo(2);
+        assertThat(factors.splitFactor(SECOND_SPLIT.minusDays(1))).isEqualTo(2);
+        assertThat(factors.splitFactor(SECOND_SPLIT)).isEqualTo(1);
+        assertThat(factors.splitFactor(SECOND_SPLIT.plusYears(1))).isEqualTo(1);
+        assertThat(factors.splitFactor(LocalDate.of(2000, 1, 1))).isEqualTo(8);
+    }
+
+    @Test
+    void dividendFactorAppliesBeforeTheExDateOnly() {
+        assertThat(factors.dividendFactor(epochDay(DIVIDEND.minusDays(1))))
+            .isCloseTo(0.98, within(1e-12));
+        assertThat(factors.dividendFactor(epochDay(DIVIDEND))).isEqualTo(1);
+        assertThat(factors.splitFactor(DIVIDEND)).isEqualTo(8);
+    }
+
+    @Test
+    void hasSplitAfterLooksAtTheLastSplit() {
+        assertThat(factors.hasSplitAfter(SECOND_SPLIT.minusDays(1))).isTrue();
+        assertThat(factors.hasSplitAfter(SECOND_SPLIT)).isFalse();
+
+        AdjustmentFactors dividendOnly = AdjustmentFactors.builder()
+            .addDividend(DIVIDEND, 0.99)
+            .build();
+        assertThat(dividendOnly.hasSplitAfter(DIVIDEND.minusDays(1))).isFalse();
+    }
+
+    @Test
+    void actionsOnTheSameDayAreCombined() {
+        AdjustmentFactors combined = AdjustmentFactors.builder()
+            .addSplit(SPLIT, 2)
+            .addSplit(SPLIT, 3)
+            .build();
+
+        assertThat(combined.splitFactor(SPLIT.minusDays(1))).isEqualTo(6);
+        assertThat(combined).isEqualTo(
+            AdjustmentFactors.builder().addSplit(SPLIT, 6).build()
+        );
+    }
+
+    @Test
+    void adjustExpressesPricesAndVolumesInTodaysShares() {
+        PriceSeries series = PriceSeries.builder(3)
+            .add(epochDay(SPLIT.minusDays(1)), 4_000_000, 100)
+            .add(epochDay(SPLIT), 1_000_000, 400)
+            .add(epochDay(SECOND_SPLIT), 500_000, PriceSeries.NO_VOLUME)
+            .build();
+
+        PriceSeries adjusted = factors.adjust(series, false);
+
+        assertThat(adjusted.scaledPriceAt(0)).isEqualTo(500_000);
+        assertThat(adjusted.rawVolumeAt(0)).isEqualTo(800);
+        assertThat(adjusted.scaledPriceAt(1)).isEqualTo(500_000);
+        assertThat(adjusted.rawVolumeAt(1)).isEqualTo(800);
+        assertThat(adjusted.scaledPriceAt(2)).isEqualTo(500_000);
+        assertThat(adjusted.rawVolumeAt(2)).isEqualTo(PriceSeries.NO_VOLUME);
+        assertThat(series.scaledPriceAt(0)).isEqualTo(4_000_000);
+    }
+
+    @Test
+    void adjustReinvestsDividendsWhenAsked() {
+        PriceSeries series = PriceSeries.builder(2)
+            .add(epochDay(DIVIDEND.minusDays(1)), 8_000_000, 10)
+            .add(epochDay(DIVIDEND), 8_000_000, 10)
+            .build();
+
+        PriceSeries adjusted = factors.adjust(series, true);
+
+        assertThat(adjusted.scaledPriceAt(0)).isEqualTo(980_000);
+        assertThat(adjusted.scaledPriceAt(1)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void adjustReturnsTheSeriesWhenNoActionFollowsIt() {
+        PriceSeries series = PriceSeries.builder(1)
+            .add(epochDay(SECOND_SPLIT.plusDays(1)), 1_000_000, 10)
+            .build();
+
+        assertThat(factors.adjust(series, true)).isSameAs(series);
+        assertThat(AdjustmentFactors.NONE.adjust(series, true)).isSameAs(
+            series
+        );
+    }
+
+    @Test
+    void rejectsInvalidActions() {
+        assertThatThrownBy(() -> AdjustmentFactors.builder().addSplit(SPLIT, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() ->
+            AdjustmentFactors.builder().addDividend(DIVIDEND, 1.5)
+        ).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void digestDependsOnTheStepsOnly() throws Exception {
+        AdjustmentFactors same = AdjustmentFactors.builder()
+            .addSplit(SPLIT, 4)
+            .addSplit(SECOND_SPLIT, 2)
+            .addDividend(DIVIDEND, 0.98)
+            .build();
+        AdjustmentFactors moved = AdjustmentFactors.builder()
+            .addSplit(SPLIT.plusDays(1), 4)
+            .addSplit(SECOND_SPLIT, 2)
+            .addDividend(DIVIDEND, 0.98)
+            .build();
+
+        assertThat(digest(same)).isEqualTo(digest(factors));
+        assertThat(digest(moved)).isNotEqualTo(digest(factors));
+        assertThat(digest(AdjustmentFactors.NONE)).isNotEqualTo(
+            digest(factors)
+        );
+    }
+
+    private static byte[] digest(AdjustmentFactors factors) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        factors.digestInto(digest);
+        return digest.digest();
+    }
+
+    private static int epochDay(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+}
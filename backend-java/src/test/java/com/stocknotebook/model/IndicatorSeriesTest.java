@@ -0,0 +1,147 @@
+package com.stocknotebook.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class IndicatorSeriesTest {
+
+    private static final int START_DAY = (int) LocalDate.of(
+        2024,
+        1,
+        1
+    ).toEpochDay();
+
+    private static final IndicatorSpec SPEC = new IndicatorSpec(
+        List.of(5, 20),
+        List.of(12),
+        14,
+        20,
+        true
+    );
+
+    @Test
+    void computeFillsWarmingUpValuesWithNaN() {
+        IndicatorSeries indicators = IndicatorSeries.compute(series(30), SPEC);
+
+        assertThat(indicators.size()).isEqualTo(30);
+        // sma5, sma20, ema12, rsi14, three Bollinger columns and vwap
+        assertThat(indicators.names()).hasSize(8);
+        assertThat(indicators.valueAt(0, 3)).isNaN();
+        assertThat(indicators.valueAt(0, 4)).isFinite();
+        assertThat(indicators.valueAt(1, 18)).isNaN();
+        assertThat(indicators.valueAt(1, 19)).isFinite();
+    }
+
+    @Test
+    void catchUpWithAppendedPointsMatchesCompute() {
+        PriceSeries full = series(120);
+        IndicatorSeries cached = IndicatorSeries.compute(full.slice(0, 40), SPEC);
+
+        PriceSeries latest = full.slice(0, 40);
+        for (int i = 40; i < full.size(); i++) {
+            latest = latest.append(
+                full.epochDayAt(i),
+                full.scaledPriceAt(i),
+                full.rawVolumeAt(i)
+            );
+            cached = cached.catchUp(latest);
+        }
+
+        assertSameValues(cached, IndicatorSeries.compute(latest, SPEC));
+    }
+
+    @Test
+    void catchUpWithReplacedLastPointMatchesCompute() {
+        PriceSeries series = series(60);
+        IndicatorSeries cached = IndicatorSeries.compute(series, SPEC);
+
+        PriceSeries replaced = series.replaceLast(
+            series.epochDayAt(59),
+            series.scaledPriceAt(59) + 12_345,
+            777
+        );
+        IndicatorSeries caughtUp = cached.catchUp(replaced);
+        assertSameValues(caughtUp, IndicatorSeries.compute(replaced, SPEC));
+
+        PriceSeries appended = replaced
+            .replaceLast(replaced.epochDayAt(59), 1_500_000, 888)
+            .append(START_DAY + 60, 1_510_000, 999);
+        assertSameValues(
+            caughtUp.catchUp(appended),
+            IndicatorSeries.compute(appended, SPEC)
+        );
+    }
+
+    @Test
+    void catchUpRecomputesWhenEarlierPointsChange() {
+        PriceSeries series = series(50);
+        IndicatorSeries cached = IndicatorSeries.compute(series, SPEC);
+
+        // A split divides every earlier price
+        PriceSeries.Builder adjusted = PriceSeries.builder(51);
+        for (int i = 0; i < series.size(); i++) {
+            adjusted.add(
+                series.epochDayAt(i),
+                series.scaledPriceAt(i) / 2,
+                series.rawVolumeAt(i) * 2
+            );
+        }
+        adjusted.add(START_DAY + 50, 600_000, 100);
+        PriceSeries latest = adjusted.build();
+
+        assertSameValues(
+            cached.catchUp(latest),
+            IndicatorSeries.compute(latest, SPEC)
+        );
+        assertSameValues(
+            cached.catchUp(series.slice(10, 50)),
+            IndicatorSeries.compute(series.slice(10, 50), SPEC)
+        );
+    }
+
+    @Test
+    void catchUpOfTheSameSeriesReturnsItself() {
+        PriceSeries series = series(10);
+        IndicatorSeries indicators = IndicatorSeries.compute(series, SPEC);
+
+        assertThat(indicators.catchUp(series)).isSameAs(indicators);
+    }
+
+    private static void assertSameValues(
+        IndicatorSeries actual,
+        IndicatorSeries expected
+    ) {
+        assertThat(actual.size()).isEqualTo(expected.size());
+        assertThat(actual.names()).isEqualTo(expected.names());
+        for (int column = 0; column < expected.names().size(); column++) {
+            for (int i = 0; i < expected.size(); i++) {
+                double value = expected.valueAt(column, i);
+                if (Double.isNaN(value)) {
+                    assertThat(actual.valueAt(column, i)).isNaN();
+                } else {
+                    assertThat(actual.valueAt(column, i)).isCloseTo(
+                        value,
+                        within(1e-9)
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * A deterministic zigzag, with some points lacking volume
+     */
+    private static PriceSeries series(int days) {
+        PriceSeries.Builder builder = PriceSeries.builder(days);
+        for (int i = 0; i < days; i++) {
+            long price = 1_000_000 + (i % 7) * 13_000L - (i % 3) * 21_000L + i * 500L;
+            long volume = i % 5 == 0 ? PriceSeries.NO_VOLUME : 1_000L + i;
+            builder.add(START_DAY + i, price, volume);
+        }
+        return builder.build();
+    }
+}
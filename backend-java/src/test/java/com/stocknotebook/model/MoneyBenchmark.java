@@ -0,0 +1,139 @@
+package com.stocknotebook.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Portfolio summary math in {@link BigDecimal} against {@link Money}: the
+ * per-position average price, value, profit/loss and percentage, and the
+ * totals converted to the base currency, as the valuation and snapshot
+ * engines compute them.
+ *
+ * Run after {@code mvn test-compile}, with the allocation profiler:
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     org.openjdk.jmh.Main MoneyBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Param({ "50" })
+    private int positions;
+
+    private BigDecimal[] prices;
+    private long[] quantities;
+    private BigDecimal[] costs;
+    private BigDecimal[] fxRates;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        prices = new BigDecimal[positions];
+        quantities = new long[positions];
+        costs = new BigDecimal[positions];
+        fxRates = new BigDecimal[positions];
+        for (int i = 0; i < positions; i++) {
+            prices[i] = BigDecimal.valueOf(1_000 + random.nextInt(5_000_000), 4);
+            quantities[i] = 1 + random.nextInt(2_000);
+            costs[i] = BigDecimal.valueOf(
+                quantities[i] * (1_000 + random.nextInt(500_000)),
+                2
+            );
+            // A third of the holdings trade in another currency
+            fxRates[i] = i % 3 == 0
+                ? BigDecimal.valueOf(90_000_000 + random.nextInt(50_000_000), 8)
+                : BigDecimal.ONE;
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        BigDecimal totalValue = BigDecimal.ZERO;
+        BigDecimal totalSpent = BigDecimal.ZERO;
+        for (int i = 0; i < positions; i++) {
+            BigDecimal quantity = BigDecimal.valueOf(quantities[i]);
+            BigDecimal average = costs[i].divide(
+                quantity,
+                4,
+                RoundingMode.HALF_UP
+            );
+            BigDecimal value = prices[i].multiply(quantity);
+            BigDecimal profitLoss = value.subtract(costs[i]);
+            BigDecimal percentage = profitLoss
+                .divide(costs[i], 4, RoundingMode.HALF_UP)
+                .multiply(HUNDRED);
+            blackhole.consume(average);
+            blackhole.consume(percentage);
+
+            if (fxRates[i].compareTo(BigDecimal.ONE) == 0) {
+                totalValue = totalValue.add(value);
+                totalSpent = totalSpent.add(costs[i]);
+            } else {
+                totalValue = totalValue.add(
+                    value.multiply(fxRates[i]).setScale(4, RoundingMode.HALF_UP)
+                );
+                totalSpent = totalSpent.add(
+                    costs[i]
+                        .multiply(fxRates[i])
+                        .setScale(4, RoundingMode.HALF_UP)
+                );
+            }
+        }
+        BigDecimal profitLoss = totalValue.subtract(totalSpent);
+        blackhole.consume(totalValue);
+        blackhole.consume(
+            profitLoss.divide(totalSpent, 4, RoundingMode.HALF_UP).multiply(
+                HUNDRED
+            )
+        );
+    }
+
+    @Benchmark
+    public void money(Blackhole blackhole) {
+        Money totalValue = Money.ZERO;
+        Money totalSpent = Money.ZERO;
+        for (int i = 0; i < positions; i++) {
+            Money cost = Money.of(costs[i]);
+            Money average = cost.dividedBy(quantities[i]);
+            Money value = Money.of(prices[i]).times(quantities[i]);
+            Money profitLoss = value.minus(cost);
+            blackhole.consume(average.toBigDecimal());
+            blackhole.consume(profitLoss.percentOf(cost).toBigDecimal());
+
+            Money fxRate = Money.of(fxRates[i]);
+            if (fxRate.compareTo(Money.ONE) == 0) {
+                totalValue = totalValue.plus(value);
+                totalSpent = totalSpent.plus(cost);
+            } else {
+                totalValue = totalValue.plus(value.convertedAt(fxRate));
+                totalSpent = totalSpent.plus(cost.convertedAt(fxRate));
+            }
+        }
+        Money profitLoss = totalValue.minus(totalSpent);
+        blackhole.consume(totalValue.toBigDecimal());
+        blackhole.consume(profitLoss.percentOf(totalSpent).toBigDecimal());
+    }
+}
@@ -0,0 +1,229 @@
+package com.stocknotebook.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Property tests: every operation on random operands must give the same
+ * value and scale as the BigDecimal code it replaces
+ */
+class MoneyTest {
+
+    private static final int SAMPLES = 100_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final Random random = new Random(42);
+
+    @Test
+    void roundTripsThroughBigDecimal() {
+        forAll(value -> assertSame(Money.of(value), value));
+    }
+
+    @Test
+    void plusAndMinusMatchAddAndSubtract() {
+        forAllPairs(
+            (a, b) -> Money.of(a).plus(Money.of(b)),
+            BigDecimal::add
+        );
+        forAllPairs(
+            (a, b) -> Money.of(a).minus(Money.of(b)),
+            BigDecimal::subtract
+        );
+    }
+
+    @Test
+    void timesMatchesMultiplyByAWholeNumber() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal amount = amount();
+            long factor = wholeNumber();
+            assertSame(
+                Money.of(amount).times(factor),
+                amount.multiply(BigDecimal.valueOf(factor))
+            );
+        }
+    }
+
+    @Test
+    void dividedByMatchesDivideToFourPlacesHalfUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal amount = amount();
+            long divisor = wholeNumber();
+            if (divisor == 0) {
+                continue;
+            }
+            assertSame(
+                Money.of(amount).dividedBy(divisor),
+                amount.divide(
+                    BigDecimal.valueOf(divisor),
+                    4,
+                    RoundingMode.HALF_UP
+                )
+            );
+        }
+    }
+
+    @Test
+    void percentOfMatchesThePercentageFormula() {
+        forAllPairs(
+            (a, b) -> Money.of(a).percentOf(Money.of(b)),
+            (a, b) ->
+                b.compareTo(BigDecimal.ZERO) > 0
+                    ? a.divide(b, 4, RoundingMode.HALF_UP).multiply(HUNDRED)
+                    : BigDecimal.ZERO
+        );
+    }
+
+    @Test
+    void convertedAtMatchesMultiplyAndRoundToFourPlaces() {
+        forAllPairs(
+            (a, b) -> Money.of(a).convertedAt(Money.of(b)),
+            (a, b) -> a.multiply(b).setScale(4, RoundingMode.HALF_UP)
+        );
+    }
+
+    @Test
+    void ratioToMatchesDivideToFourPlacesHalfUp() {
+        forAllPairs(
+            (a, b) ->
+                b.signum() != 0 ? Money.of(a).ratioTo(Money.of(b)) : Money.ZERO,
+            (a, b) ->
+                b.signum() != 0
+                    ? a.divide(b, 4, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO
+        );
+    }
+
+    @Test
+    void compareToAndEqualsFollowBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal a = amount();
+            BigDecimal b = random.nextBoolean()
+                ? amount()
+                : a.setScale(Math.max(a.scale(), 8));
+            Money x = Money.of(a);
+            Money y = Money.of(b);
+
+            assertThat(Integer.signum(x.compareTo(y))).isEqualTo(
+                Integer.signum(a.compareTo(b))
+            );
+            assertThat(x.equals(y)).isEqualTo(a.equals(b));
+            assertThat(x.signum()).isEqualTo(a.signum());
+        }
+    }
+
+    @Test
+    void overflowFallsBackWithoutLosingPrecision() {
+        Money max = Money.of(Long.MAX_VALUE);
+
+        assertSame(
+            max.plus(Money.of(new BigDecimal("0.0001"))),
+            new BigDecimal(Long.MAX_VALUE).add(new BigDecimal("0.0001"))
+        );
+        assertSame(
+            max.times(Long.MAX_VALUE),
+            new BigDecimal(Long.MAX_VALUE).multiply(
+                BigDecimal.valueOf(Long.MAX_VALUE)
+            )
+        );
+        assertSame(
+            Money.of(Long.MIN_VALUE).negate(),
+            new BigDecimal(Long.MIN_VALUE).negate()
+        );
+        assertSame(
+            Money.of(new BigDecimal("1.23")).dividedBy(Long.MIN_VALUE),
+            new BigDecimal("1.23").divide(
+                BigDecimal.valueOf(Long.MIN_VALUE),
+                4,
+                RoundingMode.HALF_UP
+            )
+        );
+    }
+
+    @Test
+    void divisionByZeroThrows() {
+        Money amount = Money.of(new BigDecimal("10.50"));
+
+        assertThatThrownBy(() -> amount.dividedBy(0))
+            .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> amount.ratioTo(Money.ZERO))
+            .isInstanceOf(ArithmeticException.class);
+        assertThat(amount.percentOf(Money.ZERO)).isEqualTo(Money.ZERO);
+    }
+
+    private void forAll(Consumer<BigDecimal> property) {
+        for (int i = 0; i < SAMPLES; i++) {
+            property.accept(amount());
+        }
+    }
+
+    private void forAllPairs(
+        BiFunction<BigDecimal, BigDecimal, Money> actual,
+        BiFunction<BigDecimal, BigDecimal, BigDecimal> expected
+    ) {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal a = amount();
+            BigDecimal b = amount();
+            assertSame(actual.apply(a, b), expected.apply(a, b), a, b);
+        }
+    }
+
+    private static void assertSame(Money actual, BigDecimal expected) {
+        assertThat(actual.toBigDecimal()).isEqualTo(expected);
+    }
+
+    private static void assertSame(
+        Money actual,
+        BigDecimal expected,
+        BigDecimal a,
+        BigDecimal b
+    ) {
+        assertThat(actual.toBigDecimal())
+            .as("operands %s and %s", a, b)
+            .isEqualTo(expected);
+    }
+
+    /**
+     * An amount as the portfolio sees them: mostly prices, costs and rates
+     * with up to 8 decimal places, sometimes near the long range, and
+     * sometimes beyond it or with more places, to cover the fallback
+     */
+    private BigDecimal amount() {
+        int kind = random.nextInt(20);
+        long unscaled;
+        if (kind < 12) {
+            unscaled = random.nextLong() % 100_000_000_000L;
+        } else if (kind < 15) {
+            unscaled = random.nextInt(2_001) - 1_000;
+        } else if (kind < 18) {
+            unscaled = random.nextLong();
+        } else if (kind < 19) {
+            return new BigDecimal(
+                new BigInteger(96, random).subtract(BigInteger.ONE.shiftLeft(95)),
+                random.nextInt(9)
+            );
+        } else {
+            return BigDecimal.valueOf(
+                random.nextLong() % 1_000_000_000L,
+                9 + random.nextInt(4)
+            );
+        }
+        return BigDecimal.valueOf(unscaled, random.nextInt(9));
+    }
+
+    private long wholeNumber() {
+        return switch (random.nextInt(4)) {
+            case 0 -> random.nextInt(3) - 1;
+            case 1 -> random.nextInt(100_000);
+            case 2 -> random.nextLong();
+            default -> -random.nextInt(1_000);
+        };
+    }
+}
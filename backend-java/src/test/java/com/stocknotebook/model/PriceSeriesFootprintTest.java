@@ -0,0 +1,67 @@
+package com.stocknotebook.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Retained heap of a cached chart series, measured with JOL: a
+ * {@link PriceSeries} against the list of point objects it replaced
+ */
+class PriceSeriesFootprintTest {
+
+    // Roughly 20 years of trading days, the size of a MAX daily series
+    private static final int POINTS = 5_000;
+
+    @Test
+    void primitiveSeriesTakesUnderOneFifthOfThePointObjects() {
+        LocalDate start = LocalDate.of(2004, 1, 2);
+        List<PricePoint> points = new ArrayList<>();
+        PriceSeries.Builder builder = PriceSeries.builder(POINTS);
+        for (int i = 0; i < POINTS; i++) {
+            LocalDate date = start.plusDays(i);
+            // Yahoo closes are doubles, as the client parsed them
+            double close = 100 + Math.sin(i / 10.0) * 7.3 + i * 0.013;
+            BigDecimal price = BigDecimal.valueOf(close);
+            Long volume = 1_000_000L + i;
+            points.add(new PricePoint(date, price, volume));
+            builder.add(date, price, volume);
+        }
+        PriceSeries series = builder.build();
+
+        long objectBytes = GraphLayout.parseInstance(points).totalSize();
+        long seriesBytes = GraphLayout.parseInstance(series).totalSize();
+        System.out.printf(
+            "%d points: PricePoint list %d bytes (%.1f per point), PriceSeries %d bytes (%.1f per point)%n",
+            POINTS,
+            objectBytes,
+            (double) objectBytes / POINTS,
+            seriesBytes,
+            (double) seriesBytes / POINTS
+        );
+
+        assertThat((double) seriesBytes / POINTS).isLessThan(21);
+        assertThat(seriesBytes * 5).isLessThan(objectBytes);
+    }
+
+    /**
+     * The point object chart series were cached as before
+     */
+    private static final class PricePoint {
+
+        private final LocalDate date;
+        private final BigDecimal price;
+        private final Long volume;
+
+        PricePoint(LocalDate date, BigDecimal price, Long volume) {
+            this.date = date;
+            this.price = price;
+            this.volume = volume;
+        }
+    }
+}
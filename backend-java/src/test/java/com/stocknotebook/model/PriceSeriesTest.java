@@ -0,0 +1,152 @@
+package com.stocknotebook.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class PriceSeriesTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void sliceAndBetweenAreViewsOfTheSamePoints() {
+        PriceSeries series = daily(10);
+
+        PriceSeries slice = series.slice(2, 5);
+        assertThat(slice.size()).isEqualTo(3);
+        assertThat(slice.dateAt(0)).isEqualTo(START.plusDays(2));
+        assertThat(slice.scaledPriceAt(2)).isEqualTo(price(4));
+
+        PriceSeries between = series.between(
+            START.plusDays(3),
+            START.plusDays(6)
+        );
+        assertThat(between.firstDate()).isEqualTo(START.plusDays(3));
+        assertThat(between.lastDate()).isEqualTo(START.plusDays(6));
+
+        assertThat(series.from(START.plusDays(8)).size()).isEqualTo(2);
+        assertThat(series.from(START.plusDays(20)).isEmpty()).isTrue();
+        assertThat(series.slice(0, 10)).isSameAs(series);
+    }
+
+    @Test
+    void slicesOfSlicesKeepTheirOffsets() {
+        PriceSeries view = daily(20).slice(5, 15).slice(2, 4);
+
+        assertThat(view.size()).isEqualTo(2);
+        assertThat(view.dateAt(0)).isEqualTo(START.plusDays(7));
+        assertThat(view.volumeAt(1)).isEqualTo(80L);
+        assertThatThrownBy(() -> view.dateAt(2))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void builderScalesPricesAndKeepsMissingVolumes() {
+        PriceSeries series = PriceSeries.builder(2)
+            .add(START, new BigDecimal("12.34565"), null)
+            .add(START.plusDays(1), new BigDecimal("1"), 5L)
+            .build();
+
+        assertThat(series.scaledPriceAt(0)).isEqualTo(123457);
+        assertThat(series.priceAt(0)).isEqualByComparingTo("12.3457");
+        assertThat(series.volumeAt(0)).isNull();
+        assertThat(series.rawVolumeAt(0)).isEqualTo(PriceSeries.NO_VOLUME);
+        assertThat(series.volumeAt(1)).isEqualTo(5L);
+    }
+
+    @Test
+    void builderRejectsPointsOutOfDateOrder() {
+        PriceSeries.Builder builder = PriceSeries.builder(2).add(day(1), 1, 1);
+
+        assertThatThrownBy(() -> builder.add(day(0), 1, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void appendLeavesEarlierSeriesUnchanged() {
+        PriceSeries series = daily(3);
+
+        PriceSeries appended = series.append(day(3), price(3), 30);
+        PriceSeries branched = series.append(day(4), price(99), 40);
+
+        assertThat(series.size()).isEqualTo(3);
+        assertThat(appended.size()).isEqualTo(4);
+        assertThat(appended.scaledPriceAt(3)).isEqualTo(price(3));
+        assertThat(branched.size()).isEqualTo(4);
+        assertThat(branched.epochDayAt(3)).isEqualTo(day(4));
+        assertThat(branched.scaledPriceAt(3)).isEqualTo(price(99));
+        assertThat(appended.scaledPriceAt(3)).isEqualTo(price(3));
+    }
+
+    @Test
+    void appendToAViewKeepsTheViewStart() {
+        PriceSeries view = daily(10).slice(5, 10);
+
+        PriceSeries appended = view.append(day(10), price(10), 100);
+
+        assertThat(appended.size()).isEqualTo(6);
+        assertThat(appended.firstDate()).isEqualTo(START.plusDays(5));
+        assertThat(appended.lastDate()).isEqualTo(START.plusDays(10));
+    }
+
+    @Test
+    void replaceLastKeepsTheOriginalPoint() {
+        PriceSeries series = daily(3);
+
+        PriceSeries replaced = series.replaceLast(day(2), price(50), 7);
+
+        assertThat(series.scaledPriceAt(2)).isEqualTo(price(2));
+        assertThat(replaced.size()).isEqualTo(3);
+        assertThat(replaced.scaledPriceAt(2)).isEqualTo(price(50));
+        assertThat(replaced.volumeAt(2)).isEqualTo(7L);
+        assertThat(replaced.slice(1, 3).scaledPriceAt(1)).isEqualTo(
+            price(50)
+        );
+        assertThat(replaced.from(START.plusDays(2)).size()).isEqualTo(1);
+    }
+
+    @Test
+    void appendAfterReplaceLastMovesTheReplacedPointIntoTheArrays() {
+        PriceSeries replaced = daily(3).replaceLast(day(2), price(50), 7);
+
+        PriceSeries appended = replaced.append(day(3), price(60), 8);
+
+        assertThat(appended.size()).isEqualTo(4);
+        assertThat(appended.scaledPriceAt(2)).isEqualTo(price(50));
+        assertThat(appended.scaledPriceAt(3)).isEqualTo(price(60));
+        assertThat(replaced.size()).isEqualTo(3);
+        assertThat(replaced.scaledPriceAt(2)).isEqualTo(price(50));
+    }
+
+    @Test
+    void appendAndReplaceLastRejectPointsOutOfDateOrder() {
+        PriceSeries series = daily(3);
+
+        assertThatThrownBy(() -> series.append(day(1), price(1), 1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> series.replaceLast(day(0), price(1), 1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() ->
+            PriceSeries.empty().replaceLast(day(0), price(1), 1)
+        ).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static PriceSeries daily(int days) {
+        PriceSeries.Builder builder = PriceSeries.builder(days);
+        for (int i = 0; i < days; i++) {
+            builder.add(day(i), price(i), 10L * i);
+        }
+        return builder.build();
+    }
+
+    static int day(int offset) {
+        return (int) START.plusDays(offset).toEpochDay();
+    }
+
+    static long price(int offset) {
+        return (100 + offset) * 10_000L;
+    }
+}
@@ -0,0 +1,147 @@
+package com.stocknotebook.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocknotebook.client.YahooFinanceClient;
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.event.StockDataWrittenEvent;
+import com.stocknotebook.repository.FxRateRepository;
+import com.stocknotebook.repository.FxRateRepository.Quote;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+class FxRateTableTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate FROM = TODAY.minusDays(10);
+
+    private final FxRateRepository repository = mock(FxRateRepository.class);
+    private final YahooFinanceClient yahooFinanceClient = mock(
+        YahooFinanceClient.class
+    );
+
+    private FxRateTable table;
+
+    @BeforeEach
+    void setUp() {
+        // EUR per USD on three days, with gaps between them
+        List<Quote> quotes = List.of(
+            new Quote(FROM.plusDays(2), 2),
+            new Quote(FROM.plusDays(5), 4),
+            new Quote(TODAY.minusDays(1), 5)
+        );
+        when(repository.findQuotes(anyCollection(), any(), any())).thenReturn(
+            Map.of("USDEUR=X", quotes)
+        );
+        // Background fetches run on the calling thread
+        AsyncTaskExecutor executor = mock(AsyncTaskExecutor.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        })
+            .when(executor)
+            .execute(any(Runnable.class));
+        table = new FxRateTable(
+            repository,
+            yahooFinanceClient,
+            executor,
+            "USD",
+            3600
+        );
+    }
+
+    @Test
+    void carriesRatesForwardOverDaysWithoutQuotes() {
+        FxRateTable.Rates rates = table.rates(List.of("eur"), FROM);
+
+        assertThat(rates.rate("EUR", FROM.plusDays(2))).isEqualTo(0.5);
+        assertThat(rates.rate("EUR", FROM.plusDays(4))).isEqualTo(0.5);
+        assertThat(rates.rate("EUR", FROM.plusDays(5))).isEqualTo(0.25);
+        assertThat(rates.rate("EUR", TODAY.minusDays(2))).isEqualTo(0.25);
+        assertThat(rates.rate("eur", TODAY.minusDays(1))).isEqualTo(0.2);
+    }
+
+    @Test
+    void clampsDaysOutsideTheLoadedRange() {
+        FxRateTable.Rates rates = table.rates(List.of("EUR"), FROM);
+
+        // Before the first quote the earliest rate is used, after the last
+        // one the latest
+        assertThat(rates.rate("EUR", FROM)).isEqualTo(0.5);
+        assertThat(rates.rate("EUR", FROM.minusYears(1))).isEqualTo(0.5);
+        assertThat(rates.rate("EUR", TODAY.plusDays(30))).isEqualTo(0.2);
+        assertThat(rates.latestRate("EUR")).isEqualByComparingTo("0.2");
+    }
+
+    @Test
+    void baseAndUnknownCurrencies() {
+        FxRateTable.Rates rates = table.rates(List.of("EUR", "USD"), FROM);
+
+        assertThat(rates.rate("USD", FROM)).isEqualTo(1);
+        assertThat(rates.rate(null, FROM)).isEqualTo(1);
+        assertThat(rates.rate("JPY", FROM)).isNaN();
+        assertThat(rates.latestRate("JPY")).isNull();
+    }
+
+    @Test
+    void appliesWrittenQuotesFromTheirDayOn() {
+        table.rates(List.of("EUR"), FROM);
+        StockData quote = new StockData();
+        quote.setSymbol("USDEUR=X");
+        quote.setPrice(new BigDecimal("8"));
+        quote.setDataDate(TODAY);
+
+        table.onStockDataWritten(new StockDataWrittenEvent(List.of(quote)));
+        FxRateTable.Rates rates = table.rates(List.of("EUR"), FROM);
+
+        assertThat(rates.rate("EUR", TODAY.minusDays(1))).isEqualTo(0.2);
+        assertThat(rates.rate("EUR", TODAY)).isCloseTo(
+            0.125,
+            within(1e-12)
+        );
+        assertThat(rates.rate("EUR", TODAY.plusDays(3))).isCloseTo(
+            0.125,
+            within(1e-12)
+        );
+    }
+
+    @Test
+    void fetchesAndStoresMissingRatesAtFullPrecision() {
+        TreeMap<LocalDate, Double> closes = new TreeMap<>();
+        closes.put(TODAY.minusDays(1), 0.7912345678);
+        when(yahooFinanceClient.fetchCloses("USDGBP=X", "1M")).thenReturn(
+            closes
+        );
+        when(repository.findQuotes(eq(List.of("USDGBP=X")), any(), any()))
+            .thenReturn(
+                Map.of(
+                    "USDGBP=X",
+                    List.of(new Quote(TODAY.minusDays(1), 0.7912345678))
+                )
+            );
+
+        table.rates(List.of("GBP"), FROM);
+        FxRateTable.Rates rates = table.rates(List.of("GBP"), FROM);
+
+        verify(repository).upsertAll(eq("USDGBP=X"), anyList());
+        assertThat(rates.rate("GBP", TODAY)).isCloseTo(
+            1 / 0.7912345678,
+            within(1e-12)
+        );
+    }
+}
@@ -0,0 +1,178 @@
+package com.stocknotebook.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.stocknotebook.client.YahooFinanceClient;
+import com.stocknotebook.dto.response.PortfolioHistoryDTO;
+import com.stocknotebook.entity.Purchase;
+import com.stocknotebook.entity.Symbol;
+import com.stocknotebook.model.AdjustmentFactors;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.repository.DailySnapshotRepository;
+import com.stocknotebook.repository.FxRateRepository;
+import com.stocknotebook.repository.PurchaseRepository;
+import com.stocknotebook.repository.StockDataRepository;
+import com.stocknotebook.repository.SymbolRepository;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+class PortfolioHistoryEngineTest {
+
+    private static final UUID USER = UUID.randomUUID();
+    private static final int SYMBOLS = 50;
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate FIRST_PURCHASE = TODAY.minusYears(5);
+
+    private final Map<String, PriceSeries> series = new HashMap<>();
+    private final List<Purchase> purchases = new ArrayList<>();
+    private final List<Symbol> symbols = new ArrayList<>();
+
+    private PortfolioHistoryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // 50 symbols, each bought twice, priced on every weekday for 5 years
+        for (int s = 0; s < SYMBOLS; s++) {
+            String symbol = "SYM" + s;
+            PriceSeries.Builder prices = PriceSeries.builder(1_400);
+            for (
+                LocalDate day = FIRST_PURCHASE.minusDays(14);
+                !day.isAfter(TODAY);
+                day = day.plusDays(1)
+            ) {
+                if (day.getDayOfWeek().compareTo(DayOfWeek.SATURDAY) < 0) {
+                    prices.add(
+                        day,
+                        BigDecimal.valueOf(10 + s + day.getDayOfMonth()),
+                        null
+                    );
+                }
+            }
+            series.put(symbol, prices.build());
+            purchases.add(purchase(symbol, 10, FIRST_PURCHASE.plusDays(s)));
+            purchases.add(purchase(symbol, 5, TODAY.minusYears(2)));
+            Symbol entity = new Symbol(symbol, symbol);
+            entity.setCurrency("USD");
+            symbols.add(entity);
+        }
+
+        PurchaseRepository purchaseRepository = mock(PurchaseRepository.class);
+        StockDataRepository stockDataRepository = mock(
+            StockDataRepository.class
+        );
+        SymbolRepository symbolRepository = mock(SymbolRepository.class);
+        CorporateActionService corporateActionService = mock(
+            CorporateActionService.class
+        );
+        when(purchaseRepository.findByUserId(USER)).thenReturn(purchases);
+        when(
+            stockDataRepository.findSeriesBySymbolsAndDateRange(
+                anyCollection(),
+                any(),
+                any()
+            )
+        ).thenReturn(series);
+        when(symbolRepository.findBySymbolIn(anyCollection())).thenReturn(
+            symbols
+        );
+        when(corporateActionService.getFactors(anyCollection())).thenReturn(
+            Map.of()
+        );
+        engine = new PortfolioHistoryEngine(
+            purchaseRepository,
+            stockDataRepository,
+            symbolRepository,
+            mock(DailySnapshotRepository.class),
+            new FxRateTable(
+                mock(FxRateRepository.class),
+                mock(YahooFinanceClient.class),
+                mock(AsyncTaskExecutor.class),
+                "USD",
+                3600
+            ),
+            corporateActionService
+        );
+    }
+
+    @Test
+    void valuesEveryTradingDayFromTheHeldSharesAndCloses() {
+        PortfolioHistoryDTO history = engine.getHistory(USER, "5Y");
+
+        PortfolioHistoryDTO.Point last = history
+            .points()
+            .get(history.points().size() - 1);
+        BigDecimal expectedValue = BigDecimal.ZERO;
+        BigDecimal expectedInvested = BigDecimal.ZERO;
+        for (Purchase purchase : purchases) {
+            PriceSeries prices = series.get(purchase.getSymbol());
+            expectedValue = expectedValue.add(
+                prices
+                    .priceAt(prices.size() - 1)
+                    .multiply(BigDecimal.valueOf(purchase.getQuantity()))
+            );
+            expectedInvested = expectedInvested.add(purchase.getTotalCost());
+        }
+        assertThat(history.unpricedSymbols()).isEmpty();
+        assertThat(last.value()).isEqualByComparingTo(expectedValue);
+        assertThat(last.invested()).isEqualByComparingTo(expectedInvested);
+        assertThat(history.points().get(0).date()).isAfterOrEqualTo(
+            FIRST_PURCHASE
+        );
+    }
+
+    /**
+     * The 50 ms target for 50 symbols over 5 years, for the in-memory pass
+     * only: the repositories are mocks, so the price query is not timed
+     */
+    @Test
+    void computesFiftySymbolsOverFiveYearsWithinFiftyMillis() {
+        for (int i = 0; i < 500; i++) {
+            engine.getHistory(USER, "5Y");
+        }
+
+        long[] nanos = new long[21];
+        for (int i = 0; i < nanos.length; i++) {
+            long started = System.nanoTime();
+            engine.getHistory(USER, "5Y");
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        long medianMillis = nanos[nanos.length / 2] / 1_000_000;
+
+        System.out.printf(
+            "History of %d symbols over 5 years: median %d ms%n",
+            SYMBOLS,
+            medianMillis
+        );
+        assertThat(medianMillis).isLessThan(50);
+    }
+
+    private static Purchase purchase(
+        String symbol,
+        int quantity,
+        LocalDate date
+    ) {
+        return new Purchase(
+            symbol,
+            quantity,
+            new BigDecimal("20.00"),
+            BigDecimal.ONE,
+            date,
+            null
+        );
+    }
+}
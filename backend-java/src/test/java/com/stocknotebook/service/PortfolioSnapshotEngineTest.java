@@ -0,0 +1,169 @@
+package com.stocknotebook.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocknotebook.dto.response.PortfolioPositionDTO;
+import com.stocknotebook.dto.response.PortfolioSummaryDTO;
+import com.stocknotebook.dto.response.PriceSource;
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.event.PortfolioUpdatedEvent;
+import com.stocknotebook.event.StockDataWrittenEvent;
+import com.stocknotebook.repository.PurchaseRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+class PortfolioSnapshotEngineTest {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    private final PortfolioValuationEngine valuationEngine = mock(
+        PortfolioValuationEngine.class
+    );
+    private final ApplicationEventPublisher publisher = mock(
+        ApplicationEventPublisher.class
+    );
+
+    private PortfolioSnapshotEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        PurchaseRepository purchaseRepository = mock(PurchaseRepository.class);
+        CorporateActionService corporateActionService = mock(
+            CorporateActionService.class
+        );
+        when(purchaseRepository.findAggregatedPurchasesByUserId(USER)).thenReturn(
+            List.of()
+        );
+        when(corporateActionService.adjustPositions(eq(USER), anyList()))
+            .thenAnswer(invocation -> invocation.getArgument(1));
+        when(valuationEngine.baseCurrency()).thenReturn("USD");
+        engine = new PortfolioSnapshotEngine(
+            purchaseRepository,
+            valuationEngine,
+            corporateActionService,
+            publisher,
+            1800,
+            3600,
+            100
+        );
+    }
+
+    @Test
+    void firstPriceMovesAnUnpricedPositionIntoTheTotals() {
+        when(valuationEngine.value(anyList())).thenReturn(
+            List.of(
+                position("AAPL", 10, "150", "1000", PriceSource.CACHE),
+                position("NEWCO", 5, null, "50", PriceSource.UNAVAILABLE)
+            )
+        );
+        PortfolioSummaryDTO before = engine.getSummary(USER);
+        assertThat(before.unpricedSymbols()).containsExactly("NEWCO");
+        assertThat(before.totalValue()).isEqualByComparingTo("1500");
+        assertThat(before.totalSpent()).isEqualByComparingTo("1000");
+
+        engine.onStockDataWritten(
+            new StockDataWrittenEvent(List.of(quote("NEWCO", "12")))
+        );
+
+        PortfolioSummaryDTO after = engine.getSummary(USER);
+        assertThat(after.unpricedSymbols()).isEmpty();
+        assertThat(after.totalValue()).isEqualByComparingTo("1560");
+        assertThat(after.totalSpent()).isEqualByComparingTo("1050");
+        PortfolioPositionDTO priced = after
+            .positions()
+            .stream()
+            .filter(position -> position.symbol().equals("NEWCO"))
+            .findFirst()
+            .orElseThrow();
+        assertThat(priced.priceSource()).isEqualTo(PriceSource.UPSTREAM);
+        assertThat(priced.currentValue()).isEqualByComparingTo("60");
+        assertThat(priced.profitLoss()).isEqualByComparingTo("10");
+        verify(publisher).publishEvent(any(PortfolioUpdatedEvent.class));
+    }
+
+    @Test
+    void unchangedPriceLeavesThePositionAlone() {
+        when(valuationEngine.value(anyList())).thenReturn(
+            List.of(position("AAPL", 10, "150", "1000", PriceSource.CACHE))
+        );
+        PortfolioSummaryDTO before = engine.getSummary(USER);
+
+        engine.onStockDataWritten(
+            new StockDataWrittenEvent(List.of(quote("AAPL", "150.00")))
+        );
+
+        assertThat(engine.getSummary(USER)).isSameAs(before);
+    }
+
+    @Test
+    void changedPriceAdjustsTheTotalsByTheDifference() {
+        when(valuationEngine.value(anyList())).thenReturn(
+            List.of(
+                position("AAPL", 10, "150", "1000", PriceSource.CACHE),
+                position("MSFT", 2, "400", "700", PriceSource.DATABASE)
+            )
+        );
+        engine.getSummary(USER);
+
+        engine.onStockDataWritten(
+            new StockDataWrittenEvent(List.of(quote("AAPL", "155")))
+        );
+
+        PortfolioSummaryDTO after = engine.getSummary(USER);
+        assertThat(after.totalValue()).isEqualByComparingTo("2350");
+        assertThat(after.profitLoss()).isEqualByComparingTo("650");
+    }
+
+    private static PortfolioPositionDTO position(
+        String symbol,
+        long quantity,
+        String price,
+        String cost,
+        PriceSource source
+    ) {
+        BigDecimal currentPrice = price != null ? new BigDecimal(price) : null;
+        BigDecimal currentValue = currentPrice != null
+            ? currentPrice.multiply(BigDecimal.valueOf(quantity))
+            : BigDecimal.ZERO;
+        BigDecimal totalSpent = new BigDecimal(cost);
+        return new PortfolioPositionDTO(
+            symbol,
+            quantity,
+            totalSpent.divide(BigDecimal.valueOf(quantity)),
+            currentPrice,
+            currentValue,
+            totalSpent,
+            BigDecimal.ZERO,
+            currentPrice != null
+                ? currentValue.subtract(totalSpent)
+                : BigDecimal.ZERO,
+            null,
+            1,
+            LocalDate.now().minusDays(30),
+            LocalDate.now().minusDays(30),
+            source,
+            currentPrice != null ? 0L : null,
+            "USD",
+            BigDecimal.ONE
+        );
+    }
+
+    private static StockData quote(String symbol, String price) {
+        StockData stockData = new StockData();
+        stockData.setSymbol(symbol);
+        stockData.setPrice(new BigDecimal(price));
+        stockData.setDataDate(LocalDate.now());
+        return stockData;
+    }
+}
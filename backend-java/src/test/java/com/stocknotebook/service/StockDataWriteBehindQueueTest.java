@@ -0,0 +1,144 @@
+package com.stocknotebook.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocknotebook.entity.StockData;
+import com.stocknotebook.event.StockDataWrittenEvent;
+import com.stocknotebook.repository.StockDataRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class StockDataWriteBehindQueueTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 6);
+
+    private final StockDataRepository repository = mock(
+        StockDataRepository.class
+    );
+    private final ApplicationEventPublisher publisher = mock(
+        ApplicationEventPublisher.class
+    );
+    private final List<List<StockData>> upserts = new ArrayList<>();
+
+    private StockDataWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.upsertAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<StockData> rows = invocation.getArgument(0);
+            upserts.add(new ArrayList<>(rows));
+            if (rows.stream().anyMatch(row -> "BAD".equals(row.getSymbol()))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return rows.size();
+        });
+        // Long flush interval and large batches, so only the test flushes
+        queue = new StockDataWriteBehindQueue(
+            repository,
+            publisher,
+            100,
+            100,
+            60_000,
+            10,
+            2
+        );
+        queue.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.stop();
+    }
+
+    @Test
+    void coalescesQuotesBySymbolAndDate() {
+        queue.enqueue(quote("AAPL", "100", 1_000L, DAY));
+        queue.enqueue(quote("aapl ", "101", null, DAY));
+        queue.enqueue(quote("AAPL", "99", 500L, DAY.minusDays(1)));
+
+        assertThat(queue.size()).isEqualTo(2);
+        StockData pending = queue.findPending("AAPL", DAY).orElseThrow();
+        assertThat(pending.getPrice()).isEqualByComparingTo("101");
+        assertThat(pending.getVolume()).isEqualTo(1_000L);
+        verify(repository, never()).upsertAll(anyCollection());
+    }
+
+    @Test
+    void flushWritesOneBatchAndPublishesIt() {
+        queue.enqueue(quote("AAPL", "100", 1_000L, DAY));
+        queue.enqueue(quote("MSFT", "400", 2_000L, DAY));
+        queue.enqueue(quote("AAPL", "101", 1_100L, DAY));
+
+        assertThat(queue.flush()).isEqualTo(2);
+
+        assertThat(upserts).hasSize(1);
+        assertThat(upserts.get(0))
+            .extracting(StockData::getSymbol)
+            .containsExactly("AAPL", "MSFT");
+        assertThat(queue.size()).isZero();
+        assertThat(queue.findPending("AAPL", DAY)).isEmpty();
+        ArgumentCaptor<StockDataWrittenEvent> event = ArgumentCaptor.forClass(
+            StockDataWrittenEvent.class
+        );
+        verify(publisher).publishEvent(event.capture());
+        assertThat(event.getValue().stockData()).hasSize(2);
+        assertThat(queue.flush()).isZero();
+    }
+
+    @Test
+    void failedBatchIsWrittenRowByRowAndBadRowsAreDropped() {
+        queue.enqueue(quote("AAPL", "100", 1_000L, DAY));
+        queue.enqueue(quote("BAD", "1", 1L, DAY));
+
+        assertThat(queue.flush()).isEqualTo(1);
+        assertThat(queue.findPending("BAD", DAY)).isPresent();
+        assertThat(queue.findPending("AAPL", DAY)).isEmpty();
+
+        // The second failure reaches the max attempts
+        assertThat(queue.flush()).isZero();
+        assertThat(queue.size()).isZero();
+        // Batch, AAPL, BAD, then the re-queued BAD alone twice
+        assertThat(upserts).hasSize(5);
+    }
+
+    @Test
+    void enqueueAfterStopWritesSynchronously() throws InterruptedException {
+        queue.stop();
+
+        queue.enqueue(quote("AAPL", "100", 1_000L, DAY));
+
+        assertThat(queue.size()).isZero();
+        verify(repository, times(1)).upsertAll(anyCollection());
+        verify(publisher).publishEvent(any(StockDataWrittenEvent.class));
+    }
+
+    private static StockData quote(
+        String symbol,
+        String price,
+        Long volume,
+        LocalDate date
+    ) {
+        StockData stockData = new StockData();
+        stockData.setSymbol(symbol);
+        stockData.setPrice(new BigDecimal(price));
+        stockData.setVolume(volume);
+        stockData.setDataDate(date);
+        return stockData;
+    }
+}
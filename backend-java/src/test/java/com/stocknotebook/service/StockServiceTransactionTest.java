@@ -0,0 +1,212 @@
+package com.stocknotebook.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.stocknotebook.cache.CacheInspector;
+import com.stocknotebook.cache.CacheInvalidationBus;
+import com.stocknotebook.cache.StockPriceCache;
+import com.stocknotebook.cache.UnknownSymbolCache;
+import com.stocknotebook.client.YahooFinanceClient;
+import com.stocknotebook.model.PriceSeries;
+import com.stocknotebook.repository.StockDataRepository;
+import com.stocknotebook.repository.SymbolRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Checks that StockService holds no transaction, and so no pooled
+ * connection, while it waits on Yahoo Finance, under concurrent load.
+ *
+ * The transaction manager only counts transactions and the repositories are
+ * mocks, so this checks the transaction boundaries rather than measuring
+ * Hikari's pending threads.
+ */
+@SpringJUnitConfig(StockServiceTransactionTest.Config.class)
+class StockServiceTransactionTest {
+
+    private static final int THREADS = 8;
+    private static final int CALLS_PER_THREAD = 20;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private CountingTransactionManager transactionManager;
+
+    @Autowired
+    private YahooFinanceClient yahooFinanceClient;
+
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+    private final AtomicInteger remoteCallsInTransaction = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(yahooFinanceClient.fetchCurrentPrice(anyString())).thenAnswer(
+            invocation -> {
+                remoteCall();
+                return new BigDecimal("101.25");
+            }
+        );
+        when(yahooFinanceClient.fetchCurrentPrices(anyCollection())).thenAnswer(
+            invocation -> {
+                remoteCall();
+                return Map.of();
+            }
+        );
+        when(yahooFinanceClient.fetchChartData(anyString(), anyString()))
+            .thenAnswer(invocation -> {
+                remoteCall();
+                return PriceSeries.empty();
+            });
+    }
+
+    @Test
+    void transactionalMethodsRunInATransaction() {
+        int before = transactionManager.begun.get();
+
+        stockService.getLatestData("AAPL");
+
+        assertThat(transactionManager.begun.get()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void yahooCallsNeverRunInsideATransaction() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(
+                    executor.submit(() -> {
+                        for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                            String symbol = "S" + thread + "_" + i;
+                            switch (i % 4) {
+                                case 0 -> stockService.loadCurrentPrice(symbol);
+                                case 1 -> stockService.loadCurrentPrices(
+                                    List.of(symbol, symbol + "X")
+                                );
+                                case 2 -> stockService.loadChartData(
+                                    symbol,
+                                    "1M"
+                                );
+                                default -> stockService.updateStockDataBulk(
+                                    List.of(symbol)
+                                );
+                            }
+                        }
+                    })
+                );
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(remoteCalls.get()).isEqualTo(THREADS * CALLS_PER_THREAD);
+        assertThat(remoteCallsInTransaction.get()).isZero();
+        assertThat(transactionManager.maxOpenDuringRemoteCalls.get()).isZero();
+    }
+
+    private void remoteCall() throws InterruptedException {
+        remoteCalls.incrementAndGet();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            remoteCallsInTransaction.incrementAndGet();
+        }
+        transactionManager.maxOpenDuringRemoteCalls.accumulateAndGet(
+            transactionManager.open.get(),
+            Math::max
+        );
+        // Stand-in for the network round trip
+        Thread.sleep(5);
+    }
+
+    /**
+     * Counts transactions without touching a database
+     */
+    static class CountingTransactionManager
+        extends AbstractPlatformTransactionManager {
+
+        final AtomicInteger begun = new AtomicInteger();
+        final AtomicInteger open = new AtomicInteger();
+        final AtomicInteger maxOpenDuringRemoteCalls = new AtomicInteger();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(
+            Object transaction,
+            TransactionDefinition definition
+        ) {
+            begun.incrementAndGet();
+            open.incrementAndGet();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {}
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {}
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            open.decrementAndGet();
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+
+        @Bean
+        CountingTransactionManager transactionManager() {
+            return new CountingTransactionManager();
+        }
+
+        @Bean
+        YahooFinanceClient yahooFinanceClient() {
+            return mock(YahooFinanceClient.class);
+        }
+
+        @Bean
+        StockService stockService(YahooFinanceClient yahooFinanceClient) {
+            return new StockService(
+                mock(StockDataRepository.class),
+                mock(SymbolRepository.class),
+                yahooFinanceClient,
+                mock(StockDataWriteBehindQueue.class),
+                mock(StockPriceCache.class),
+                mock(CacheInvalidationBus.class),
+                mock(CacheInspector.class),
+                mock(UnknownSymbolCache.class),
+                mock(ApplicationEventPublisher.class)
+            );
+        }
+    }
+}